@@ -21,35 +21,34 @@ package tech.ailef.snapadmin.external;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import java.util.Locale;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.config.BeanDefinition;
-import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
-import org.springframework.core.type.filter.AnnotationTypeFilter;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.Column;
-import jakarta.persistence.Entity;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
-import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Lob;
-import jakarta.persistence.ManyToMany;
-import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToMany;
-import jakarta.persistence.OneToOne;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.Attribute.PersistentAttributeType;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
 import tech.ailef.snapadmin.external.annotations.Disable;
 import tech.ailef.snapadmin.external.annotations.DisplayFormat;
 import tech.ailef.snapadmin.external.dbmapping.CustomJpaRepository;
@@ -59,6 +58,7 @@ import tech.ailef.snapadmin.external.dbmapping.fields.DbFieldType;
 import tech.ailef.snapadmin.external.dbmapping.fields.EnumFieldType;
 import tech.ailef.snapadmin.external.dbmapping.fields.StringFieldType;
 import tech.ailef.snapadmin.external.dbmapping.fields.TextFieldType;
+import tech.ailef.snapadmin.external.dbmapping.search.SearchPlanner;
 import tech.ailef.snapadmin.external.dto.MappingError;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminNotFoundException;
@@ -66,9 +66,9 @@ import tech.ailef.snapadmin.external.exceptions.UnsupportedFieldTypeException;
 import tech.ailef.snapadmin.external.misc.Utils;
 
 /**
- * The main SnapAdmin class is responsible for the initialization phase. This class scans
- * the user provided package containing the {@code Entity} definitions and tries to map each
- * entity to a {@link DbObjectSchema} instance.
+ * The main SnapAdmin class is responsible for the initialization phase. This class reads
+ * the {@code Entity} definitions in the user provided packages from the JPA metamodel and
+ * tries to map each entity to a {@link DbObjectSchema} instance.
  * 
  * This process involves determining the correct type for each class field and its 
  * configuration at the database level. An exception will be thrown if it's not possible
@@ -82,55 +82,113 @@ public class SnapAdmin {
 	
 	private List<DbObjectSchema> schemas = new ArrayList<>();
 	
+	/**
+	 * Schemas indexed by full class name, built at the end of initialization
+	 */
+	private Map<String, DbObjectSchema> schemasByClassName = Map.of();
+	
+	/**
+	 * Schemas indexed by lowercase table name, since JDBC metadata
+	 * may report table names in a different case
+	 */
+	private Map<String, DbObjectSchema> schemasByTableName = Map.of();
+	
 	private List<String> modelsPackage;
 	
 	private SnapAdminProperties properties;
 	
+	private SearchPlanner searchPlanner;
+	
 	private boolean authenticated;
 	
 	private static final String VERSION = "0.2.0";
     
     /**
-	 * Builds the SnapAdmin instance by scanning the `@Entity` beans and loading
+	 * Builds the SnapAdmin instance by reading the `@Entity` classes from the metamodel and loading
 	 * the schemas.
 	 * @param entityManager	the entity manager
 	 * @param properties	the configuration properties
+	 * @param searchPlanner	the planner for the search queries
 	 */
-	public SnapAdmin(@Autowired EntityManager entityManager, @Autowired SnapAdminProperties properties) {
+	public SnapAdmin(@Autowired EntityManager entityManager, @Autowired SnapAdminProperties properties,
+			@Autowired SearchPlanner searchPlanner) {
 		this.modelsPackage = Arrays.stream(properties.getModelsPackage().split(",")).map(String::trim).toList();
 		this.entityManager = entityManager;
 		this.properties = properties;
+		this.searchPlanner = searchPlanner;
 	}
 	
 	@PostConstruct
 	private void init() {
-		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(false);
-		provider.addIncludeFilter(new AnnotationTypeFilter(Entity.class));
-		
+		long start = System.nanoTime();
 		logger.debug("Initializing SnapAdmin...");
 		
-		for (String currentPackage : modelsPackage) {
-			logger.debug("Scanning package " + currentPackage);
-			
-			Set<BeanDefinition> beanDefs = provider.findCandidateComponents(currentPackage);
-			logger.debug("Found " + beanDefs.size() + " candidate @Entity classes");
+		Metamodel metamodel = entityManager.getMetamodel();
+		
+		// The entities have already been discovered and mapped by Hibernate, so 
+		// we take them from the metamodel instead of scanning the classpath again
+		List<EntityType<?>> entityTypes = metamodel.getEntities().stream()
+			.filter(e -> isInModelsPackage(e.getJavaType()))
+			.filter(e -> !Modifier.isAbstract(e.getJavaType().getModifiers()))
+			.filter(e -> e.getJavaType().getAnnotation(Disable.class) == null)
+			.sorted(Comparator.comparing(e -> e.getJavaType().getName()))
+			.toList();
+		
+		logger.debug("Found " + entityTypes.size() + " @Entity classes in the metamodel");
+		
+		Map<String, DbObjectSchema> byClassName = new HashMap<>();
+		Map<String, DbObjectSchema> byTableName = new HashMap<>();
+		Map<DbObjectSchema, EntityType<?>> entityTypesBySchema = new HashMap<>();
+		for (EntityType<?> entityType : entityTypes) {
+			DbObjectSchema schema = new DbObjectSchema(entityType.getJavaType(), this);
+			schema.setJpaRepository(new CustomJpaRepository(schema, entityManager, searchPlanner));
 			
-			for (BeanDefinition bd : beanDefs) {
-				// This can return null if the Entity has the @Disable annotation
-				DbObjectSchema schema = processBeanDefinition(bd);
-				if (schema != null)
-					schemas.add(schema);
+			schemas.add(schema);
+			entityTypesBySchema.put(schema, entityType);
+			byClassName.put(schema.getClassName(), schema);
+			byTableName.putIfAbsent(schema.getTableName().toLowerCase(Locale.ROOT), schema);
+		}
+		
+		schemas = List.copyOf(schemas);
+		schemasByClassName = Map.copyOf(byClassName);
+		schemasByTableName = Map.copyOf(byTableName);
+		
+		if (properties.isLazySchemaInit()) {
+			// Fields are mapped when the schema is first used
+			for (DbObjectSchema schema : schemas) {
+				EntityType<?> entityType = entityTypesBySchema.get(schema);
+				schema.setInitializer(s -> {
+					mapFields(s, entityType);
+					s.freeze();
+				});
 			}
 			
-			logger.info("Scanned package '" + currentPackage + "'. Loaded " + beanDefs.size() + " schemas.");
+			logger.info("SnapAdmin initialized in " + (System.nanoTime() - start) / 1000000 + " ms. Registered " 
+				+ schemas.size() + " schemas, fields are mapped on first access");
+		} else {
+			// Schemas are independent of each other, so they can be mapped in parallel. Relationship 
+			// fields only depend on which classes are managed, which is known at this point.
+			schemas.parallelStream().forEach(schema -> {
+				mapFields(schema, entityTypesBySchema.get(schema));
+				schema.freeze();
+			});
+			
+			boolean hasErrors = schemas.stream().flatMap(s -> s.getErrors().stream()).count() > 0;
+			
+			logger.info("SnapAdmin initialized in " + (System.nanoTime() - start) / 1000000 + " ms. Loaded " 
+				+ schemas.size() + " schemas from " + modelsPackage.size() + " packages" + (hasErrors ? " (with errors)" : ""));
 		}
-
-		boolean hasErrors = schemas.stream().flatMap(s -> s.getErrors().stream()).count() > 0;
 		
-		logger.info("SnapAdmin initialized. Loaded " + schemas.size() 
-				+ " schemas from " + modelsPackage.size() + " packages"	+ (hasErrors ? " (with errors)" : ""));
 		logger.info("SnapAdmin web interface at: http://YOUR_HOST:YOUR_PORT/" + properties.getBaseUrl());
-		
+	}
+	
+	/**
+	 * Returns whether a class is in one of the packages listed in `snapadmin.modelsPackage`, 
+	 * or in one of their subpackages
+	 */
+	private boolean isInModelsPackage(Class<?> klass) {
+		String packageName = klass.getPackageName();
+		return modelsPackage.stream().anyMatch(p -> packageName.equals(p) || packageName.startsWith(p + "."));
 	}
 
 	/**
@@ -156,9 +214,10 @@ public class SnapAdmin {
 	 * @throws SnapAdminException if corresponding schema not found
 	 */
 	public DbObjectSchema findSchemaByClassName(String className) {
-		return schemas.stream().filter(s -> s.getClassName().equals(className)).findFirst().orElseThrow(() -> {
-			return new SnapAdminNotFoundException("Schema " + className + " not found.");
-		});
+		DbObjectSchema schema = schemasByClassName.get(className);
+		if (schema == null)
+			throw new SnapAdminNotFoundException("Schema " + className + " not found.");
+		return schema;
 	}
 	
 	/**
@@ -168,9 +227,20 @@ public class SnapAdmin {
 	 * @throws SnapAdminException if corresponding schema not found
 	 */
 	public DbObjectSchema findSchemaByTableName(String tableName) {
-		return schemas.stream().filter(s -> s.getTableName().equals(tableName)).findFirst().orElseThrow(() -> {
-			return new SnapAdminException("Schema " + tableName + " not found.");
-		});
+		DbObjectSchema schema = getSchemaByTableName(tableName);
+		if (schema == null)
+			throw new SnapAdminException("Schema " + tableName + " not found.");
+		return schema;
+	}
+	
+	/**
+	 * Returns the schema for a table name, ignoring case
+	 * @param tableName the table name on the database
+	 * @return the schema with this table name, null if not found
+	 */
+	public DbObjectSchema getSchemaByTableName(String tableName) {
+		if (tableName == null) return null;
+		return schemasByTableName.get(tableName.toLowerCase(Locale.ROOT));
 	}
 	
 	/**
@@ -187,39 +257,37 @@ public class SnapAdmin {
 	 * Returns whether this class is managed by SnapAdmin
 	 */
 	public boolean isManagedClass(Class<?> klass) {
-		Optional<DbObjectSchema> hasSchema = 
-			schemas.stream().filter(s -> s.getClassName().equals(klass.getName())).findFirst();
-		return hasSchema.isPresent();
+		return klass != null && schemasByClassName.containsKey(klass.getName());
 	}
 	
 	/**
-	 * This method processes a BeanDefinition into a DbObjectSchema object,
-	 * where all fields have been correctly mapped to DbField objects.
+	 * Maps the persistent attributes of an `@Entity`, as found in the metamodel,
+	 * to the DbField objects of its schema. Attributes inherited from `@MappedSuperclass`es
+	 * are included, superclass fields first.
 	 * 
-	 * If any field is not mappable, the method will throw an exception.
-	 * @param bd
-	 * @return a schema derived from the `@Entity` class
+	 * Fields that can't be mapped to a supported type are reported as mapping errors.
+	 * @param schema	the schema of the `@Entity`
+	 * @param entityType	the metamodel type of the `@Entity`
 	 */
-	private DbObjectSchema processBeanDefinition(BeanDefinition bd) {
-		String fullClassName = bd.getBeanClassName();
+	private void mapFields(DbObjectSchema schema, EntityType<?> entityType) {
+		Class<?> klass = schema.getJavaClass();
+		logger.debug("Processing class: "  + klass + " - Table: " + schema.getTableName());
 		
-		try {
-			Class<?> klass = Class.forName(fullClassName);
-			
-			Disable disabled = klass.getAnnotation(Disable.class);
-			if (disabled != null)
-				return null;
-			
-			DbObjectSchema schema = new DbObjectSchema(klass, this);
-			CustomJpaRepository simpleJpaRepository = new CustomJpaRepository(schema, entityManager);
-			schema.setJpaRepository(simpleJpaRepository);
-			
-			logger.debug("Processing class: "  + klass + " - Table: " + schema.getTableName());
-			
-			Field[] fields = klass.getDeclaredFields();
-			for (Field f : fields) {
+		Map<String, Attribute<?, ?>> attributes = new HashMap<>();
+		for (Attribute<?, ?> attribute : entityType.getAttributes())
+			attributes.put(attribute.getName(), attribute);
+		
+		List<Class<?>> hierarchy = new ArrayList<>();
+		for (Class<?> c = klass; c != null && c != Object.class; c = c.getSuperclass())
+			hierarchy.add(0, c);
+		
+		for (Class<?> c : hierarchy) {
+			for (Field f : c.getDeclaredFields()) {
+				Attribute<?, ?> attribute = attributes.remove(f.getName());
+				if (attribute == null) continue;
+				
 				try {
-					DbField field = mapField(f, schema);
+					DbField field = mapField(f, attribute, schema);
 					field.setSchema(schema);
 					schema.addField(field);
 				} catch (UnsupportedFieldTypeException e) {
@@ -232,14 +300,11 @@ public class SnapAdmin {
 					);
 				}
 			}
-			
-			logger.debug("Processed " + klass + ", extracted " + schema.getSortedFields().size() + " fields");
-			
-			return schema;
-		} catch (ClassNotFoundException |
-				IllegalArgumentException | SecurityException e) {
-			throw new RuntimeException(e);
 		}
+		
+		schema.buildAccessors();
+		
+		logger.debug("Processed " + klass + ", extracted " + schema.getFields().size() + " fields");
 	}
 	
 	/**
@@ -284,15 +349,13 @@ public class SnapAdmin {
 	 * attributes (e.g. nullable). 
 	 * This method returns null if a field cannot be mapped to a supported type.
 	 * @param f primitive Java field to construct a DbField from
+	 * @param attribute the metamodel attribute for the field
 	 * @param schema the schema this field belongs to
 	 * @return
 	 */
-	private DbField mapField(Field f, DbObjectSchema schema) {
+	private DbField mapField(Field f, Attribute<?, ?> attribute, DbObjectSchema schema) {
 		logger.debug("Processing field " + f.getName());
-		OneToMany oneToMany = f.getAnnotation(OneToMany.class);
-		ManyToMany manyToMany = f.getAnnotation(ManyToMany.class);
-		ManyToOne manyToOne = f.getAnnotation(ManyToOne.class);
-		OneToOne oneToOne = f.getAnnotation(OneToOne.class);
+		PersistentAttributeType attributeType = attribute.getPersistentAttributeType();
 		Lob lob = f.getAnnotation(Lob.class);
 		
 		String fieldName = determineFieldName(f);
@@ -323,15 +386,14 @@ public class SnapAdmin {
 			// If failure, we try to map a relationship on this field later
 		}
 
-		if (manyToOne != null || oneToOne != null) {
+		if (attributeType == PersistentAttributeType.MANY_TO_ONE || attributeType == PersistentAttributeType.ONE_TO_ONE) {
 			fieldName = mapRelationshipJoinColumn(f);
-			fieldType = mapForeignKeyType(f.getType());
-			connectedType = f.getType();
+			fieldType = mapForeignKeyType(attribute.getJavaType());
+			connectedType = attribute.getJavaType();
 		}
 		
-		if (manyToMany != null || oneToMany != null) {
-			ParameterizedType stringListType = (ParameterizedType) f.getGenericType();
-	        Class<?> targetEntityClass = (Class<?>) stringListType.getActualTypeArguments()[0];
+		if (attributeType == PersistentAttributeType.MANY_TO_MANY || attributeType == PersistentAttributeType.ONE_TO_MANY) {
+	        Class<?> targetEntityClass = ((PluralAttribute<?, ?, ?>)attribute).getElementType().getJavaType();
 	        fieldType = mapForeignKeyType(targetEntityClass);
 	        connectedType = targetEntityClass;
 		}
@@ -355,8 +417,7 @@ public class SnapAdmin {
 		DbField field = new DbField(f.getName(), fieldName, f, fieldType, schema, displayFormat != null ? displayFormat.format() : null);
 		field.setConnectedType(connectedType);
 		
-		Id[] idAnnotations = f.getAnnotationsByType(Id.class);
-		field.setPrimaryKey(idAnnotations.length != 0);
+		field.setPrimaryKey(attribute instanceof SingularAttribute<?, ?> singular && singular.isId());
 		
 		field.setNullable(determineNullable(f));
 		
@@ -384,25 +445,21 @@ public class SnapAdmin {
 	
 	/**
 	 * Returns the type of a foreign key field, by looking at the type
-	 * of the primary key (defined as `@Id`) in the referenced table.
+	 * of the primary key (defined as `@Id`) in the referenced entity,
+	 * as found in the metamodel.
 	 * 
 	 * @param entityClass
 	 * @return
 	 */
 	private DbFieldType mapForeignKeyType(Class<?> entityClass) {
+		Class<?> linkType;
+		try {
+			linkType = entityManager.getMetamodel().entity(entityClass).getIdType().getJavaType();
+		} catch (IllegalArgumentException e) {
+			throw new SnapAdminException("Unable to find @Id field in Entity class " + entityClass);
+		}
+		
 		try {
-			Object linkedEntity = entityClass.getConstructor().newInstance();
-			Class<?> linkType = null;
-			
-			for (Field ef : linkedEntity.getClass().getDeclaredFields()) {
-				if (ef.getAnnotationsByType(Id.class).length != 0) {
-					linkType = ef.getType();
-				}
-			}
-			
-			if (linkType == null)
-				throw new SnapAdminException("Unable to find @Id field in Entity class " + entityClass);
-			
 			return DbFieldType.fromClass(linkType).getConstructor().newInstance();
 		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException
 				| InvocationTargetException | NoSuchMethodException | SecurityException e) {
@@ -39,13 +39,20 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import com.zaxxer.hikari.HikariDataSource;
+
+import tech.ailef.snapadmin.external.dbmapping.search.SnapAdminFunctionContributor;
 import tech.ailef.snapadmin.internal.InternalSnapAdminConfiguration;
 
 /**
  * The configuration class for "internal" data source. This is not the
  * source connected to the user's data/entities, but rather an internal
- * H2 database which is used by SnapAdmin to store user
+ * database which is used by SnapAdmin to store user
  * settings and other information like operations history. 
+ * 
+ * By default this is a local H2 database, so each instance of the application
+ * has its own. To share the same data across multiple instances (e.g. behind a
+ * load balancer), point {@code snapadmin.internalDbUrl} to a shared database.
  */
 @ConditionalOnProperty(name = "snapadmin.enabled", matchIfMissing = false)
 @ComponentScan
@@ -62,23 +69,35 @@ public class SnapAdminAutoConfiguration {
 	private SnapAdminProperties props;
 
 	/**
-	 * Builds and returns the internal data source.
+	 * Builds and returns the internal data source, a connection pool to either
+	 * a local H2 database or the database configured with {@code snapadmin.internalDbUrl}.
 	 * 
 	 * @return
 	 */
 	@Bean
 	DataSource internalDataSource() {
-		DataSourceBuilder<?> dataSourceBuilder = DataSourceBuilder.create();
-		dataSourceBuilder.driverClassName("org.h2.Driver");
-		if (props.isTestMode()) {
-			dataSourceBuilder.url("jdbc:h2:mem:test");
+		DataSourceBuilder<HikariDataSource> dataSourceBuilder = DataSourceBuilder.create().type(HikariDataSource.class);
+		if (props.getInternalDbUrl() != null) {
+			dataSourceBuilder.url(props.getInternalDbUrl());
+			if (props.getInternalDbDriverClassName() != null)
+				dataSourceBuilder.driverClassName(props.getInternalDbDriverClassName());
 		} else {
-			dataSourceBuilder.url("jdbc:h2:file:./snapadmin_internal");
+			dataSourceBuilder.driverClassName("org.h2.Driver");
+			if (props.isTestMode()) {
+				dataSourceBuilder.url("jdbc:h2:mem:test");
+			} else {
+				dataSourceBuilder.url("jdbc:h2:file:./snapadmin_internal");
+			}
 		}
 		
-		dataSourceBuilder.username("sa");
-		dataSourceBuilder.password("password");
-		return dataSourceBuilder.build();
+		dataSourceBuilder.username(props.getInternalDbUsername());
+		dataSourceBuilder.password(props.getInternalDbPassword());
+		
+		HikariDataSource dataSource = dataSourceBuilder.build();
+		dataSource.setPoolName("snapadmin-internal");
+		dataSource.setMaximumPoolSize(props.getInternalDbPoolSize());
+		dataSource.setMinimumIdle(Math.min(props.getInternalDbPoolSize(), 2));
+		return dataSource;
 	}
 
 	@Bean
@@ -89,8 +108,16 @@ public class SnapAdminAutoConfiguration {
 		factoryBean.setPackagesToScan("tech.ailef.snapadmin.internal.model");
 		factoryBean.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
 		Properties properties = new Properties();
-		properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
-		properties.setProperty("hibernate.hbm2ddl.auto", "update");
+		// The dialect of a custom database is detected from the connection
+		if (props.getInternalDbUrl() == null)
+			properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+		properties.setProperty("hibernate.hbm2ddl.auto", props.getInternalDbDdlAuto());
+		// The internal store doesn't need the full-text search functions
+		properties.setProperty(SnapAdminFunctionContributor.ENABLED_SETTING, "false");
+		if (props.getInternalDbSchema() != null) {
+			properties.setProperty("hibernate.default_schema", props.getInternalDbSchema());
+			properties.setProperty("hibernate.hbm2ddl.create_namespaces", "true");
+		}
 		factoryBean.setJpaProperties(properties);
 		factoryBean.afterPropertiesSet();
 		return factoryBean;
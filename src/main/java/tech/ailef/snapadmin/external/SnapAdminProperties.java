@@ -19,8 +19,15 @@
 
 package tech.ailef.snapadmin.external;
 
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import tech.ailef.snapadmin.external.dto.RowCountMode;
+
 /**
  * The 'snapadmin.*' properties that can be set in the properties file
  * to configure the behaviour of Spring Boot Admin Panel. 
@@ -52,6 +59,239 @@ public class SnapAdminProperties {
 	 */
 	private boolean sqlConsoleEnabled = true;
 	
+	/**
+	 * Whether to paginate the list of items with keyset pagination instead of offsets.
+	 * Keyset pagination has constant cost on deep pages and doesn't count the results,
+	 * but only allows to move to the previous/next page.
+	 */
+	private boolean keysetPagination = false;
+	
+	/**
+	 * How the number of rows in each table is computed, unless
+	 * specified differently in {@code rowCountModes}
+	 */
+	private RowCountMode rowCountMode = RowCountMode.EXACT;
+	
+	/**
+	 * The row count mode for specific `@Entity` classes, by full or simple class name
+	 */
+	private Map<String, RowCountMode> rowCountModes = new HashMap<>();
+	
+	/**
+	 * How long, in seconds, row counts are cached with the CACHED row count mode
+	 */
+	private int rowCountCacheTtl = 60;
+	
+	/**
+	 * The maximum number of count queries run concurrently on the home page
+	 */
+	private int countConcurrency = 4;
+	
+	/**
+	 * How long, in milliseconds, the home page waits for row counts
+	 */
+	private int countTimeout = 5000;
+	
+	/**
+	 * The maximum number of rows read from the results of a SQL console query.
+	 * Results with more rows are truncated. Exports of console queries are not
+	 * limited, since they are streamed.
+	 */
+	private int consoleMaxRows = 10000;
+	
+	/**
+	 * The number of rows fetched at a time from the database by SQL console queries
+	 */
+	private int consoleFetchSize = 500;
+	
+	/**
+	 * The timeout, in seconds, for SQL console queries. 0 means no timeout.
+	 */
+	private int consoleQueryTimeout = 30;
+	
+	/**
+	 * Whether to answer autocomplete requests from an in-memory index
+	 * instead of querying the database
+	 */
+	private boolean autocompleteIndex = false;
+	
+	/**
+	 * The maximum number of items in an autocomplete index. Tables with
+	 * more items are not indexed and searched on the database.
+	 */
+	private int autocompleteIndexMaxEntries = 100000;
+	
+	/**
+	 * The approximate maximum heap, in megabytes, used by an autocomplete index. 
+	 * Tables whose index is estimated to be larger are not indexed and searched 
+	 * on the database.
+	 */
+	private int autocompleteIndexMaxMemory = 64;
+	
+	/**
+	 * How often, in seconds, autocomplete indexes are rebuilt. 0 disables the rebuild.
+	 */
+	private int autocompleteIndexRefreshInterval = 300;
+	
+	/**
+	 * The maximum number of distinct values shown in a categorical filter
+	 */
+	private int facetMaxValues = 100;
+	
+	/**
+	 * How long, in seconds, the values and counts of categorical filters are cached
+	 */
+	private int facetCacheTtl = 60;
+	
+	/**
+	 * The maximum number of user actions waiting to be written to the audit log
+	 */
+	private int auditQueueCapacity = 10000;
+	
+	/**
+	 * The maximum number of user actions written to the audit log in a single batch
+	 */
+	private int auditBatchSize = 500;
+	
+	/**
+	 * How long, in milliseconds, a user action can wait before its batch is written
+	 */
+	private int auditFlushInterval = 1000;
+	
+	/**
+	 * Whether requests wait for space when the audit log queue is full. 
+	 * If false, user actions that don't fit in the queue are dropped.
+	 */
+	private boolean auditBlockWhenFull = true;
+	
+	/**
+	 * How many days user actions are kept in the audit log. 0 keeps them forever.
+	 */
+	private int auditRetentionDays = 0;
+	
+	/**
+	 * How often, in seconds, the cached user settings are checked against the 
+	 * internal database for changes made by other instances. 0 checks on every read.
+	 */
+	private int settingsRefreshInterval = 5;
+	
+	/**
+	 * The sizes, in pixels, of the thumbnails that can be generated for `@DisplayImage` 
+	 * fields. The first one is the size used in the interface.
+	 */
+	private List<Integer> thumbnailSizes = List.of(256);
+	
+	/**
+	 * The directory where generated thumbnails are cached
+	 */
+	private String thumbnailCacheDir = Path.of(System.getProperty("java.io.tmpdir"), "snapadmin-thumbnails").toString();
+	
+	/**
+	 * The maximum size, in megabytes, of the thumbnail cache. The least 
+	 * recently used thumbnails are deleted first.
+	 */
+	private int thumbnailCacheSize = 100;
+	
+	/**
+	 * The maximum number of thumbnails generated concurrently
+	 */
+	private int thumbnailThreads = 2;
+	
+	/**
+	 * Whether list pages and exports select only the columns they show, 
+	 * instead of loading whole entities
+	 */
+	private boolean projectionQueries = true;
+	
+	/**
+	 * Whether the fields of each schema are mapped the first time the schema
+	 * is used, instead of at startup
+	 */
+	private boolean lazySchemaInit = false;
+	
+	/**
+	 * Whether the search bar matches string fields by prefix (`LIKE 'query%'`),
+	 * which can use an index, instead of anywhere in the value
+	 */
+	private boolean prefixSearch = false;
+	
+	/**
+	 * The number of rows inserted in each transaction (and JDBC batch) when importing a file
+	 */
+	private int importBatchSize = 500;
+	
+	/**
+	 * The maximum number of row errors kept for each import, further errors are only counted
+	 */
+	private int importMaxErrors = 1000;
+	
+	/**
+	 * The JDBC URL of the internal database, which stores settings, console queries and
+	 * the audit log. Set it to a database shared by all the instances of the application
+	 * so that they see the same data. If not set, a local H2 file database is used.
+	 */
+	private String internalDbUrl;
+	
+	/**
+	 * The driver class of the internal database, detected from the URL if not set
+	 */
+	private String internalDbDriverClassName;
+	
+	/**
+	 * The username for the internal database
+	 */
+	private String internalDbUsername = "sa";
+	
+	/**
+	 * The password for the internal database
+	 */
+	private String internalDbPassword = "password";
+	
+	/**
+	 * The schema where the internal tables are created, e.g. to keep them separate
+	 * from the other tables of a shared database. Created if it doesn't exist.
+	 */
+	private String internalDbSchema;
+	
+	/**
+	 * The maximum number of connections in the internal database pool
+	 */
+	private int internalDbPoolSize = 5;
+	
+	/**
+	 * How the internal tables are created or updated at startup (the value of
+	 * {@code hibernate.hbm2ddl.auto}), e.g. `none` if they are managed manually
+	 */
+	private String internalDbDdlAuto = "update";
+	
+	/**
+	 * The maximum number of items deleted with a single statement when deleting multiple items
+	 */
+	private int deleteChunkSize = 500;
+	
+	/**
+	 * The number of rows fetched at a time from the database when exporting data.
+	 * This is also the interval at which the persistence context is cleared.
+	 */
+	private int exportFetchSize = 1000;
+	
+	/**
+	 * The timeout, in milliseconds, for streamed exports. It only applies to the export 
+	 * requests; if not set, the default timeout for asynchronous requests is used.
+	 */
+	private Long exportTimeout;
+	
+	/**
+	 * The number of rows kept in memory when writing XLSX exports. Older rows
+	 * are flushed to temporary files on disk.
+	 */
+	private int xlsxRowAccessWindow = 100;
+	
+	/**
+	 * Whether to compress the temporary files used when writing XLSX exports
+	 */
+	private boolean xlsxCompressTempFiles = true;
+	
 	/**
 	 * Whether SnapAdmin is enabled
 	 * @return
@@ -96,6 +336,494 @@ public class SnapAdminProperties {
 		this.modelsPackage = modelsPackage;
 	}
 	
+	/**
+	 * Returns whether keyset pagination is enabled on the list of items
+	 * @return
+	 */
+	public boolean isKeysetPagination() {
+		return keysetPagination;
+	}
+	
+	public void setKeysetPagination(boolean keysetPagination) {
+		this.keysetPagination = keysetPagination;
+	}
+	
+	/**
+	 * Returns the default row count mode
+	 * @return
+	 */
+	public RowCountMode getRowCountMode() {
+		return rowCountMode;
+	}
+	
+	public void setRowCountMode(RowCountMode rowCountMode) {
+		this.rowCountMode = rowCountMode;
+	}
+	
+	/**
+	 * Returns the row count modes for specific `@Entity` classes
+	 * @return
+	 */
+	public Map<String, RowCountMode> getRowCountModes() {
+		return rowCountModes;
+	}
+	
+	public void setRowCountModes(Map<String, RowCountMode> rowCountModes) {
+		this.rowCountModes = rowCountModes;
+	}
+	
+	/**
+	 * Returns how long, in seconds, row counts are cached
+	 * @return
+	 */
+	public int getRowCountCacheTtl() {
+		return rowCountCacheTtl;
+	}
+	
+	public void setRowCountCacheTtl(int rowCountCacheTtl) {
+		this.rowCountCacheTtl = rowCountCacheTtl;
+	}
+	
+	/**
+	 * Returns the maximum number of count queries run concurrently on the home page
+	 * @return
+	 */
+	public int getCountConcurrency() {
+		return countConcurrency;
+	}
+	
+	public void setCountConcurrency(int countConcurrency) {
+		this.countConcurrency = countConcurrency;
+	}
+	
+	/**
+	 * Returns how long, in milliseconds, the home page waits for row counts
+	 * @return
+	 */
+	public int getCountTimeout() {
+		return countTimeout;
+	}
+	
+	public void setCountTimeout(int countTimeout) {
+		this.countTimeout = countTimeout;
+	}
+	
+	/**
+	 * Returns the maximum number of rows read from the results of a SQL console query
+	 * @return
+	 */
+	public int getConsoleMaxRows() {
+		return consoleMaxRows;
+	}
+	
+	public void setConsoleMaxRows(int consoleMaxRows) {
+		this.consoleMaxRows = consoleMaxRows;
+	}
+	
+	/**
+	 * Returns the number of rows fetched at a time by SQL console queries
+	 * @return
+	 */
+	public int getConsoleFetchSize() {
+		return consoleFetchSize;
+	}
+	
+	public void setConsoleFetchSize(int consoleFetchSize) {
+		this.consoleFetchSize = consoleFetchSize;
+	}
+	
+	/**
+	 * Returns the timeout, in seconds, for SQL console queries
+	 * @return
+	 */
+	public int getConsoleQueryTimeout() {
+		return consoleQueryTimeout;
+	}
+	
+	public void setConsoleQueryTimeout(int consoleQueryTimeout) {
+		this.consoleQueryTimeout = consoleQueryTimeout;
+	}
+	
+	/**
+	 * Returns whether autocomplete requests are answered from an in-memory index
+	 * @return
+	 */
+	public boolean isAutocompleteIndex() {
+		return autocompleteIndex;
+	}
+	
+	public void setAutocompleteIndex(boolean autocompleteIndex) {
+		this.autocompleteIndex = autocompleteIndex;
+	}
+	
+	/**
+	 * Returns the maximum number of items in an autocomplete index
+	 * @return
+	 */
+	public int getAutocompleteIndexMaxEntries() {
+		return autocompleteIndexMaxEntries;
+	}
+	
+	public void setAutocompleteIndexMaxEntries(int autocompleteIndexMaxEntries) {
+		this.autocompleteIndexMaxEntries = autocompleteIndexMaxEntries;
+	}
+	
+	/**
+	 * Returns the approximate maximum heap, in megabytes, used by an autocomplete index
+	 * @return
+	 */
+	public int getAutocompleteIndexMaxMemory() {
+		return autocompleteIndexMaxMemory;
+	}
+	
+	public void setAutocompleteIndexMaxMemory(int autocompleteIndexMaxMemory) {
+		this.autocompleteIndexMaxMemory = autocompleteIndexMaxMemory;
+	}
+	
+	/**
+	 * Returns how often, in seconds, autocomplete indexes are rebuilt
+	 * @return
+	 */
+	public int getAutocompleteIndexRefreshInterval() {
+		return autocompleteIndexRefreshInterval;
+	}
+	
+	public void setAutocompleteIndexRefreshInterval(int autocompleteIndexRefreshInterval) {
+		this.autocompleteIndexRefreshInterval = autocompleteIndexRefreshInterval;
+	}
+	
+	/**
+	 * Returns the maximum number of distinct values shown in a categorical filter
+	 * @return
+	 */
+	public int getFacetMaxValues() {
+		return facetMaxValues;
+	}
+	
+	public void setFacetMaxValues(int facetMaxValues) {
+		this.facetMaxValues = facetMaxValues;
+	}
+	
+	/**
+	 * Returns how long, in seconds, the values of categorical filters are cached
+	 * @return
+	 */
+	public int getFacetCacheTtl() {
+		return facetCacheTtl;
+	}
+	
+	public void setFacetCacheTtl(int facetCacheTtl) {
+		this.facetCacheTtl = facetCacheTtl;
+	}
+	
+	/**
+	 * Returns the maximum number of user actions waiting to be written to the audit log
+	 * @return
+	 */
+	public int getAuditQueueCapacity() {
+		return auditQueueCapacity;
+	}
+	
+	public void setAuditQueueCapacity(int auditQueueCapacity) {
+		this.auditQueueCapacity = auditQueueCapacity;
+	}
+	
+	/**
+	 * Returns the maximum number of user actions written to the audit log in a single batch
+	 * @return
+	 */
+	public int getAuditBatchSize() {
+		return auditBatchSize;
+	}
+	
+	public void setAuditBatchSize(int auditBatchSize) {
+		this.auditBatchSize = auditBatchSize;
+	}
+	
+	/**
+	 * Returns how long, in milliseconds, a user action can wait before being written
+	 * @return
+	 */
+	public int getAuditFlushInterval() {
+		return auditFlushInterval;
+	}
+	
+	public void setAuditFlushInterval(int auditFlushInterval) {
+		this.auditFlushInterval = auditFlushInterval;
+	}
+	
+	/**
+	 * Returns whether requests wait for space when the audit log queue is full
+	 * @return
+	 */
+	public boolean isAuditBlockWhenFull() {
+		return auditBlockWhenFull;
+	}
+	
+	public void setAuditBlockWhenFull(boolean auditBlockWhenFull) {
+		this.auditBlockWhenFull = auditBlockWhenFull;
+	}
+	
+	/**
+	 * Returns how many days user actions are kept in the audit log, 0 if forever
+	 * @return
+	 */
+	public int getAuditRetentionDays() {
+		return auditRetentionDays;
+	}
+	
+	public void setAuditRetentionDays(int auditRetentionDays) {
+		this.auditRetentionDays = auditRetentionDays;
+	}
+	
+	/**
+	 * Returns how often, in seconds, the cached user settings are checked for changes
+	 * @return
+	 */
+	public int getSettingsRefreshInterval() {
+		return settingsRefreshInterval;
+	}
+	
+	public void setSettingsRefreshInterval(int settingsRefreshInterval) {
+		this.settingsRefreshInterval = settingsRefreshInterval;
+	}
+	
+	/**
+	 * Returns the sizes, in pixels, of the thumbnails that can be generated
+	 * @return
+	 */
+	public List<Integer> getThumbnailSizes() {
+		return thumbnailSizes;
+	}
+	
+	public void setThumbnailSizes(List<Integer> thumbnailSizes) {
+		this.thumbnailSizes = thumbnailSizes;
+	}
+	
+	/**
+	 * Returns the directory where generated thumbnails are cached
+	 * @return
+	 */
+	public String getThumbnailCacheDir() {
+		return thumbnailCacheDir;
+	}
+	
+	public void setThumbnailCacheDir(String thumbnailCacheDir) {
+		this.thumbnailCacheDir = thumbnailCacheDir;
+	}
+	
+	/**
+	 * Returns the maximum size, in megabytes, of the thumbnail cache
+	 * @return
+	 */
+	public int getThumbnailCacheSize() {
+		return thumbnailCacheSize;
+	}
+	
+	public void setThumbnailCacheSize(int thumbnailCacheSize) {
+		this.thumbnailCacheSize = thumbnailCacheSize;
+	}
+	
+	/**
+	 * Returns the maximum number of thumbnails generated concurrently
+	 * @return
+	 */
+	public int getThumbnailThreads() {
+		return thumbnailThreads;
+	}
+	
+	public void setThumbnailThreads(int thumbnailThreads) {
+		this.thumbnailThreads = thumbnailThreads;
+	}
+	
+	/**
+	 * Returns whether list pages and exports select only the columns they show
+	 * @return
+	 */
+	public boolean isProjectionQueries() {
+		return projectionQueries;
+	}
+	
+	public void setProjectionQueries(boolean projectionQueries) {
+		this.projectionQueries = projectionQueries;
+	}
+	
+	/**
+	 * Returns whether schemas are mapped on first use instead of at startup
+	 * @return
+	 */
+	public boolean isLazySchemaInit() {
+		return lazySchemaInit;
+	}
+	
+	public void setLazySchemaInit(boolean lazySchemaInit) {
+		this.lazySchemaInit = lazySchemaInit;
+	}
+	
+	/**
+	 * Returns whether the search bar matches string fields by prefix
+	 * @return
+	 */
+	public boolean isPrefixSearch() {
+		return prefixSearch;
+	}
+	
+	public void setPrefixSearch(boolean prefixSearch) {
+		this.prefixSearch = prefixSearch;
+	}
+	
+	/**
+	 * Returns the number of rows inserted in each transaction when importing a file
+	 * @return
+	 */
+	public int getImportBatchSize() {
+		return importBatchSize;
+	}
+	
+	public void setImportBatchSize(int importBatchSize) {
+		this.importBatchSize = importBatchSize;
+	}
+	
+	/**
+	 * Returns the maximum number of row errors kept for each import
+	 * @return
+	 */
+	public int getImportMaxErrors() {
+		return importMaxErrors;
+	}
+	
+	public void setImportMaxErrors(int importMaxErrors) {
+		this.importMaxErrors = importMaxErrors;
+	}
+	
+	/**
+	 * Returns the JDBC URL of the internal database, null for the default H2 database
+	 * @return
+	 */
+	public String getInternalDbUrl() {
+		return internalDbUrl;
+	}
+	
+	public void setInternalDbUrl(String internalDbUrl) {
+		this.internalDbUrl = internalDbUrl;
+	}
+	
+	public String getInternalDbDriverClassName() {
+		return internalDbDriverClassName;
+	}
+	
+	public void setInternalDbDriverClassName(String internalDbDriverClassName) {
+		this.internalDbDriverClassName = internalDbDriverClassName;
+	}
+	
+	public String getInternalDbUsername() {
+		return internalDbUsername;
+	}
+	
+	public void setInternalDbUsername(String internalDbUsername) {
+		this.internalDbUsername = internalDbUsername;
+	}
+	
+	public String getInternalDbPassword() {
+		return internalDbPassword;
+	}
+	
+	public void setInternalDbPassword(String internalDbPassword) {
+		this.internalDbPassword = internalDbPassword;
+	}
+	
+	/**
+	 * Returns the schema where the internal tables are created, null for the default one
+	 * @return
+	 */
+	public String getInternalDbSchema() {
+		return internalDbSchema;
+	}
+	
+	public void setInternalDbSchema(String internalDbSchema) {
+		this.internalDbSchema = internalDbSchema;
+	}
+	
+	/**
+	 * Returns the maximum number of connections in the internal database pool
+	 * @return
+	 */
+	public int getInternalDbPoolSize() {
+		return internalDbPoolSize;
+	}
+	
+	public void setInternalDbPoolSize(int internalDbPoolSize) {
+		this.internalDbPoolSize = internalDbPoolSize;
+	}
+	
+	public String getInternalDbDdlAuto() {
+		return internalDbDdlAuto;
+	}
+	
+	public void setInternalDbDdlAuto(String internalDbDdlAuto) {
+		this.internalDbDdlAuto = internalDbDdlAuto;
+	}
+	
+	/**
+	 * Returns the maximum number of items deleted with a single statement
+	 * @return
+	 */
+	public int getDeleteChunkSize() {
+		return deleteChunkSize;
+	}
+	
+	public void setDeleteChunkSize(int deleteChunkSize) {
+		this.deleteChunkSize = deleteChunkSize;
+	}
+	
+	/**
+	 * Returns the number of rows fetched at a time from the database when exporting data
+	 * @return
+	 */
+	public int getExportFetchSize() {
+		return exportFetchSize;
+	}
+	
+	public void setExportFetchSize(int exportFetchSize) {
+		this.exportFetchSize = exportFetchSize;
+	}
+	
+	/**
+	 * Returns the timeout, in milliseconds, for streamed exports
+	 * @return
+	 */
+	public Long getExportTimeout() {
+		return exportTimeout;
+	}
+	
+	public void setExportTimeout(Long exportTimeout) {
+		this.exportTimeout = exportTimeout;
+	}
+	
+	/**
+	 * Returns the number of rows kept in memory when writing XLSX exports
+	 * @return
+	 */
+	public int getXlsxRowAccessWindow() {
+		return xlsxRowAccessWindow;
+	}
+	
+	public void setXlsxRowAccessWindow(int xlsxRowAccessWindow) {
+		this.xlsxRowAccessWindow = xlsxRowAccessWindow;
+	}
+	
+	/**
+	 * Returns whether to compress the temporary files used when writing XLSX exports
+	 * @return
+	 */
+	public boolean isXlsxCompressTempFiles() {
+		return xlsxCompressTempFiles;
+	}
+	
+	public void setXlsxCompressTempFiles(boolean xlsxCompressTempFiles) {
+		this.xlsxCompressTempFiles = xlsxCompressTempFiles;
+	}
+	
 	public boolean isTestMode() {
 		return testMode;
 	}
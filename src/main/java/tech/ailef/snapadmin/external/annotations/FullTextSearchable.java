@@ -0,0 +1,54 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a text field as covered by a full-text index on the database, so that
+ * the search bar of the list page uses the native full-text search of the
+ * database instead of a `LIKE '%query%'` on every string column.
+ * 
+ * If at least one field of an entity has this annotation, and the required
+ * indexes exist, the annotated fields are matched by whole words instead of
+ * substrings, while the other string fields are still matched with `LIKE`:
+ * <ul>
+ * <li>PostgreSQL: each field needs a GIN index on 
+ * `to_tsvector('config', column)`, where `config` is the value of {@link #config()}</li>
+ * <li>MySQL/MariaDB: a single `FULLTEXT` index on all the annotated fields</li>
+ * </ul>
+ * On other databases, or if the indexes are missing, the usual `LIKE` search is used.
+ * 
+ * The predicates are written with HQL functions prefixed with `snapadmin_`, which
+ * are registered in the persistence units with a PostgreSQL or MySQL dialect
+ * (see {@link tech.ailef.snapadmin.external.dbmapping.search.SnapAdminFunctionContributor}).
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface FullTextSearchable {
+	/**
+	 * The text search configuration used by the index (PostgreSQL only)
+	 * @return
+	 */
+	public String config() default "simple";
+}
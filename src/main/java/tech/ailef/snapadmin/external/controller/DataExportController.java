@@ -19,30 +19,26 @@
 
 package tech.ailef.snapadmin.external.controller;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.Font;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -50,23 +46,27 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.servlet.http.HttpServletResponse;
 import tech.ailef.snapadmin.external.SnapAdmin;
+import tech.ailef.snapadmin.external.SnapAdminProperties;
 import tech.ailef.snapadmin.external.dbmapping.DbFieldValue;
 import tech.ailef.snapadmin.external.dbmapping.DbObject;
 import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
 import tech.ailef.snapadmin.external.dbmapping.SnapAdminRepository;
 import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
-import tech.ailef.snapadmin.external.dbmapping.query.DbQueryResult;
 import tech.ailef.snapadmin.external.dbmapping.query.DbQueryResultRow;
 import tech.ailef.snapadmin.external.dto.DataExportFormat;
 import tech.ailef.snapadmin.external.dto.QueryFilter;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminNotFoundException;
 import tech.ailef.snapadmin.external.misc.Utils;
+import tech.ailef.snapadmin.external.misc.XlsxStreamWriter;
 import tech.ailef.snapadmin.internal.model.ConsoleQuery;
 import tech.ailef.snapadmin.internal.repository.ConsoleQueryRepository;
 
@@ -86,10 +86,14 @@ public class DataExportController {
 	
 	@Autowired
 	private ObjectMapper mapper;
+	
+	@Autowired
+	private SnapAdminProperties properties;
 
 	@GetMapping("/console/export/{queryId}")
-	public ResponseEntity<byte[]> export(@PathVariable String queryId, @RequestParam String format, 
-			@RequestParam MultiValueMap<String, String> otherParams) {
+	@ResponseBody
+	public WebAsyncTask<Void> export(@PathVariable String queryId, @RequestParam String format, 
+			@RequestParam MultiValueMap<String, String> otherParams, HttpServletResponse response) {
 		ConsoleQuery query = queryRepository.findById(queryId).orElseThrow(() -> new SnapAdminNotFoundException("Query not found: " + queryId));
 		
 		DataExportFormat exportFormat = null;
@@ -100,25 +104,19 @@ public class DataExportController {
 		}
 		
 		List<String> fieldsToInclude = otherParams.getOrDefault("fields[]", new ArrayList<>());
-		DbQueryResult results = repository.executeQuery(query.getSql());
+		String sql = query.getSql();
 		
 		switch (exportFormat) {
 		case CSV:
-			return ResponseEntity.ok()
-					.header(HttpHeaders.CONTENT_DISPOSITION,
-							"attachment; filename=\"export_" + query.getTitle().replaceAll("[^a-zA-Z0-9.-]", "_") + ".csv\"")
-					.body(toCsvQuery(results, fieldsToInclude).getBytes());
+			return stream(response, "export_" + query.getTitle().replaceAll("[^a-zA-Z0-9.-]", "_") + ".csv", 
+					toCsvQuery(sql, fieldsToInclude));
 		case XLSX:
 			String sheetName = query.getTitle();
-			return ResponseEntity.ok()
-					.header(HttpHeaders.CONTENT_DISPOSITION,
-					"attachment; filename=\"export_" + query.getTitle().replaceAll("[^a-zA-Z0-9.-]", "_") + ".xlsx\"")
-					.body(toXlsxQuery(sheetName, results, fieldsToInclude));
+			return stream(response, "export_" + query.getTitle().replaceAll("[^a-zA-Z0-9.-]", "_") + ".xlsx", 
+					toXlsxQuery(sheetName, sql, fieldsToInclude));
 		case JSONL:
-			return ResponseEntity.ok()
-					.header(HttpHeaders.CONTENT_DISPOSITION,
-							"attachment; filename=\"export_" + query.getTitle().replaceAll("[^a-zA-Z0-9.-]", "_") + ".jsonl\"")
-					.body(toJsonlQuery(results, fieldsToInclude).getBytes());
+			return stream(response, "export_" + query.getTitle().replaceAll("[^a-zA-Z0-9.-]", "_") + ".jsonl", 
+					toJsonlQuery(sql, fieldsToInclude));
 		default:
 			throw new SnapAdminException("Invalid DataExportFormat");
 		}
@@ -126,9 +124,9 @@ public class DataExportController {
 	
 	@GetMapping("/export/{className}")
 	@ResponseBody
-	public ResponseEntity<byte[]> export(@PathVariable String className, @RequestParam(required = false) String query,
+	public WebAsyncTask<Void> export(@PathVariable String className, @RequestParam(required = false) String query,
 			@RequestParam String format, @RequestParam(required=false) Boolean raw, 
-			@RequestParam MultiValueMap<String, String> otherParams) {
+			@RequestParam MultiValueMap<String, String> otherParams, HttpServletResponse response) {
 		if (raw == null) raw = false;
 		
 		DbObjectSchema schema = snapAdmin.findSchemaByClassName(className);
@@ -147,25 +145,18 @@ public class DataExportController {
 		}
 
 		Set<QueryFilter> queryFilters = Utils.computeFilters(schema, otherParams);
-		List<DbObject> results = repository.search(schema, query, queryFilters);
 
 		switch (exportFormat) {
 		case CSV:
-			return ResponseEntity.ok()
-					.header(HttpHeaders.CONTENT_DISPOSITION,
-							"attachment; filename=\"export_" + schema.getJavaClass().getSimpleName() + ".csv\"")
-					.body(toCsv(results, fieldsToInclude, raw).getBytes());
+			return stream(response, "export_" + schema.getJavaClass().getSimpleName() + ".csv", 
+					toCsv(schema, query, queryFilters, fieldsToInclude, raw));
 		case XLSX:
 			String sheetName = schema.getJavaClass().getSimpleName();
-			return ResponseEntity.ok()
-					.header(HttpHeaders.CONTENT_DISPOSITION,
-					"attachment; filename=\"export_" + schema.getJavaClass().getSimpleName() + ".xlsx\"")
-					.body(toXlsx(sheetName, results, fieldsToInclude, raw));
+			return stream(response, "export_" + schema.getJavaClass().getSimpleName() + ".xlsx", 
+					toXlsx(sheetName, schema, query, queryFilters, fieldsToInclude, raw));
 		case JSONL:
-			return ResponseEntity.ok()
-					.header(HttpHeaders.CONTENT_DISPOSITION,
-							"attachment; filename=\"export_" + schema.getJavaClass().getSimpleName() + ".jsonl\"")
-					.body(toJsonl(results, fieldsToInclude, raw).getBytes());
+			return stream(response, "export_" + schema.getJavaClass().getSimpleName() + ".jsonl", 
+					toJsonl(schema, query, queryFilters, fieldsToInclude, raw));
 		
 		default:
 			throw new SnapAdminException("Invalid DataExportFormat");
@@ -173,186 +164,175 @@ public class DataExportController {
 
 	}
 
-	private byte[] toXlsx(String sheetName, List<DbObject> items, List<String> fields, boolean raw) {
-		Workbook workbook = new XSSFWorkbook();
-
-		Sheet sheet = workbook.createSheet(sheetName);
-
-		CellStyle headerStyle = workbook.createCellStyle();
-		Font headerFont = workbook.createFont();
-		headerFont.setBold(true);
-		headerStyle.setFont(headerFont);
+	/**
+	 * Returns an asynchronous task that writes the body to the response as an attachment.
+	 * The task has its own timeout ({@code snapadmin.exportTimeout}), so that long exports
+	 * don't change the timeout of the other asynchronous requests of the application.
+	 * @param response	the response
+	 * @param filename	the name of the attachment
+	 * @param body	writes the content of the export
+	 * @return
+	 */
+	private WebAsyncTask<Void> stream(HttpServletResponse response, String filename, StreamingResponseBody body) {
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
 		
-		int rowIndex = 0;
-		Row headerRow = sheet.createRow(rowIndex++);
-		for (int i = 0; i < fields.size(); i++) {
-			Cell headerCell = headerRow.createCell(i);
-			headerCell.setCellValue(fields.get(i));
-			headerCell.setCellStyle(headerStyle);
-		}
+		Callable<Void> task = () -> {
+			body.writeTo(response.getOutputStream());
+			response.flushBuffer();
+			return null;
+		};
 		
-		for (DbObject item : items) {
-			Row row = sheet.createRow(rowIndex++);
-			int cellIndex = 0;
-			
-			List<String> record = getRecord(item, fields, raw);
-			
-			for (String value : record) {
-				Cell cell = row.createCell(cellIndex++);
-				cell.setCellValue(value);
-			}
-		}
+		Long timeout = properties.getExportTimeout();
+		return timeout == null ? new WebAsyncTask<>(task) : new WebAsyncTask<>(timeout, task);
+	}
 
-		ByteArrayOutputStream fos = new ByteArrayOutputStream();
-		try {
-			workbook.write(fos);
-			fos.close();
-			workbook.close();
-		} catch (IOException e) {
-			throw new SnapAdminException("Error during serialization for XLSX workbook", e);
-		}
-		
-		
-		return fos.toByteArray();
+	/**
+	 * Returns a response body that streams the objects matching the search in XLSX format.
+	 * The workbook is built with a bounded window of rows in memory (see {@link XlsxStreamWriter})
+	 * and written directly to the response once all the rows have been read.
+	 */
+	private StreamingResponseBody toXlsx(String sheetName, DbObjectSchema schema, String query, Set<QueryFilter> filters,
+			List<String> fields, boolean raw) {
+		return out -> {
+			try (XlsxStreamWriter writer = new XlsxStreamWriter(sheetName, fields, 
+					properties.getXlsxRowAccessWindow(), properties.isXlsxCompressTempFiles())) {
+				repository.forEach(schema, query, filters, fields, item -> {
+					writer.writeRow(getRecord(item, fields, raw));
+				});
+				
+				writer.write(out);
+			}
+		};
 	}
 	
-	private byte[] toXlsxQuery(String sheetName, DbQueryResult result, List<String> fields) {
-		Workbook workbook = new XSSFWorkbook();
-
-		Sheet sheet = workbook.createSheet(sheetName);
-
-		CellStyle headerStyle = workbook.createCellStyle();
-		Font headerFont = workbook.createFont();
-		headerFont.setBold(true);
-		headerStyle.setFont(headerFont);
-		
-		int rowIndex = 0;
-		Row headerRow = sheet.createRow(rowIndex++);
-		for (int i = 0; i < fields.size(); i++) {
-			Cell headerCell = headerRow.createCell(i);
-			headerCell.setCellValue(fields.get(i));
-			headerCell.setCellStyle(headerStyle);
-		}
-		
-		for (DbQueryResultRow item : result.getRows()) {
-			Row row = sheet.createRow(rowIndex++);
-			int cellIndex = 0;
-			
-			List<String> record = getRecord(item, fields);
-			
-			for (String value : record) {
-				Cell cell = row.createCell(cellIndex++);
-				cell.setCellValue(value);
+	private StreamingResponseBody toXlsxQuery(String sheetName, String sql, List<String> fields) {
+		return out -> {
+			try (XlsxStreamWriter writer = new XlsxStreamWriter(sheetName, fields, 
+					properties.getXlsxRowAccessWindow(), properties.isXlsxCompressTempFiles())) {
+				repository.forEachRow(sql, item -> {
+					writer.writeRow(getRecord(item, fields));
+				});
+				
+				writer.write(out);
 			}
-		}
-
-		ByteArrayOutputStream fos = new ByteArrayOutputStream();
-		try {
-			workbook.write(fos);
-			fos.close();
-			workbook.close();
-		} catch (IOException e) {
-			throw new SnapAdminException("Error during serialization for XLSX workbook", e);
-		}
-		
-		
-		return fos.toByteArray();
+		};
 	}
 
 	/**
-	 * Converts a list of DbObjects to a string containing their JSONL representation.
-	 * One item per line in JSON format.
-	 * @param items	the items to be serialized
+	 * Returns a response body that streams the objects matching the search in JSONL format,
+	 * one item per line in JSON format. Objects are read from the database with a cursor
+	 * and written as they are read, so the full result set is never held in memory.
+	 * @param schema	the schema to export
+	 * @param query	the fuzzy search query
+	 * @param filters	the filters to apply
 	 * @param fields	the fields to take from each item
 	 * @param raw	whether to use raw values or not
-	 * @return	a string containing the items serialized in JSONL format
+	 * @return	a response body writing the items serialized in JSONL format
 	 */
-	private String toJsonl(List<DbObject> items, List<String> fields, boolean raw) {
-		if (items.isEmpty())
-			return "";
-
-		StringBuilder sb = new StringBuilder();
-		
-		for (DbObject item : items) {
-			Map<String, Object> map = item.toMap(fields, raw);
+	private StreamingResponseBody toJsonl(DbObjectSchema schema, String query, Set<QueryFilter> filters,
+			List<String> fields, boolean raw) {
+		return out -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			
 			try {
-				String json = mapper.writeValueAsString(map);
-				sb.append(json);
-			} catch (JsonProcessingException e) {
-				throw new SnapAdminException(e);
+				repository.forEach(schema, query, filters, fields, item -> {
+					Map<String, Object> map = item.toMap(fields, raw);
+					try {
+						writer.write(mapper.writeValueAsString(map));
+						writer.write("\n");
+					} catch (JsonProcessingException e) {
+						throw new SnapAdminException(e);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
 			}
 			
-			sb.append("\n");
-		}
-
-		return sb.toString();
+			writer.flush();
+		};
 	}
 	
-	private String toJsonlQuery(DbQueryResult result, List<String> fields) {
-		if (result.isEmpty())
-			return "";
-
-		StringBuilder sb = new StringBuilder();
-		
-		for (DbQueryResultRow item : result.getRows()) {
-			Map<String, Object> map = item.toMap(fields);
+	private StreamingResponseBody toJsonlQuery(String sql, List<String> fields) {
+		return out -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			
 			try {
-				String json = mapper.writeValueAsString(map);
-				sb.append(json);
-			} catch (JsonProcessingException e) {
-				throw new SnapAdminException(e);
+				repository.forEachRow(sql, item -> {
+					Map<String, Object> map = item.toMap(fields);
+					try {
+						writer.write(mapper.writeValueAsString(map));
+						writer.write("\n");
+					} catch (JsonProcessingException e) {
+						throw new SnapAdminException(e);
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
 			}
 			
-			sb.append("\n");
-		}
-
-		return sb.toString();
-	
+			writer.flush();
+		};
 	}
 	
-	private String toCsv(List<DbObject> items, List<String> fields, boolean raw) {
-		if (items.isEmpty())
-			return "";
-
-		StringWriter sw = new StringWriter();
-
-		CSVFormat csvFormat = 
-			CSVFormat.DEFAULT.builder()
-					 .setHeader(fields.toArray(String[]::new))
-					 .build();
-
-		try (final CSVPrinter printer = new CSVPrinter(sw, csvFormat)) {
-			for (DbObject item : items) {
-				printer.printRecord(getRecord(item, fields, raw));
+	/**
+	 * Returns a response body that streams the objects matching the search in CSV format.
+	 * See {@link #toJsonl(DbObjectSchema, String, Set, List, boolean)}.
+	 */
+	private StreamingResponseBody toCsv(DbObjectSchema schema, String query, Set<QueryFilter> filters,
+			List<String> fields, boolean raw) {
+		return out -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			
+			CSVFormat csvFormat = 
+				CSVFormat.DEFAULT.builder()
+						 .setHeader(fields.toArray(String[]::new))
+						 .build();
+			
+			CSVPrinter printer = new CSVPrinter(writer, csvFormat);
+			try {
+				repository.forEach(schema, query, filters, fields, item -> {
+					try {
+						printer.printRecord(getRecord(item, fields, raw));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
 			}
-
-			return sw.toString();
-		} catch (IOException e) {
-			throw new SnapAdminException("Error during creation of CSV file", e);
-		}
+			
+			printer.flush();
+		};
 	}
 	
-	private String toCsvQuery(DbQueryResult result, List<String> fields) {
-		if (result.isEmpty())
-			return "";
-
-		StringWriter sw = new StringWriter();
-
-		CSVFormat csvFormat = 
-			CSVFormat.DEFAULT.builder()
-					 .setHeader(fields.toArray(String[]::new))
-					 .build();
-
-		try (final CSVPrinter printer = new CSVPrinter(sw, csvFormat)) {
-			for (DbQueryResultRow item : result.getRows()) {
-				printer.printRecord(getRecord(item, fields));
+	private StreamingResponseBody toCsvQuery(String sql, List<String> fields) {
+		return out -> {
+			Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+			
+			CSVFormat csvFormat = 
+				CSVFormat.DEFAULT.builder()
+						 .setHeader(fields.toArray(String[]::new))
+						 .build();
+			
+			CSVPrinter printer = new CSVPrinter(writer, csvFormat);
+			try {
+				repository.forEachRow(sql, item -> {
+					try {
+						printer.printRecord(getRecord(item, fields));
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
 			}
-
-			return sw.toString();
-		} catch (IOException e) {
-			throw new SnapAdminException("Error during creation of CSV file", e);
-		}
-	
+			
+			printer.flush();
+		};
 	}
 	
 	private List<String> getRecord(DbQueryResultRow row, List<String> fields) {
@@ -0,0 +1,133 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.controller;
+
+import java.security.Principal;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import tech.ailef.snapadmin.external.SnapAdmin;
+import tech.ailef.snapadmin.external.SnapAdminProperties;
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dbmapping.bulk.BulkImporter;
+import tech.ailef.snapadmin.external.dbmapping.bulk.ImportJob;
+import tech.ailef.snapadmin.external.dto.DataExportFormat;
+import tech.ailef.snapadmin.internal.model.UserAction;
+import tech.ailef.snapadmin.internal.service.UserActionService;
+
+/**
+ * Controller for the bulk import of files, in the same formats
+ * supported by the export (see {@link DataExportFormat})
+ */
+@Controller
+@RequestMapping(value = { "/${snapadmin.baseUrl}/", "/${snapadmin.baseUrl}" })
+public class DataImportController {
+	@Autowired
+	private SnapAdmin snapAdmin;
+	
+	@Autowired
+	private SnapAdminProperties properties;
+	
+	@Autowired
+	private BulkImporter importer;
+	
+	@Autowired
+	private UserActionService userActionService;
+	
+	/**
+	 * Starts importing the uploaded file and redirects to the progress page
+	 * @param className	the class to import the rows into
+	 * @param file	the uploaded file
+	 * @param format	the format of the file, detected from its extension if missing
+	 * @param dryRun	whether to check the rows without saving them
+	 * @return
+	 */
+	@PostMapping("/model/{className}/import")
+	public String upload(@PathVariable String className, @RequestParam MultipartFile file,
+			@RequestParam(required = false) String format, @RequestParam(required = false) Boolean dryRun,
+			RedirectAttributes attr, Principal principal) {
+		if (dryRun == null) dryRun = false;
+		String authUser = principal != null ? principal.getName() : null;
+		
+		DbObjectSchema schema = snapAdmin.findSchemaByClassName(className);
+		
+		if (!schema.isCreateEnabled()) {
+			attr.addFlashAttribute("errorTitle", "Unauthorized");
+			attr.addFlashAttribute("error", "CREATE operations have been disabled on this type (" + schema.getJavaClass().getSimpleName() + ").");
+			return "redirect:/" + properties.getBaseUrl() + "/model/" + className;
+		}
+		
+		if (format == null || format.isBlank())
+			format = StringUtils.getFilenameExtension(file.getOriginalFilename());
+		
+		DataExportFormat importFormat = null;
+		try {
+			importFormat = DataExportFormat.valueOf(String.valueOf(format).toUpperCase());
+		} catch (IllegalArgumentException e) {
+			attr.addFlashAttribute("errorTitle", "Import error");
+			attr.addFlashAttribute("error", "Unsupported import format: " + format);
+			return "redirect:/" + properties.getBaseUrl() + "/model/" + className;
+		}
+		
+		if (file.isEmpty()) {
+			attr.addFlashAttribute("errorTitle", "Import error");
+			attr.addFlashAttribute("error", "The uploaded file is empty.");
+			return "redirect:/" + properties.getBaseUrl() + "/model/" + className;
+		}
+		
+		ImportJob job = importer.submit(schema, importFormat, file, dryRun, j -> {
+			if (!j.isDryRun() && j.getImported() > 0) {
+				userActionService.save(new UserAction(schema.getTableName(), j.getImported() + " rows", "IMPORT", 
+						schema.getClassName(), authUser));
+			}
+		});
+		
+		return "redirect:/" + properties.getBaseUrl() + "/model/" + className + "/import/" + job.getId();
+	}
+	
+	/**
+	 * Shows the progress of an import
+	 * @param model
+	 * @param className
+	 * @param jobId
+	 * @return
+	 */
+	@GetMapping("/model/{className}/import/{jobId}")
+	public String progress(Model model, @PathVariable String className, @PathVariable String jobId) {
+		DbObjectSchema schema = snapAdmin.findSchemaByClassName(className);
+		
+		model.addAttribute("title", "Entities | " + schema.getJavaClass().getSimpleName() + " | Import");
+		model.addAttribute("job", importer.getJob(jobId));
+		model.addAttribute("activePage", "entities");
+		model.addAttribute("schema", schema);
+		
+		return "model/import";
+	}
+}
@@ -19,38 +19,79 @@
 
 package tech.ailef.snapadmin.external.controller;
 
-import java.util.Optional;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 
 import org.apache.tika.Tika;
 import org.apache.tika.mime.MimeTypeException;
 import org.apache.tika.mime.MimeTypes;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import tech.ailef.snapadmin.external.SnapAdmin;
-import tech.ailef.snapadmin.external.dbmapping.DbFieldValue;
-import tech.ailef.snapadmin.external.dbmapping.DbObject;
+import tech.ailef.snapadmin.external.SnapAdminProperties;
 import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
-import tech.ailef.snapadmin.external.dbmapping.SnapAdminRepository;
-import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+import tech.ailef.snapadmin.external.dbmapping.blob.BinaryContent;
+import tech.ailef.snapadmin.external.dbmapping.blob.BinaryContentReader;
+import tech.ailef.snapadmin.external.dbmapping.blob.ThumbnailCache;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
 
 /**
- * Controller to serve file or images (`@DisplayImage`) 
+ * Controller to serve file or images (`@DisplayImage`).
+ * 
+ * Only the requested column is read from the database, and it is streamed
+ * to the client instead of being loaded in memory. Responses support `Range` 
+ * requests, e.g. to resume a download. Images are shown in the interface 
+ * through cached thumbnails (see {@link ThumbnailCache}).
+ * 
+ * Files and images of items with a `@Version` field carry an `ETag` derived from
+ * it, so browsers can revalidate them with a `304 Not Modified`. Other items have
+ * no validator that can be computed without reading the whole content, so they
+ * are served without `ETag` and downloaded again each time. Thumbnails always
+ * carry an `ETag`.
  */
 @Controller
 @RequestMapping(value = {"/${snapadmin.baseUrl}/download", "/${snapadmin.baseUrl}/download/"})
 public class FileDownloadController {
+	/**
+	 * The number of bytes used to detect the type of file
+	 */
+	private static final int SAMPLE_SIZE = 8192;
+	
+	/**
+	 * Detector for the file types, Tika is thread-safe so it's shared between requests 
+	 */
+	private static final Tika TIKA = new Tika();
+	
 	@Autowired
-	private SnapAdminRepository repository;
+	private BinaryContentReader contentReader;
+	
+	@Autowired
+	private ThumbnailCache thumbnails;
+	
+	@Autowired
+	private SnapAdminProperties properties;
 	
 	@Autowired
 	private SnapAdmin snapAdmin;
@@ -61,27 +102,111 @@ public class FileDownloadController {
 	 * @param className
 	 * @param fieldName
 	 * @param id
-	 * @return
+	 * @param request
+	 * @param response
 	 */
-	@GetMapping(value="/{className}/{fieldName}/{id}/image", produces = MediaType.IMAGE_JPEG_VALUE)
-	@ResponseBody
-	public ResponseEntity<byte[]> serveImage(@PathVariable String className, 
-			@PathVariable String fieldName, @PathVariable String id) {
-
+	@GetMapping("/{className}/{fieldName}/{id}/image")
+	public void serveImage(@PathVariable String className, 
+			@PathVariable String fieldName, @PathVariable String id,
+			HttpServletRequest request, HttpServletResponse response) {
+		serve(className, fieldName, id, false, request, response);
+	}
+	
+	/**
+	 * Serve a thumbnail of a binary field containing an image. Thumbnails are served
+	 * from the cache if present, otherwise generated and cached. If the field doesn't
+	 * contain an image format that can be decoded, this redirects to the original image.
+	 * @param className
+	 * @param fieldName
+	 * @param id
+	 * @param size	the size of the thumbnail, one of `snapadmin.thumbnailSizes` (default the first one)
+	 * @param request
+	 * @param response
+	 */
+	@GetMapping("/{className}/{fieldName}/{id}/thumbnail")
+	public void serveThumbnail(@PathVariable String className, 
+			@PathVariable String fieldName, @PathVariable String id,
+			@RequestParam(required = false) Integer size,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		List<Integer> sizes = properties.getThumbnailSizes();
+		if (size == null)
+			size = sizes.get(0);
+		if (!sizes.contains(size))
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported thumbnail size " + size);
+		
 		DbObjectSchema schema = snapAdmin.findSchemaByClassName(className);
+		DbField field = findBinaryField(schema, fieldName);
+		Object primaryKey = parsePrimaryKey(schema, id);
 		
-		Optional<DbObject> object = repository.findById(schema, id);
+		int thumbnailSize = size;
+		String item = ThumbnailCache.itemKey(schema.getClassName(), primaryKey, fieldName);
+		String[] original = new String[1];
+		Path[] thumbnail = new Path[1];
+		Path[] staged = new Path[1];
 		
-		if (object.isPresent()) {
-			DbObject dbObject = object.get();
-			DbFieldValue dbFieldValue = dbObject.get(fieldName);
-			byte[] file = (byte[])dbFieldValue.getValue();
-			return ResponseEntity.ok(file);
-		} else {
+		// The original is only copied out of the database if its fingerprint is not known without
+		// reading it, or if the thumbnail is not cached and the original was not already found 
+		// to be in an unreadable format
+		boolean found = contentReader.read(schema, field, primaryKey, content -> {
+			String fingerprint = thumbnails.findFingerprint(item, content);
+			if (fingerprint != null) {
+				original[0] = item + "/" + fingerprint;
+				if (thumbnails.isUndecodable(original[0]))
+					return;
+				
+				thumbnail[0] = thumbnails.find(original[0] + "/" + thumbnailSize);
+				if (thumbnail[0] != null)
+					return;
+			}
+			
+			staged[0] = thumbnails.stage(content);
+			original[0] = item + "/" + content.getFingerprint();
+			thumbnails.rememberFingerprint(item, content);
+		});
+		
+		if (!found)
 			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Object with id " + id + " not found");
+		if (original[0] == null)
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "There's no file attached to this item");
+		
+		if (staged[0] != null) {
+			// If the fingerprint was only computed while staging, the thumbnail may already be cached
+			if (thumbnail[0] == null)
+				thumbnail[0] = thumbnails.find(original[0] + "/" + thumbnailSize);
+			
+			if (thumbnail[0] != null || thumbnails.isUndecodable(original[0])) {
+				thumbnails.discard(staged[0]);
+			} else {
+				thumbnail[0] = thumbnails.generate(original[0] + "/" + thumbnailSize, staged[0], thumbnailSize);
+				if (thumbnail[0] == null)
+					thumbnails.markUndecodable(original[0]);
+			}
 		}
 		
-
+		if (thumbnail[0] == null) {
+			response.sendRedirect(request.getContextPath() + "/" + properties.getBaseUrl() + "/download/" 
+				+ className + "/" + fieldName + "/" + id + "/image");
+			return;
+		}
+		
+		String etag = "W/\"" + thumbnail[0].getFileName() + "\"";
+		response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+		if (new ServletWebRequest(request, response).checkNotModified(etag))
+			return;
+		
+		try (FileChannel channel = FileChannel.open(thumbnail[0], StandardOpenOption.READ)) {
+			long length = channel.size();
+			response.setContentType(thumbnail[0].toString().endsWith(".png") ? MediaType.IMAGE_PNG_VALUE : MediaType.IMAGE_JPEG_VALUE);
+			response.setContentLengthLong(length);
+			
+			WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+			long position = 0;
+			while (position < length)
+				position += channel.transferTo(position, length - position, out);
+		} catch (NoSuchFileException e) {
+			// Evicted from the cache while serving it, the next request will generate it again
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Thumbnail not available");
+		}
 	}
 	
 	/**
@@ -92,49 +217,119 @@ public class FileDownloadController {
 	 * @param className
 	 * @param fieldName
 	 * @param id
-	 * @return
+	 * @param request
+	 * @param response
 	 */
 	@GetMapping("/{className}/{fieldName}/{id}")
-	@ResponseBody
-	public ResponseEntity<byte[]> serveFile(@PathVariable String className, 
-			@PathVariable String fieldName, @PathVariable String id) {
-
+	public void serveFile(@PathVariable String className, 
+			@PathVariable String fieldName, @PathVariable String id,
+			HttpServletRequest request, HttpServletResponse response) {
+		serve(className, fieldName, id, true, request, response);
+	}
+	
+	private void serve(String className, String fieldName, String id, boolean attachment,
+			HttpServletRequest request, HttpServletResponse response) {
 		DbObjectSchema schema = snapAdmin.findSchemaByClassName(className);
+		DbField field = findBinaryField(schema, fieldName);
+		Object primaryKey = parsePrimaryKey(schema, id);
 		
-		Optional<DbObject> object = repository.findById(schema, id);
+		boolean[] hasContent = new boolean[1];
+		boolean found = contentReader.read(schema, field, primaryKey, content -> {
+			hasContent[0] = true;
+			write(content, schema.getClassName() + "_" + id + "_" + fieldName, attachment, request, response);
+		});
 		
-		if (object.isPresent()) {
-			DbObject dbObject = object.get();
-			
-			DbFieldValue dbFieldValue;
-			try {
-				dbFieldValue = dbObject.get(fieldName);
-			} catch (SnapAdminException e) {
-				throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Field not found", e);
-			}
-			
-			if (dbFieldValue.getValue() == null) {
-				throw new ResponseStatusException(HttpStatus.NOT_FOUND, "There's no file attached to this item");
-			}
-			
-			byte[] file = (byte[])dbFieldValue.getValue();
-			
-			String filename = schema.getClassName() + "_" + id + "_" + fieldName;
+		if (!found)
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Object with id " + id + " not found");
+		if (!hasContent[0])
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "There's no file attached to this item");
+	}
+	
+	/**
+	 * Writes the content to the response, honoring the conditional (`If-None-Match`)
+	 * and `Range` headers of the request
+	 */
+	private void write(BinaryContent content, String filename, boolean attachment, 
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		long length = content.getLength();
+		byte[] head = content.read(0, SAMPLE_SIZE);
+		
+		// A strong validator, since the fingerprint changes with any change of the content. It's
+		// only available without reading the whole content for items with a `@Version` field, 
+		// so other items are served without ETag and never revalidated with a 304
+		String etag = content.isVersioned() ? "\"" + content.getFingerprint() + "\"" : null;
+		response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+		if (etag != null && new ServletWebRequest(request, response).checkNotModified(etag))
+			return;
+		
+		String contentType = TIKA.detect(head);
+		response.setContentType(contentType);
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+		
+		if (attachment) {
 			try {
-				Tika tika = new Tika();
-				String detect = tika.detect(file);
-				String ext = MimeTypes.getDefaultMimeTypes().forName(detect).getExtension();
-				filename = filename + ext;
+				filename = filename + MimeTypes.getDefaultMimeTypes().forName(contentType).getExtension();
 			} catch (MimeTypeException e) {
 				// Unable to determine extension, leave as is
 			}
+			response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+		}
+		
+		long start = 0;
+		long end = length - 1;
+		
+		// If-Range requires a strong comparison (RFC 9110, 13.1.5): weak validators and
+		// dates (we don't send Last-Modified) never match, so the whole content is sent.
+		// The same happens if we don't have a validator for the content.
+		String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		boolean ifRangeMatches = ifRange == null || (etag != null && !ifRange.startsWith("W/") && ifRange.equals(etag));
+		if (rangeHeader != null && length > 0 && ifRangeMatches) {
+			List<HttpRange> ranges;
+			try {
+				ranges = HttpRange.parseRanges(rangeHeader);
+				if (ranges.size() == 1) {
+					start = ranges.get(0).getRangeStart(length);
+					end = ranges.get(0).getRangeEnd(length);
+					if (start >= length || start > end)
+						throw new IllegalArgumentException("Range not satisfiable: " + rangeHeader);
+				}
+			} catch (IllegalArgumentException e) {
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+				response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+				return;
+			}
 			
-			return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION,
-					"attachment; filename=\"" + filename + "\"").body(file);
-		} else {
-			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Object with id " + id + " not found");
+			// Multiple ranges are not supported, in that case the whole content is sent
+			if (ranges.size() == 1) {
+				response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+			}
 		}
 		
-
+		long size = end - start + 1;
+		response.setContentLengthLong(size);
+		
+		if (request.getMethod().equals("HEAD") || size <= 0)
+			return;
+		
+		try (InputStream in = content.stream(start, size)) {
+			StreamUtils.copy(in, response.getOutputStream());
+		}
+	}
+	
+	private DbField findBinaryField(DbObjectSchema schema, String fieldName) {
+		DbField field = schema.getFieldByJavaName(fieldName);
+		if (field == null || !field.isBinary())
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Field not found");
+		return field;
+	}
+	
+	private Object parsePrimaryKey(DbObjectSchema schema, String id) {
+		try {
+			return schema.getPrimaryKey().getType().parseValue(id);
+		} catch (Exception e) {
+			throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Object with id " + id + " not found");
+		}
 	}
 }
@@ -27,6 +27,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Random;
 import java.util.Set;
@@ -63,16 +64,19 @@ import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
 import tech.ailef.snapadmin.external.dbmapping.SnapAdminRepository;
 import tech.ailef.snapadmin.external.dbmapping.query.DbQueryResult;
 import tech.ailef.snapadmin.external.dto.CompareOperator;
+import tech.ailef.snapadmin.external.dto.DeleteResult;
 import tech.ailef.snapadmin.external.dto.FacetedSearchRequest;
 import tech.ailef.snapadmin.external.dto.LogsSearchRequest;
 import tech.ailef.snapadmin.external.dto.PaginatedResult;
 import tech.ailef.snapadmin.external.dto.PaginationInfo;
 import tech.ailef.snapadmin.external.dto.QueryFilter;
+import tech.ailef.snapadmin.external.dto.RowCount;
 import tech.ailef.snapadmin.external.dto.ValidationErrorsContainer;
 import tech.ailef.snapadmin.external.exceptions.InvalidPageException;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminNotFoundException;
 import tech.ailef.snapadmin.external.misc.Utils;
+import tech.ailef.snapadmin.internal.UserConfiguration;
 import tech.ailef.snapadmin.internal.model.ConsoleQuery;
 import tech.ailef.snapadmin.internal.model.UserAction;
 import tech.ailef.snapadmin.internal.model.UserSetting;
@@ -125,8 +129,7 @@ public class SnapAdminController {
 		Map<String, List<DbObjectSchema>> groupedBy = 
 			schemas.stream().collect(Collectors.groupingBy(s -> s.getBasePackage()));
 		
-		Map<String, Long> counts = 
-			schemas.stream().collect(Collectors.toMap(s -> s.getClassName(), s -> repository.count(s)));
+		Map<String, RowCount> counts = repository.countRows(schemas);
 		
 		model.addAttribute("schemas", groupedBy);
 		model.addAttribute("query", query);
@@ -159,7 +162,8 @@ public class SnapAdminController {
 	public String list(Model model, @PathVariable String className,
 			@RequestParam(required=false) Integer page, @RequestParam(required=false) String query,
 			@RequestParam(required=false) Integer pageSize, @RequestParam(required=false) String sortKey, 
-			@RequestParam(required=false) String sortOrder, @RequestParam MultiValueMap<String, String> otherParams,
+			@RequestParam(required=false) String sortOrder, @RequestParam(required=false) String cursor,
+			@RequestParam(required=false) String direction, @RequestParam MultiValueMap<String, String> otherParams,
 			HttpServletRequest request,
 			HttpServletResponse response) {
 		
@@ -208,7 +212,10 @@ public class SnapAdminController {
 		
 		try {
 			PaginatedResult<DbObject> result = null;
-			if (query != null || !otherParams.isEmpty()) {
+			if (properties.isKeysetPagination() && repository.supportsKeyset(schema, sortKey)) {
+				result = repository.seek(schema, query, page, pageSize, sortKey, sortOrder, queryFilters,
+						cursor, Objects.equals(direction, "prev"));
+			} else if (query != null || !otherParams.isEmpty()) {
 				result = repository.search(schema, query, page, pageSize, sortKey, sortOrder, queryFilters);
 			} else {
 				result = repository.findAll(schema, page, pageSize, sortKey, sortOrder);
@@ -222,6 +229,7 @@ public class SnapAdminController {
 			model.addAttribute("query", query);
 			model.addAttribute("sortOrder", sortOrder);
 			model.addAttribute("activeFilters", queryFilters);
+			model.addAttribute("facets", repository.facets(schema, query, queryFilters));
 			return "model/list";
 			
 		} catch (InvalidPageException e) {
@@ -383,20 +391,14 @@ public class SnapAdminController {
 			return "redirect:/" + properties.getBaseUrl() + "/model/" + className;
 		}
 		
-		int countDeleted = 0;
-		for (String id : ids) {
-			try {
-				repository.delete(schema, id);
-				countDeleted += 1;
-			} catch (DataIntegrityViolationException e) {
-				attr.addFlashAttribute("error", e.getMessage());
-			}
-		}
+		DeleteResult result = repository.deleteAll(schema, ids);
+		if (!result.getErrors().isEmpty())
+			attr.addFlashAttribute("error", result.getErrors().values().iterator().next());
 		
-		if (countDeleted > 0)
-			attr.addFlashAttribute("message", "Deleted " + countDeleted + " of " + ids.length + " items");
+		if (result.getDeletedCount() > 0)
+			attr.addFlashAttribute("message", "Deleted " + result.getDeletedCount() + " of " + ids.length + " items");
 		
-		for (String id : ids) {
+		for (String id : result.getDeletedIds()) {
 			saveAction(new UserAction(schema.getTableName(), id, "DELETE", schema.getClassName(), authUser));
 		}
 		
@@ -588,7 +590,7 @@ public class SnapAdminController {
 			
 			q.setSql(
 				"-- It's recommended to always include a LIMIT clause in your query\n"
-				+ "-- Although the SQL Console supports pagination, it retrieves the entire ResultSet\n\n"
+				+ "-- Results are truncated after " + properties.getConsoleMaxRows() + " rows\n\n"
 				+ "-- SELECT * FROM " + randomTable + " LIMIT 1000;\n"
 			);
 			
@@ -643,21 +645,16 @@ public class SnapAdminController {
 		List<ConsoleQuery> tabs = consoleService.findAll();
 		model.addAttribute("tabs", tabs);
 		
-		DbQueryResult results = repository.executeQuery(activeQuery.getSql());
+		DbQueryResult results = repository.executeQuery(activeQuery.getSql(), page, pageSize);
 		
 		if (!results.isEmpty()) {
-			int maxPage = (int)(Math.ceil ((double)results.size() / pageSize));
-			PaginationInfo pagination = new PaginationInfo(page, maxPage, pageSize, results.size(), null, null);
-			int startOffset = (page - 1) * pageSize;
-			int endOffset = (page) * pageSize;
-			
-			endOffset = Math.min(results.size(), endOffset);
-			
-			results.crop(startOffset, endOffset);
+			// The rows after the next page are not read, so the last page is not known
+			int maxPage = results.hasMore() ? page + 1 : (int)(Math.ceil ((double)results.getTotalRows() / pageSize));
+			PaginationInfo pagination = new PaginationInfo(page, maxPage, pageSize, results.getTotalRows(), null, null);
 			model.addAttribute("pagination", pagination);
 			model.addAttribute("results", results);
 		} else {
-			PaginationInfo pagination = new PaginationInfo(page, 0, pageSize, results.size(), null, null);
+			PaginationInfo pagination = new PaginationInfo(page, 0, pageSize, results.getTotalRows(), null, null);
 			model.addAttribute("pagination", pagination);
 		}
 		
@@ -686,11 +683,13 @@ public class SnapAdminController {
 	public String settings(@RequestParam Map<String, String> params, Model model) {
 		String next = params.getOrDefault("next", "settings/settings");
 		
+		List<UserSetting> settings = new ArrayList<>();
 		for (String paramName : params.keySet()) {
-			if (paramName.equals("next")) continue;
+			if (paramName.equals("next") || paramName.equals(UserConfiguration.VERSION_KEY)) continue;
 			
-			userSettingsService.save(new UserSetting(paramName, params.get(paramName)));
+			settings.add(new UserSetting(paramName, params.get(paramName)));
 		}
+		userSettingsService.saveAll(settings);
 		model.addAttribute("activePage", "settings");
 		return next;
 	}
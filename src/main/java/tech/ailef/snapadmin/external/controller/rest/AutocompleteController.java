@@ -33,6 +33,7 @@ import org.springframework.web.bind.annotation.RestController;
 import tech.ailef.snapadmin.external.SnapAdmin;
 import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
 import tech.ailef.snapadmin.external.dbmapping.SnapAdminRepository;
+import tech.ailef.snapadmin.external.dbmapping.autocomplete.AutocompleteIndexer;
 import tech.ailef.snapadmin.external.dto.AutocompleteSearchResult;
 
 /**
@@ -41,9 +42,14 @@ import tech.ailef.snapadmin.external.dto.AutocompleteSearchResult;
 @RestController
 @RequestMapping(value= {"/${snapadmin.baseUrl}/api/autocomplete", "/${snapadmin.baseUrl}/api/autocomplete/"})
 public class AutocompleteController {
+	private static final int MAX_RESULTS = 50;
+	
 	@Autowired
 	private SnapAdmin snapAdmin;
 	
+	@Autowired
+	private AutocompleteIndexer indexer;
+	
 	@Autowired
 	private SnapAdminRepository repository;
 	
@@ -57,9 +63,12 @@ public class AutocompleteController {
 	public ResponseEntity<?> autocomplete(@PathVariable String className, @RequestParam String query) {
 		DbObjectSchema schema = snapAdmin.findSchemaByClassName(className);
 		
-		List<AutocompleteSearchResult> search = repository.search(schema, query)
+		List<AutocompleteSearchResult> search = indexer.search(schema, query, MAX_RESULTS);
+		if (search == null) {
+			search = repository.search(schema, query)
 					.stream().map(x -> new AutocompleteSearchResult(x))
 					.collect(Collectors.toList());
+		}
 		
 		return ResponseEntity.ok(search);
 	}
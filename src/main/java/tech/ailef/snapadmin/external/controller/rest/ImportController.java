@@ -0,0 +1,50 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.controller.rest;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import tech.ailef.snapadmin.external.dbmapping.bulk.BulkImporter;
+import tech.ailef.snapadmin.external.dbmapping.bulk.ImportJob;
+
+/**
+ * API controller to poll the progress of the imports
+ */
+@RestController
+@RequestMapping(value= {"/${snapadmin.baseUrl}/api/import", "/${snapadmin.baseUrl}/api/import/"})
+public class ImportController {
+	@Autowired
+	private BulkImporter importer;
+	
+	/**
+	 * Returns the current state of an import
+	 * @param id	the id of the import
+	 * @return an {@link ImportJob}
+	 */
+	@GetMapping("/{id}")
+	public ResponseEntity<ImportJob> progress(@PathVariable String id) {
+		return ResponseEntity.ok(importer.getJob(id));
+	}
+}
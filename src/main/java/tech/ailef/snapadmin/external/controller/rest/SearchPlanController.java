@@ -0,0 +1,68 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.controller.rest;
+
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import tech.ailef.snapadmin.external.SnapAdmin;
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dbmapping.search.SearchPlan;
+import tech.ailef.snapadmin.external.dbmapping.search.SearchPlanner;
+import tech.ailef.snapadmin.external.dto.QueryFilter;
+import tech.ailef.snapadmin.external.misc.Utils;
+
+/**
+ * API controller to inspect the predicates chosen for a search, 
+ * and whether they can use an index
+ */
+@RestController
+@RequestMapping(value= {"/${snapadmin.baseUrl}/api/search-plan", "/${snapadmin.baseUrl}/api/search-plan/"})
+public class SearchPlanController {
+	@Autowired
+	private SnapAdmin snapAdmin;
+	
+	@Autowired
+	private SearchPlanner planner;
+	
+	/**
+	 * Returns the plan for a search on the list page of an entity
+	 * @param className full qualified class name
+	 * @param query the search query
+	 * @param otherParams the filters, with the same parameters as the list page
+	 * @return a {@link SearchPlan}
+	 */
+	@GetMapping("/{className}")
+	public ResponseEntity<SearchPlan> plan(@PathVariable String className, @RequestParam(required=false) String query,
+			@RequestParam MultiValueMap<String, String> otherParams) {
+		DbObjectSchema schema = snapAdmin.findSchemaByClassName(className);
+		
+		Set<QueryFilter> queryFilters = Utils.computeFilters(schema, otherParams);
+		return ResponseEntity.ok(planner.plan(schema, query, queryFilters));
+	}
+}
@@ -0,0 +1,88 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.controller.rest;
+
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.persistence.EntityManagerFactory;
+import tech.ailef.snapadmin.external.SnapAdmin;
+import tech.ailef.snapadmin.external.dto.AuditLogWriterStats;
+import tech.ailef.snapadmin.external.dto.QueryPlanCacheStats;
+import tech.ailef.snapadmin.external.dto.QueryTemplateStats;
+import tech.ailef.snapadmin.internal.service.UserActionWriter;
+
+/**
+ * API controller to monitor the caches and background
+ * workers used by SnapAdmin
+ */
+@RestController
+@RequestMapping(value= {"/${snapadmin.baseUrl}/api/stats", "/${snapadmin.baseUrl}/api/stats/"})
+public class StatsController {
+	@Autowired
+	private SnapAdmin snapAdmin;
+	
+	@Autowired
+	private UserActionWriter userActionWriter;
+	
+	@Autowired
+	@Qualifier("entityManagerFactory")
+	private EntityManagerFactory entityManagerFactory;
+	
+	/**
+	 * Returns the size and hit rate of the query template cache of each entity,
+	 * i.e. how often SnapAdmin reuses the HQL of a search instead of building it.
+	 * Whether Hibernate then reuses the plan of the HQL is reported by {@link #queryPlans()}.
+	 * @return a list of {@link QueryTemplateStats}, one for each entity
+	 */
+	@GetMapping("/query-templates")
+	public ResponseEntity<List<QueryTemplateStats>> queryTemplates() {
+		List<QueryTemplateStats> stats = snapAdmin.getSchemas().stream()
+			.map(schema -> new QueryTemplateStats(schema.getClassName(), schema.getJpaRepository().getTemplateCache()))
+			.toList();
+		return ResponseEntity.ok(stats);
+	}
+	
+	/**
+	 * Returns the hits and misses of the Hibernate query plan cache
+	 * @return a {@link QueryPlanCacheStats}
+	 */
+	@GetMapping("/query-plans")
+	public ResponseEntity<QueryPlanCacheStats> queryPlans() {
+		SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+		return ResponseEntity.ok(new QueryPlanCacheStats(sessionFactory.getStatistics()));
+	}
+	
+	/**
+	 * Returns the queue depth, throughput and flush latency of the audit log writer
+	 * @return an {@link AuditLogWriterStats}
+	 */
+	@GetMapping("/audit-log")
+	public ResponseEntity<AuditLogWriterStats> auditLog() {
+		return ResponseEntity.ok(new AuditLogWriterStats(userActionWriter));
+	}
+}
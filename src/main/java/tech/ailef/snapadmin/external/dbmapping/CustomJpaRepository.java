@@ -20,30 +20,36 @@
 package tech.ailef.snapadmin.external.dbmapping;
 
 import java.io.IOException;
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaDelete;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.CriteriaUpdate;
-import jakarta.persistence.criteria.Path;
-import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
-import tech.ailef.snapadmin.external.dbmapping.fields.StringFieldType;
-import tech.ailef.snapadmin.external.dbmapping.fields.TextFieldType;
-import tech.ailef.snapadmin.external.dto.CompareOperator;
+import tech.ailef.snapadmin.external.dbmapping.search.SearchPlan;
+import tech.ailef.snapadmin.external.dbmapping.search.SearchPlanner;
+import tech.ailef.snapadmin.external.dto.KeysetCursor;
 import tech.ailef.snapadmin.external.dto.QueryFilter;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
 
@@ -54,62 +60,440 @@ public class CustomJpaRepository extends SimpleJpaRepository {
 	
 	private DbObjectSchema schema;
 	
+	private SearchPlanner searchPlanner;
+	
+	/**
+	 * The maximum number of query templates cached for each schema
+	 */
+	private static final int MAX_TEMPLATES = 256;
+	
+	private QueryTemplateCache templates = new QueryTemplateCache(MAX_TEMPLATES);
+	
+	private String entityName;
+	
 	@SuppressWarnings("unchecked")
-	public CustomJpaRepository(DbObjectSchema schema, EntityManager em) {
+	public CustomJpaRepository(DbObjectSchema schema, EntityManager em, SearchPlanner searchPlanner) {
 		super(schema.getJavaClass(), em);
 		this.entityManager = em;
 		this.schema = schema;
+		this.searchPlanner = searchPlanner;
+		this.entityName = em.getMetamodel().entity(schema.getJavaClass()).getName();
 	}
 	
-	@SuppressWarnings("unchecked")
 	public long count(String q, Set<QueryFilter> queryFilters) {
+		SearchPlan plan = searchPlanner.plan(schema, q, queryFilters);
+		
+		return createQuery("count|" + plan.getPredicate(), Long.class, plan.getParameters(), () -> 
+			"select count(" + SearchPlanner.path(schema.getPrimaryKey()) + ") from " + entityName + " " + SearchPlanner.ALIAS 
+				+ where(List.of(plan.getPredicate()))
+		).getSingleResult();
+	}
+	
+	/**
+	 * Counts all the rows in the table, aborting the query if
+	 * it takes more than the given number of milliseconds.
+	 * @param timeoutMillis	the query timeout
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public long count(int timeoutMillis) {
 		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery query = cb.createQuery(Long.class);
-        Root root = query.from(schema.getJavaClass());
-
-        List<Predicate> finalPredicates = buildPredicates(q, queryFilters, cb, root);
-        
-        query.select(cb.count(root.get(schema.getPrimaryKey().getName())))
-            .where(
-        		cb.and(
-                		finalPredicates.toArray(new Predicate[finalPredicates.size()])
-                	)
-        		);
-        
-        Object o = entityManager.createQuery(query).getSingleResult();
-        return (Long)o;
+		CriteriaQuery query = cb.createQuery(Long.class);
+		Root root = query.from(schema.getJavaClass());
+		query.select(cb.count(root));
+		
+		Object o = entityManager.createQuery(query)
+					.setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, timeoutMillis)
+					.getSingleResult();
+		return (Long)o;
 	}
 	
 	@SuppressWarnings("unchecked")
 	public List<Object> search(String q, int page, int pageSize, String sortKey, String sortOrder, Set<QueryFilter> filters) {
-		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery query = cb.createQuery(schema.getJavaClass());
-        Root root = query.from(schema.getJavaClass());
+		SearchPlan plan = searchPlanner.plan(schema, q, filters);
+		
+        return createSearchQuery(plan, sortKey, sortOrder, null).setMaxResults(pageSize)
+        			.setFirstResult((page - 1) * pageSize).getResultList();
+	}
+	
+	/**
+	 * Projection version of {@link #search(String, int, int, String, String, Set)}, which 
+	 * selects only the given fields instead of whole entities. Foreign keys are selected
+	 * as the primary key of the linked item, and the linked items are then loaded with 
+	 * one query per foreign key. Binary fields are only checked for presence, so their
+	 * content is never read.
+	 * 
+	 * @param fields	the fields to select, must include the primary key
+	 * @param q	the fuzzy search query
+	 * @param page	the page number
+	 * @param pageSize	the number of results per page
+	 * @param sortKey	the Java name of the sort field, can be null
+	 * @param sortOrder	the sort order, ASC or DESC
+	 * @param filters	the filters to apply
+	 * @return	the rows
+	 */
+	@SuppressWarnings("unchecked")
+	public List<ProjectedRow> searchRows(List<DbField> fields, String q, int page, int pageSize, String sortKey, 
+			String sortOrder, Set<QueryFilter> filters) {
+		SearchPlan plan = searchPlanner.plan(schema, q, filters);
+		
+		List<Object> tuples = createSearchQuery(plan, sortKey, sortOrder, fields).setMaxResults(pageSize)
+				.setFirstResult((page - 1) * pageSize).getResultList();
+		
+		List<ProjectedRow> rows = tuples.stream().map(t -> toRow((Tuple)t, fields)).toList();
+		resolveForeignKeys(rows, fields);
+		return rows;
+	}
+	
+	
+	public List<Object> search(String query, Set<QueryFilter> filters) {
+		return search(query, 1, Integer.MAX_VALUE, null, null, filters);
+	}
+	
+	/**
+	 * Runs the same query as {@link #search(String, Set)} but returns a lazy
+	 * stream backed by a scrollable cursor instead of a list, so rows are fetched
+	 * from the database {@code fetchSize} at a time. Entities are loaded as 
+	 * read-only to avoid keeping dirty-checking snapshots around.
+	 * 
+	 * The stream must be consumed inside a transaction and closed afterwards.
+	 * 
+	 * @param q	the fuzzy search query
+	 * @param filters	the filters to apply
+	 * @param fetchSize	the JDBC fetch size hint
+	 * @return a stream of `@Entity` instances
+	 */
+	@SuppressWarnings("unchecked")
+	public Stream<Object> stream(String q, Set<QueryFilter> filters, int fetchSize) {
+		SearchPlan plan = searchPlanner.plan(schema, q, filters);
+		
+		return createSearchQuery(plan, null, null, null)
+					.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+					.setHint(HibernateHints.HINT_READ_ONLY, true)
+					.getResultStream();
+	}
+	
+	/**
+	 * Projection version of {@link #stream(String, Set, int)}, see 
+	 * {@link #searchRows(List, String, int, int, String, String, Set)}. Foreign keys 
+	 * are not resolved, so that they can be resolved in batches with
+	 * {@link #resolveForeignKeys(List, List)}.
+	 * 
+	 * @param fields	the fields to select, must include the primary key
+	 * @param q	the fuzzy search query
+	 * @param filters	the filters to apply
+	 * @param fetchSize	the JDBC fetch size hint
+	 * @return a stream of rows
+	 */
+	@SuppressWarnings("unchecked")
+	public Stream<ProjectedRow> streamRows(List<DbField> fields, String q, Set<QueryFilter> filters, int fetchSize) {
+		SearchPlan plan = searchPlanner.plan(schema, q, filters);
+		
+		return createSearchQuery(plan, null, null, fields)
+					.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+					.getResultStream()
+					.map(t -> toRow((Tuple)t, fields));
+	}
+	
+	/**
+	 * Keyset (seek) version of {@link #search(String, int, int, String, String, Set)}.
+	 * Instead of skipping the rows of the previous pages, it starts reading right after 
+	 * (or before, if {@code backwards}) the row identified by the cursor, using the
+	 * primary key as a tie-breaker. This makes the cost of a page independent of its depth.
+	 * 
+	 * @param q	the fuzzy search query
+	 * @param filters	the filters to apply
+	 * @param sortField	the field to sort on, null to sort on the primary key only
+	 * @param descending	whether the sort order is descending
+	 * @param cursor	the position to start from, null to start from the first row
+	 * @param backwards	whether to read the rows before the cursor (previous page)
+	 * @param limit	the maximum number of rows to return
+	 * @return	the rows, always in the requested sort order
+	 */
+	public List<Object> seek(String q, Set<QueryFilter> filters, DbField sortField, boolean descending, 
+			KeysetCursor cursor, boolean backwards, int limit) {
+		return seek(q, filters, sortField, descending, cursor, backwards, limit, null);
+	}
+	
+	/**
+	 * Projection version of {@link #seek(String, Set, DbField, boolean, KeysetCursor, boolean, int)},
+	 * see {@link #searchRows(List, String, int, int, String, String, Set)}.
+	 * @param fields	the fields to select, must include the primary key and the sort field
+	 * @return	the rows, always in the requested sort order
+	 */
+	@SuppressWarnings("unchecked")
+	public List<ProjectedRow> seekRows(List<DbField> fields, String q, Set<QueryFilter> filters, DbField sortField, 
+			boolean descending, KeysetCursor cursor, boolean backwards, int limit) {
+		List<ProjectedRow> rows = 
+			seek(q, filters, sortField, descending, cursor, backwards, limit, fields).stream()
+				.map(t -> toRow((Tuple)t, fields))
+				.toList();
+		resolveForeignKeys(rows, fields);
+		return rows;
+	}
+	
+	private List<Object> seek(String q, Set<QueryFilter> filters, DbField sortField, boolean descending, 
+			KeysetCursor cursor, boolean backwards, int limit, List<DbField> projection) {
+		SearchPlan plan = searchPlanner.plan(schema, q, filters);
+		
+        // Reading backwards means reversing the order, then reversing the results
+        boolean reverse = descending != backwards;
         
-        List<Predicate> finalPredicates = buildPredicates(q, filters, cb, root);
+        Map<String, Object> parameters = new HashMap<>(plan.getParameters());
+        if (cursor != null) {
+        	parameters.put("cursorPk", cursor.getPrimaryKeyValue());
+        	if (sortField != null)
+        		parameters.put("cursorSort", cursor.getSortValue());
+        }
         
-        query.select(root)
-            .where(
-            	cb.or(
-            		cb.and(finalPredicates.toArray(new Predicate[finalPredicates.size()])), // query search on String fields
-            		cb.equal(root.get(schema.getPrimaryKey().getName()).as(String.class), q)
-            	)
-            	
-            );
+        String shape = "seek|" + plan.getPredicate() + "|" + shapeOf(projection) 
+        	+ "|sort=" + (sortField == null ? "" : sortField.getJavaName()) + (reverse ? ":desc" : ":asc")
+        	+ "|cursor=" + (cursor != null);
         
-        if (sortKey !=  null)
-        	query.orderBy(sortOrder.equals("DESC") ? cb.desc(root.get(sortKey)) : cb.asc(root.get(sortKey)));
+		TypedQuery<Object> query = createQuery(shape, resultClass(projection), parameters, () -> {
+	        String pk = SearchPlanner.path(schema.getPrimaryKey());
+	        String sort = sortField == null ? null : SearchPlanner.path(sortField);
+	        String direction = reverse ? " desc" : " asc";
+	        String after = reverse ? " < " : " > ";
+	        
+	        List<String> predicates = new ArrayList<>();
+	        predicates.add(plan.getPredicate());
+	        
+	        if (cursor != null) {
+	        	String afterPk = pk + after + ":cursorPk";
+	        	
+	        	if (sort == null)
+	        		predicates.add(afterPk);
+	        	else
+	        		predicates.add(sort + after + ":cursorSort or (" + sort + " = :cursorSort and " + afterPk + ")");
+	        }
+	        
+	        return select(projection) + where(predicates) 
+	        	+ " order by " + (sort == null ? "" : sort + direction + ", ") + pk + direction;
+		});
+		
+        List<Object> results = new ArrayList<>(query.setMaxResults(limit).getResultList());
+        if (backwards)
+        	Collections.reverse(results);
         
-        return entityManager.createQuery(query).setMaxResults(pageSize)
-        			.setFirstResult((page - 1) * pageSize).getResultList();
+        return results;
 	}
 	
+	/**
+	 * Counts the rows for each distinct value of a field, among the rows matching
+	 * the search query and filters. Foreign keys are grouped by the primary key
+	 * of the linked item.
+	 * @param field	the field to group by
+	 * @param q	the search query
+	 * @param filters	the active filters
+	 * @param limit	the maximum number of distinct values to return
+	 * @return a list of (value, count) pairs, sorted by decreasing count
+	 */
+	public List<Object[]> countValues(DbField field, String q, Set<QueryFilter> filters, int limit) {
+		SearchPlan plan = searchPlanner.plan(schema, q, filters);
+		
+		return createQuery("values=" + field.getJavaName() + "|" + plan.getPredicate(), Object[].class, plan.getParameters(), () -> {
+			String path = SearchPlanner.path(field);
+			return "select " + path + ", count(" + SearchPlanner.ALIAS + ") from " + entityName + " " + SearchPlanner.ALIAS
+				+ where(List.of(plan.getPredicate()))
+				+ " group by " + path + " order by count(" + SearchPlanner.ALIAS + ") desc, " + path + " asc";
+		}).setMaxResults(limit).getResultList();
+	}
 	
-	public List<Object> search(String query, Set<QueryFilter> filters) {
-		return search(query, 1, Integer.MAX_VALUE, null, null, filters);
+	/**
+	 * Detaches all the entities loaded so far in the current persistence context.
+	 */
+	public void clear() {
+		entityManager.clear();
+	}
+	
+	/**
+	 * Converts a tuple returned by a projection query into a row
+	 * @param tuple	the tuple
+	 * @param fields	the projected fields, in the same order as the tuple
+	 * @return
+	 */
+	private ProjectedRow toRow(Tuple tuple, List<DbField> fields) {
+		ProjectedRow row = new ProjectedRow();
+		for (int i = 0; i < fields.size(); i++)
+			row.put(fields.get(i).getJavaName(), tuple.get(i));
+		return row;
+	}
+	
+	/**
+	 * Replaces the primary keys of the linked items in the foreign key fields of
+	 * the rows with the linked `@Entity` instances, loaded with one query per field.
+	 * @param rows	the rows
+	 * @param fields	the projected fields
+	 */
+	@SuppressWarnings("unchecked")
+	public void resolveForeignKeys(List<ProjectedRow> rows, List<DbField> fields) {
+		for (DbField field : fields) {
+			if (!field.isForeignKey()) continue;
+			
+			String name = field.getJavaName();
+			DbObjectSchema linkedSchema = field.getConnectedSchema();
+			
+			Set<Object> ids = rows.stream().map(r -> r.get(name)).filter(Objects::nonNull)
+				.collect(Collectors.toSet());
+			
+			Map<Object, Object> linkedItems = new HashMap<>();
+			if (!ids.isEmpty()) {
+				for (Object item : linkedSchema.getJpaRepository().findAllById(ids))
+					linkedItems.put(new DbObject(item, linkedSchema).getPrimaryKeyValue(), item);
+			}
+			
+			for (ProjectedRow row : rows)
+				row.put(name, linkedItems.get(row.get(name)));
+		}
+	}
+	
+	/**
+	 * Returns which of the given primary key values exist in the table, with a
+	 * single query, e.g. to check the references of imported items in batches
+	 * @param ids	the primary key values
+	 * @return the values that exist
+	 */
+	public List<Object> findExistingIds(Collection<?> ids) {
+		if (ids.isEmpty()) return new ArrayList<>();
+		
+		String pk = SearchPlanner.path(schema.getPrimaryKey());
+		return createQuery("existing", Object.class, Map.of("ids", ids), () ->
+			"select " + pk + " from " + entityName + " " + SearchPlanner.ALIAS + " where " + pk + " in :ids"
+		).getResultList();
+	}
+	
+	/**
+	 * Returns the select and from clauses: the entity with a left fetch join for each 
+	 * to-one relationship shown in the list pages if the projection is null, so that 
+	 * the linked items are loaded with the same query instead of one query per row, 
+	 * otherwise the projected fields
+	 */
+	private String select(List<DbField> projection) {
+		StringBuilder hql = new StringBuilder("select ");
+		if (projection == null) {
+			hql.append(SearchPlanner.ALIAS).append(" from ").append(entityName).append(" ").append(SearchPlanner.ALIAS);
+			for (DbField field : schema.getSortedFields()) {
+				if (field.isForeignKey() && schema.getSnapAdmin().isManagedClass(field.getConnectedType()))
+					hql.append(" left join fetch ").append(SearchPlanner.ALIAS).append(".").append(field.getJavaName());
+			}
+			return hql.toString();
+		}
+		
+		List<String> selections = new ArrayList<>();
+		for (DbField field : projection) {
+			if (field.isBinary())
+				selections.add("case when " + SearchPlanner.path(field) + " is null then null else true end");
+			else
+				selections.add(SearchPlanner.path(field));
+		}
+		
+		hql.append(String.join(", ", selections)).append(" from ").append(entityName).append(" ").append(SearchPlanner.ALIAS);
+		return hql.toString();
+	}
+	
+	/**
+	 * Returns the where clause joining the given predicates, 
+	 * or an empty string if there are none
+	 */
+	private String where(List<String> predicates) {
+		List<String> nonEmpty = predicates.stream().filter(p -> !p.isEmpty()).toList();
+		if (nonEmpty.isEmpty()) return "";
+		return " where " + nonEmpty.stream().map(p -> "(" + p + ")").collect(Collectors.joining(" and "));
+	}
+	
+	/**
+	 * Returns the class of the results of a search: the entity 
+	 * if the projection is null, otherwise tuples
+	 */
+	@SuppressWarnings("unchecked")
+	private Class<Object> resultClass(List<DbField> projection) {
+		return (Class)(projection == null ? schema.getJavaClass() : Tuple.class);
 	}
-
 	
+	/**
+	 * Creates the query for a search, from the template for its shape. Entities
+	 * are loaded with their foreign keys, projections return tuples.
+	 */
+	private TypedQuery<Object> createSearchQuery(SearchPlan plan, String sortKey, String sortOrder, 
+			List<DbField> projection) {
+		DbField sortField = null;
+		if (sortKey != null) {
+			sortField = schema.getFieldByJavaName(sortKey);
+			if (sortField == null)
+				throw new SnapAdminException("Invalid sort field `" + sortKey + "`");
+		}
+		
+		String direction = "DESC".equals(sortOrder) ? " desc" : " asc";
+		String sort = sortField == null ? null : SearchPlanner.ALIAS + "." + sortField.getJavaName() + direction;
+		String shape = "search|" + plan.getPredicate() + "|" + shapeOf(projection) + "|sort=" + (sort == null ? "" : sort);
+		
+		return createQuery(shape, resultClass(projection), plan.getParameters(), () -> 
+			select(projection) + where(List.of(plan.getPredicate())) + (sort == null ? "" : " order by " + sort)
+		);
+	}
+	
+	/**
+	 * Creates a query from the template for the given shape, and binds the parameters.
+	 * On a miss, the template is built by the given function, which must only use 
+	 * the parameters named in {@code parameters}. Unlike criteria queries, HQL queries 
+	 * are cached by Hibernate, so the same template is parsed and translated only once.
+	 * 
+	 * @param shape	the shape of the query, must identify the template
+	 * @param resultClass	the class of the results
+	 * @param parameters	the values of the named parameters
+	 * @param builder	builds the template on a cache miss
+	 * @return the query, ready to be executed
+	 */
+	private <T> TypedQuery<T> createQuery(String shape, Class<T> resultClass, Map<String, Object> parameters,
+			Supplier<String> builder) {
+		String hql = templates.get(shape, builder);
+		
+		TypedQuery<T> query = entityManager.createQuery(hql, resultClass);
+		parameters.forEach(query::setParameter);
+		return query;
+	}
+	
+	/**
+	 * Returns the part of the shape of a query which depends on the selected fields
+	 */
+	private String shapeOf(List<DbField> projection) {
+		if (projection == null) return "entity";
+		return "rows=" + projection.stream().map(DbField::getJavaName).collect(Collectors.joining(","));
+	}
+	
+	/**
+	 * Returns the cache of the query templates for this schema
+	 * @return
+	 */
+	public QueryTemplateCache getTemplateCache() {
+		return templates;
+	}
+
+	/**
+	 * Deletes the rows with the given primary keys with a single 
+	 * `DELETE ... WHERE pk IN (...)` statement. If the entity cascades deletes to
+	 * other entities, the items are instead loaded with one query and removed through
+	 * the entity manager, so cascades and orphan removal still apply.
+	 * Must be called within a transaction.
+	 * @param ids	the primary key values
+	 * @return the number of deleted items
+	 */
+	@SuppressWarnings("unchecked")
+	public int deleteAllByIds(List<Object> ids) {
+		if (schema.hasCascadingDelete()) {
+			List<Object> items = findAllById(ids);
+			deleteAll(items);
+			return items.size();
+		}
+		
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaDelete delete = cb.createCriteriaDelete(schema.getJavaClass());
+		Root root = delete.from(schema.getJavaClass());
+		delete.where(root.get(schema.getPrimaryKey().getJavaName()).in(ids));
+		
+		return entityManager.createQuery(delete).executeUpdate();
+	}
 
 	@SuppressWarnings("unchecked")
 	public int update(DbObjectSchema schema, Map<String, String> params, Map<String, MultipartFile> files) {
@@ -159,91 +543,4 @@ public class CustomJpaRepository extends SimpleJpaRepository {
 		Query query = entityManager.createQuery(update);
 		return query.executeUpdate();
 	}
-	
-	@SuppressWarnings("unchecked")
-	private List<Predicate> buildPredicates(String q, Set<QueryFilter> queryFilters,
-			CriteriaBuilder cb, Path root) {
-		List<Predicate> finalPredicates = new ArrayList<>();
-        
-        List<DbField> stringFields = 
-        	schema.getSortedFields().stream().filter(f -> f.getType() instanceof StringFieldType || f.getType() instanceof TextFieldType)
-        			.collect(Collectors.toList());
-        
-        List<Predicate> queryPredicates = new ArrayList<>();
-        if (q != null && !q.isBlank()) {
-	        for (DbField f : stringFields) {
-	        	Path path = root.get(f.getJavaName());
-	        	queryPredicates.add(cb.like(cb.lower(cb.toString(path)), "%" + q.toLowerCase() + "%"));
-	        }
-	        
-	        Predicate queryPredicate = cb.or(queryPredicates.toArray(new Predicate[queryPredicates.size()]));
-	        finalPredicates.add(queryPredicate);
-        }
-
-        
-        if (queryFilters == null) queryFilters = new HashSet<>();
-        for (QueryFilter filter  : queryFilters) {
-        	CompareOperator op = filter.getOp();
-        	DbField dbField = filter.getField();
-        	String fieldName = dbField.getJavaName();
-        	String v = filter.getValue();
-        	
-        	Object value = null;
-        	
-        	if (!v.isBlank()) {
-	        	try {
-	        		value = dbField.getType().parseValue(v);
-	        	} catch (Exception e) {
-	        		throw new SnapAdminException("Invalid value `" + v + "` specified for field `" + dbField.getName() + "`");
-	        	}
-        	}
-        	
-			if (op == CompareOperator.STRING_EQ) {
-				if (value == null)
-					finalPredicates.add(cb.isNull(root.get(fieldName)));
-				else
-					finalPredicates.add(cb.equal(cb.lower(cb.toString(root.get(fieldName))), value.toString().toLowerCase()));
-			} else if (op == CompareOperator.CONTAINS) {
-				if (value != null)
-					finalPredicates.add(
-						cb.like(cb.lower(cb.toString(root.get(fieldName))), "%" + value.toString().toLowerCase() + "%")
-					);
-			} else if (op == CompareOperator.EQ) {
-				finalPredicates.add(
-					cb.equal(root.get(fieldName), value)
-				);
-			} else if (op == CompareOperator.GT) {
-				if (value != null)
-					finalPredicates.add(
-						cb.greaterThan(root.get(fieldName), value.toString())
-					);
-			} else if (op == CompareOperator.LT) {
-				if (value != null)
-					finalPredicates.add(
-						cb.lessThan(root.get(fieldName), value.toString())
-					);
-			} else if (op == CompareOperator.AFTER) {
-				if (value instanceof LocalDate)
-					finalPredicates.add(
-						cb.greaterThan(root.get(fieldName), (LocalDate)value)
-					);
-				else if (value instanceof LocalDateTime)
-					finalPredicates.add(
-						cb.greaterThan(root.get(fieldName), (LocalDateTime)value)
-					);
-				
-			} else if (op == CompareOperator.BEFORE) {
-				if (value instanceof LocalDate)
-					finalPredicates.add(
-						cb.lessThan(root.get(fieldName), (LocalDate)value)
-					);
-				else if (value instanceof LocalDateTime)
-					finalPredicates.add(
-						cb.lessThan(root.get(fieldName), (LocalDateTime)value)
-					);
-				
-			}
-        }
-        return finalPredicates;
-	}
 }
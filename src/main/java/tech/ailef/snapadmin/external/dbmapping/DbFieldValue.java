@@ -64,6 +64,16 @@ public class DbFieldValue {
 		return value;
 	}
 	
+	/**
+	 * Returns the value as it was read from the `@Entity` instance, 
+	 * without the conversions applied by {@link #getValue()}
+	 * @return
+	 */
+	@JsonIgnore
+	public Object getRawValue() {
+		return value;
+	}
+	
 	public String getFormattedValue() {
 		if (value == null) return null;
 		
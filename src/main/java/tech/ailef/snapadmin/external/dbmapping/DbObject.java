@@ -21,7 +21,6 @@ package tech.ailef.snapadmin.external.dbmapping;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -34,14 +33,17 @@ import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
-import tech.ailef.snapadmin.external.annotations.DisplayName;
-import tech.ailef.snapadmin.external.dbmapping.fields.BooleanFieldType;
 import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
 
 /**
  * Wrapper for all objects retrieved from the database.
- *
+ * 
+ * Objects can also be built from a {@link ProjectedRow}, containing only some 
+ * of the fields. In this case there's no `@Entity` instance: reading a field that
+ * is not in the row, or anything else that requires the instance, fails instead
+ * of loading it, which would mean one query per row. The projection has to include
+ * all the fields that are needed.
  */
 public class DbObject {
 	/**
@@ -49,11 +51,22 @@ public class DbObject {
 	 */
 	private Object instance;
 	
+	/**
+	 * The projected values of the object, if it was loaded with a projection query
+	 */
+	private ProjectedRow row;
+	
 	/**
 	 * The schema this object belongs to
 	 */
 	private DbObjectSchema schema;
 	
+	/**
+	 * The linked objects already traversed through to-one relationships, 
+	 * by field name. Templates traverse the same field several times per cell.
+	 */
+	private Map<String, DbObject> traversed;
+	
 	public DbObject(Object instance, DbObjectSchema schema) {
 		if (instance == null)
 			throw new SnapAdminException("Trying to build object with instance == null");
@@ -61,12 +74,24 @@ public class DbObject {
 		this.instance = instance;
 		this.schema = schema;
 	}
+	
+	public DbObject(ProjectedRow row, DbObjectSchema schema) {
+		if (row == null)
+			throw new SnapAdminException("Trying to build object with row == null");
+		
+		this.row = row;
+		this.schema = schema;
+	}
 
 	public boolean has(DbField field) {
-		return findGetter(field.getJavaName()) != null;
+		FieldAccessor accessor = schema.getAccessor(field.getJavaName());
+		return accessor != null && accessor.hasGetter();
 	}
 	
 	public Object getUnderlyingInstance() {
+		if (instance == null)
+			throw new SnapAdminException("Item with id " + getPrimaryKeyValue() + " in " + schema.getClassName() 
+				+ " was loaded with a projection query and has no @Entity instance");
 		return instance;
 	}
 	
@@ -90,10 +115,16 @@ public class DbObject {
 		ManyToOne manyToOne = field.getPrimitiveField().getAnnotation(ManyToOne.class);
 		OneToOne oneToOne = field.getPrimitiveField().getAnnotation(OneToOne.class);
 		if (oneToOne != null || manyToOne != null) {
+			if (traversed == null)
+				traversed = new HashMap<>();
+			else if (traversed.containsKey(field.getName()))
+				return traversed.get(field.getName());
+			
 			Object linkedObject = get(field.getJavaName()).getValue();
-			if (linkedObject == null) return null;
+			DbObject linkedDbObject = 
+				linkedObject == null ? null : new DbObject(linkedObject, field.getConnectedSchema());
 			
-			DbObject linkedDbObject = new DbObject(linkedObject, field.getConnectedSchema());
+			traversed.put(field.getName(), linkedDbObject);
 			return linkedDbObject;
 		} else {
 			throw new SnapAdminException("Cannot traverse field " + field.getName() + " in class " + schema.getClassName());
@@ -119,52 +150,43 @@ public class DbObject {
 	}
 	
 	public DbFieldValue get(String name) {
-		Method getter = findGetter(name);
+		FieldAccessor accessor = schema.getAccessor(name);
 		
-		if (getter == null)
+		if (accessor == null)
 			throw new SnapAdminException("Unable to find getter method for field `"
-				+ name + "` in class " + instance.getClass());
+				+ name + "` in class " + schema.getJavaClass());
 
-		try {
-			Object result = getter.invoke(instance);
-			return new DbFieldValue(result, schema.getFieldByJavaName(name));
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-			throw new SnapAdminException(e);
+		if (row != null) {
+			if (!row.contains(name))
+				throw new SnapAdminException("Field `" + name + "` of " + schema.getClassName() 
+					+ " is not included in the projection query");
+			return new DbFieldValue(row.get(name), accessor.getField());
 		}
+		
+		return new DbFieldValue(accessor.get(getUnderlyingInstance()), accessor.getField());
 	}
 	
 	public Object getPrimaryKeyValue() {
 		DbField primaryKeyField = schema.getPrimaryKey();
-		Method getter = findGetter(primaryKeyField.getJavaName());
+		if (row != null)
+			return row.get(primaryKeyField.getJavaName());
+		
+		FieldAccessor accessor = schema.getAccessor(primaryKeyField.getJavaName());
 		
-		if (getter == null)
+		if (accessor == null)
 			throw new SnapAdminException("Unable to find getter method for field `"
 				+ primaryKeyField.getJavaName() + "` in class " + instance.getClass());
 		
-		try {
-			Object result = getter.invoke(instance);
-			return result;
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-			throw new SnapAdminException(e);
-		}
+		return accessor.get(instance);
 	}
 	
 	public String getDisplayName() {
-		Method[] methods = instance.getClass().getMethods();
-		
-		Optional<Method> displayNameMethod = 
-			Arrays.stream(methods)
-			      .filter(m -> m.getAnnotation(DisplayName.class) != null)
-			      .findFirst();
+		EntityAccessors accessors = schema.getAccessors();
 		
-		if (displayNameMethod.isPresent()) {
-			try {
-				Object displayName = displayNameMethod.get().invoke(instance);
-				if (displayName == null) return null;
-				else return displayName.toString();
-			} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-				throw new SnapAdminException(e);
-			}
+		if (accessors.hasDisplayName()) {
+			Object displayName = accessors.getDisplayName(getUnderlyingInstance());
+			if (displayName == null) return null;
+			else return displayName.toString();
 		} else {
 			return getPrimaryKeyValue().toString();
 		}
@@ -185,7 +207,7 @@ public class DbObject {
 			throw new SnapAdminException("Unable to find mapped method for @ComputedColumn " + column);
 		
 		try {
-			return method.invoke(instance);
+			return method.invoke(getUnderlyingInstance());
 		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
 			throw new SnapAdminException("Error while calling @ComputedColumn " + column
 					+ " on class " + schema.getClassName());
@@ -203,30 +225,25 @@ public class DbObject {
 					+ ": item does not exist.");
 		}
 		
-		Method setter = findSetter(field.getJavaName());
+		FieldAccessor accessor = schema.getAccessor(field.getJavaName());
 		
-		if (setter == null) {
+		if (accessor == null || !accessor.hasSetter()) {
 			throw new SnapAdminException("Unable to find setter method for " + fieldName + " in " + schema.getClassName());
 		}
 		
-		try {
-			setter.invoke(instance, obj.get());
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-		}
+		accessor.set(getUnderlyingInstance(), obj.get());
+		row = null;
+		traversed = null;
 	}
 	
 	public void set(String fieldName, Object value) {
-		Method setter = findSetter(fieldName);
+		FieldAccessor accessor = schema.getAccessor(fieldName);
 		
-		if (setter == null) {
+		if (accessor == null || !accessor.hasSetter()) {
 			throw new SnapAdminException("Unable to find setter method for " + fieldName + " in " + schema.getClassName());
 		}
 		
-		Class<?>[] types = setter.getParameterTypes();
-		if (types.length != 1) 
-			throw new SnapAdminException("Setter " + setter + " has " + types.length + " parameters (expected 1)");
-		
-		Class<?> expectedSetterType = types[0];
+		Class<?> expectedSetterType = accessor.getSetterType();
 		if (!expectedSetterType.isAssignableFrom(value.getClass())) {
 			// If the value is not assignable we check if it's a collection 
 			// mismatch, e.g. the setter expects a Set but we are passing a List
@@ -240,51 +257,9 @@ public class DbObject {
 			}
 		}
 		
-		
-		
-		
-		
-		try {
-			setter.invoke(instance, value);
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-			if (e instanceof IllegalArgumentException) {
-				throw new RuntimeException("setter: " + setter + ", passed: " + value.getClass(), e);
-			}
-			throw new RuntimeException(e);
-		}
-	}
-	
-	
-	protected Method findSetter(String fieldName) {
-		String capitalize = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
-		Method[] methods = instance.getClass().getDeclaredMethods();
-		
-		for (Method m : methods) {
-			if (m.getName().equals("set" + capitalize))
-				return m;
-		}
-		
-		return null;
-	}
-	
-	protected Method findGetter(String fieldName) {
-		String capitalize = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
-		Method[] methods = instance.getClass().getDeclaredMethods();
-		
-		DbField dbField = schema.getFieldByJavaName(fieldName);
-		if (dbField == null) return null;
-		
-		String prefix = "get";
-		if (dbField.getType() instanceof BooleanFieldType) {
-			prefix = "is";
-		}
-		
-		for (Method m : methods) {
-			if (m.getName().equals(prefix + capitalize))
-				return m;
-		}
-		
-		return null;
+		accessor.set(getUnderlyingInstance(), value);
+		row = null;
+		traversed = null;
 	}
 	
 	/**
@@ -337,7 +312,7 @@ public class DbObject {
 
 	@Override
 	public String toString() {
-		return "DbObject [instance=" + instance + ", schema=" + schema + "]";
+		return "DbObject [instance=" + instance + ", row=" + row + ", schema=" + schema + "]";
 	}
 	
 	
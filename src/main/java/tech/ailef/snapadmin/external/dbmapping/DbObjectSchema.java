@@ -19,23 +19,27 @@
 
 package tech.ailef.snapadmin.external.dbmapping;
 
+import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.springframework.web.multipart.MultipartFile;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import jakarta.persistence.CascadeType;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
@@ -47,6 +51,8 @@ import tech.ailef.snapadmin.external.annotations.DisableEdit;
 import tech.ailef.snapadmin.external.annotations.DisableExport;
 import tech.ailef.snapadmin.external.annotations.HiddenColumn;
 import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+import tech.ailef.snapadmin.external.dbmapping.fields.StringFieldType;
+import tech.ailef.snapadmin.external.dbmapping.fields.TextFieldType;
 import tech.ailef.snapadmin.external.dto.MappingError;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminNotFoundException;
@@ -65,12 +71,63 @@ public class DbObjectSchema {
 	@JsonIgnore
 	private List<DbField> fields = new ArrayList<>();
 	
+	/**
+	 * The fields indexed by column name
+	 */
+	@JsonIgnore
+	private Map<String, DbField> fieldsByName = new HashMap<>();
+	
+	/**
+	 * The fields indexed by Java field name
+	 */
+	@JsonIgnore
+	private Map<String, DbField> fieldsByJavaName = new HashMap<>();
+	
+	@JsonIgnore
+	private DbField primaryKey;
+	
+	/**
+	 * Field lists computed once by {@link #freeze()}, null until then
+	 */
+	@JsonIgnore
+	private List<DbField> sortedFields;
+	
+	@JsonIgnore
+	private List<DbField> sortedEditableFields;
+	
+	@JsonIgnore
+	private List<DbField> relationshipFields;
+	
+	@JsonIgnore
+	private List<DbField> manyToManyOwnedFields;
+	
+	@JsonIgnore
+	private List<DbField> filterableFields;
+	
+	@JsonIgnore
+	private List<DbField> fullTextSearchableFields;
+	
+	@JsonIgnore
+	private List<DbField> stringFields;
+	
+	/**
+	 * Whether deleting an item cascades to other items, computed by {@link #freeze()}
+	 */
+	@JsonIgnore
+	private Boolean cascadingDelete;
+	
 	/**
 	 * The methods designated as computed columns in the `@Entity` class.
 	 */
 	@JsonIgnore
 	private Map<String, Method> computedColumns = new HashMap<>();
 	
+	/**
+	 * Getters and setters for the fields, built once all the fields have been added
+	 */
+	@JsonIgnore
+	private EntityAccessors accessors;
+	
 	/**
 	 * A JPA repository to operate on the database
 	 */
@@ -91,6 +148,16 @@ public class DbObjectSchema {
 	
 	private List<MappingError> errors = new ArrayList<>();
 	
+	/**
+	 * Maps the fields of this schema on first access, if their mapping was
+	 * deferred (`snapadmin.lazySchemaInit`). Null once the fields are mapped.
+	 */
+	@JsonIgnore
+	private volatile Consumer<DbObjectSchema> initializer;
+	
+	@JsonIgnore
+	private boolean initializing;
+	
 	/**
 	 * Initializes this schema for the specific `@Entity` class. 
 	 * Determines the table name from the `@Table` annotation and also
@@ -127,6 +194,44 @@ public class DbObjectSchema {
 		}
 	}
 	
+	/**
+	 * Defers the mapping of the fields of this schema until they are first accessed
+	 * @param initializer	the function that maps the fields and freezes the schema
+	 */
+	public void setInitializer(Consumer<DbObjectSchema> initializer) {
+		this.initializer = initializer;
+	}
+	
+	/**
+	 * Returns whether the fields of this schema have been mapped. This is false
+	 * until the first access when their mapping is deferred (`snapadmin.lazySchemaInit`).
+	 * @return
+	 */
+	@JsonIgnore
+	public boolean isInitialized() {
+		return initializer == null;
+	}
+	
+	/**
+	 * Runs the deferred initialization, if any. Calls made by the initializer
+	 * itself, while it's adding the fields, return immediately.
+	 */
+	private void ensureInitialized() {
+		if (initializer == null) return;
+		
+		synchronized (this) {
+			if (initializer == null || initializing) return;
+			
+			initializing = true;
+			try {
+				initializer.accept(this);
+				initializer = null;
+			} finally {
+				initializing = false;
+			}
+		}
+	}
+	
 	public String getBasePackage() {
 		return entityClass.getPackageName();
 	}
@@ -164,10 +269,12 @@ public class DbObjectSchema {
 	 * @return an unmodifiable list of all the fields in the schema
 	 */
 	public List<DbField> getFields() {
+		ensureInitialized();
 		return Collections.unmodifiableList(fields);
 	}
 	
 	public List<MappingError> getErrors() {
+		ensureInitialized();
 		return Collections.unmodifiableList(errors);
 	}
 	
@@ -178,7 +285,8 @@ public class DbObjectSchema {
 	 * @return	the DbField if found, null otherwise
 	 */
 	public DbField getFieldByJavaName(String name) {
-		return fields.stream().filter(f -> f.getJavaName().equals(name)).findFirst().orElse(null);
+		ensureInitialized();
+		return fieldsByJavaName.get(name);
 	}
 	
 	/**
@@ -188,7 +296,8 @@ public class DbObjectSchema {
 	 * @return	the DbField if found, null otherwise
 	 */
 	public DbField getFieldByName(String name) {
-		return fields.stream().filter(f -> f.getName().equals(name)).findFirst().orElse(null);
+		ensureInitialized();
+		return fieldsByName.get(name);
 	}
 	
 	/**
@@ -198,6 +307,56 @@ public class DbObjectSchema {
 	 */
 	public void addField(DbField f) {
 		fields.add(f);
+		fieldsByName.put(f.getName(), f);
+		fieldsByJavaName.put(f.getJavaName(), f);
+		if (f.isPrimaryKey() && primaryKey == null)
+			primaryKey = f;
+	}
+	
+	/**
+	 * Computes the field lists (sorted, editable, relationship, many-to-many owned,
+	 * filterable, full-text searchable and string fields) and whether deletes cascade,
+	 * so that the getters don't recompute them on every call. This is called by the
+	 * SnapAdmin instance at the end of the initialization, when all the schemas have 
+	 * been loaded, since the relationship fields depend on them.
+	 */
+	public void freeze() {
+		fields = List.copyOf(fields);
+		sortedFields = List.copyOf(computeSortedFields(true));
+		sortedEditableFields = List.copyOf(computeSortedFields(false));
+		relationshipFields = List.copyOf(computeRelationshipFields());
+		manyToManyOwnedFields = List.copyOf(computeManyToManyOwnedFields());
+		filterableFields = List.copyOf(computeFilterableFields());
+		fullTextSearchableFields = List.copyOf(computeFullTextSearchableFields());
+		stringFields = List.copyOf(computeStringFields());
+		cascadingDelete = computeCascadingDelete();
+	}
+	
+	/**
+	 * Builds the accessors for the fields of this schema. This is used by the
+	 * SnapAdmin instance during initialization, after all the fields have been added.
+	 */
+	public void buildAccessors() {
+		this.accessors = new EntityAccessors(entityClass, fields);
+	}
+	
+	/**
+	 * Returns the accessor for a field
+	 * @param javaName	the name of the field in the Java class
+	 * @return the accessor if found, null otherwise
+	 */
+	public FieldAccessor getAccessor(String javaName) {
+		ensureInitialized();
+		return accessors.get(javaName);
+	}
+	
+	/**
+	 * Returns the accessors table for this schema
+	 * @return
+	 */
+	public EntityAccessors getAccessors() {
+		ensureInitialized();
+		return accessors;
 	}
 	
 	public void addError(MappingError error) {
@@ -251,6 +410,12 @@ public class DbObjectSchema {
 	 * @return 
 	 */
 	public List<DbField> getSortedFields(boolean readOnly) {
+		ensureInitialized();
+		if (sortedFields == null) return computeSortedFields(readOnly);
+		return readOnly ? sortedFields : sortedEditableFields;
+	}
+	
+	private List<DbField> computeSortedFields(boolean readOnly) {
 		return getFields().stream()
 			.filter(f -> {
 				boolean toMany = f.getPrimitiveField().getAnnotation(OneToMany.class) == null
@@ -284,6 +449,12 @@ public class DbObjectSchema {
 	 * @return
 	 */
 	public List<DbField> getRelationshipFields() {
+		ensureInitialized();
+		if (relationshipFields == null) return computeRelationshipFields();
+		return relationshipFields;
+	}
+	
+	private List<DbField> computeRelationshipFields() {
 		List<DbField> res = getFields().stream().filter(f -> {
 			return f.getPrimitiveField().getAnnotation(OneToMany.class) != null
 				|| f.getPrimitiveField().getAnnotation(ManyToMany.class) != null;
@@ -299,6 +470,12 @@ public class DbObjectSchema {
 	 * @return
 	 */
 	public List<DbField> getManyToManyOwnedFields() {
+		ensureInitialized();
+		if (manyToManyOwnedFields == null) return computeManyToManyOwnedFields();
+		return manyToManyOwnedFields;
+	}
+	
+	private List<DbField> computeManyToManyOwnedFields() {
 		List<DbField> res = getFields().stream().filter(f -> {
 			ManyToMany anno = f.getPrimitiveField().getAnnotation(ManyToMany.class);
 			return anno != null && anno.mappedBy().isBlank();
@@ -312,9 +489,9 @@ public class DbObjectSchema {
 	 */
 	@JsonIgnore
 	public DbField getPrimaryKey() {
-		Optional<DbField> pk = fields.stream().filter(f -> f.isPrimaryKey()).findFirst();
-		if (pk.isPresent())
-			return pk.get();
+		ensureInitialized();
+		if (primaryKey != null)
+			return primaryKey;
 		else
 			throw new RuntimeException("No primary key defined on " + entityClass.getName() + " (table `" + tableName + "`)");
 	}
@@ -341,11 +518,112 @@ public class DbObjectSchema {
 	 * @return 
 	 */
 	public List<DbField> getFilterableFields() {
+		ensureInitialized();
+		if (filterableFields == null) return computeFilterableFields();
+		return filterableFields;
+	}
+	
+	private List<DbField> computeFilterableFields() {
 		return getSortedFields().stream().filter(f -> { 
 			return !f.isBinary() && !f.isPrimaryKey() && f.isFilterable();
 		}).toList();
 	}
 	
+	/**
+	 * Returns the list of fields that are `@FullTextSearchable`
+	 * @return
+	 */
+	public List<DbField> getFullTextSearchableFields() {
+		ensureInitialized();
+		if (fullTextSearchableFields == null) return computeFullTextSearchableFields();
+		return fullTextSearchableFields;
+	}
+	
+	private List<DbField> computeFullTextSearchableFields() {
+		return getSortedFields().stream().filter(f -> { 
+			return (f.getType() instanceof StringFieldType || f.getType() instanceof TextFieldType) 
+				&& f.isFullTextSearchable();
+		}).toList();
+	}
+	
+	/**
+	 * Returns the list of string and text fields, which are matched 
+	 * with `LIKE` by the search bar of the list page
+	 * @return
+	 */
+	@JsonIgnore
+	public List<DbField> getStringFields() {
+		ensureInitialized();
+		if (stringFields == null) return computeStringFields();
+		return stringFields;
+	}
+	
+	private List<DbField> computeStringFields() {
+		return getSortedFields().stream().filter(f -> { 
+			return f.getType() instanceof StringFieldType || f.getType() instanceof TextFieldType;
+		}).toList();
+	}
+	
+	/**
+	 * Returns the fields to select with a projection query, instead of loading 
+	 * whole entities, when only the given fields are needed. The primary key is 
+	 * always included. Returns null if a projection can't be used because one of the 
+	 * fields is a foreign key to a class not managed by SnapAdmin.
+	 * @param fields	the fields that are needed
+	 * @return	the projected fields, or null
+	 */
+	public List<DbField> getProjection(Collection<DbField> fields) {
+		List<DbField> projection = new ArrayList<>();
+		projection.add(getPrimaryKey());
+		
+		for (DbField field : fields) {
+			if (field.isForeignKey() && !snapAdmin.isManagedClass(field.getConnectedType()))
+				return null;
+			if (!projection.contains(field))
+				projection.add(field);
+		}
+		return projection;
+	}
+	
+	/**
+	 * Returns whether deleting an item also deletes other items, because one of its
+	 * relationships has `CascadeType.REMOVE` (or `ALL`) or `orphanRemoval`. Items 
+	 * like these must be deleted through the entity manager instead of bulk statements.
+	 * @return
+	 */
+	public boolean hasCascadingDelete() {
+		ensureInitialized();
+		if (cascadingDelete == null) return computeCascadingDelete();
+		return cascadingDelete;
+	}
+	
+	private boolean computeCascadingDelete() {
+		for (Class<?> c = entityClass; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Field f : c.getDeclaredFields()) {
+				OneToMany oneToMany = f.getAnnotation(OneToMany.class);
+				if (oneToMany != null && (cascadesRemove(oneToMany.cascade()) || oneToMany.orphanRemoval()))
+					return true;
+				
+				OneToOne oneToOne = f.getAnnotation(OneToOne.class);
+				if (oneToOne != null && (cascadesRemove(oneToOne.cascade()) || oneToOne.orphanRemoval()))
+					return true;
+				
+				ManyToMany manyToMany = f.getAnnotation(ManyToMany.class);
+				if (manyToMany != null && cascadesRemove(manyToMany.cascade()))
+					return true;
+				
+				ManyToOne manyToOne = f.getAnnotation(ManyToOne.class);
+				if (manyToOne != null && cascadesRemove(manyToOne.cascade()))
+					return true;
+			}
+		}
+		return false;
+	}
+	
+	private boolean cascadesRemove(CascadeType[] cascade) {
+		return Arrays.stream(cascade).anyMatch(t -> t == CascadeType.REMOVE || t == CascadeType.ALL);
+	}
+	
 	public boolean isDeleteEnabled() {
 		return entityClass.getAnnotation(DisableDelete.class) == null;
 	}
@@ -387,20 +665,20 @@ public class DbObjectSchema {
 					throw new SnapAdminNotFoundException("Cannot find field " + param + " in " + getJavaClass().getName());
 				
 				String javaFieldName = dbField.getJavaName();
-				Method setter = dbObject.findSetter(javaFieldName);
+				FieldAccessor accessor = getAccessor(javaFieldName);
 				
-				if (setter ==  null) {
+				if (accessor == null || !accessor.hasSetter()) {
 					throw new RuntimeException("Cannot find setter for " + javaFieldName);
 				}
 				
 				Object parsedFieldValue = 
-					getFieldByName(param).getType().parseValue(params.get(param));
+					dbField.getType().parseValue(params.get(param));
 
-				if (parsedFieldValue != null && getFieldByName(param).isSettable()) {
-					setter.invoke(instance, parsedFieldValue);
+				if (parsedFieldValue != null && dbField.isSettable()) {
+					accessor.set(instance, parsedFieldValue);
 				}
 				
-				if (parsedFieldValue != null && getFieldByName(param).isToOne()) {
+				if (parsedFieldValue != null && dbField.isToOne()) {
 					dbObject.setRelationship(param, parsedFieldValue);
 				}
 			}
@@ -408,18 +686,18 @@ public class DbObjectSchema {
 			for (String fileParam : files.keySet()) {
 				if (fileParam.startsWith("__")) continue;
 
-				String javaFieldName = getFieldByName(fileParam).getJavaName();
-				Method setter = dbObject.findSetter(javaFieldName);
+				DbField dbField = getFieldByName(fileParam);
+				FieldAccessor accessor = getAccessor(dbField.getJavaName());
 				
-				if (setter ==  null) {
+				if (accessor == null || !accessor.hasSetter()) {
 					throw new RuntimeException("Cannot find setter for " + fileParam);
 				}
 				
 				Object parsedFieldValue = 
-						getFieldByName(fileParam).getType().parseValue(params.get(fileParam));
+						dbField.getType().parseValue(params.get(fileParam));
 				
-				if (parsedFieldValue != null && getFieldByName(fileParam).isSettable()) {
-					setter.invoke(instance, parsedFieldValue);
+				if (parsedFieldValue != null && dbField.isSettable()) {
+					accessor.set(instance, parsedFieldValue);
 				}
 			}
 			
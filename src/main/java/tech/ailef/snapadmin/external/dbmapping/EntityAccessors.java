@@ -0,0 +1,147 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import tech.ailef.snapadmin.external.annotations.DisplayName;
+import tech.ailef.snapadmin.external.dbmapping.fields.BooleanFieldType;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+
+/**
+ * The table of accessors for the fields of an `@Entity` class, built once
+ * when the schema is loaded. Methods are looked up on the `@Entity` class
+ * itself (and its superclasses) rather than on the runtime class of each
+ * instance, so they also work on Hibernate proxies, which are subclasses
+ * generated at runtime.
+ */
+public class EntityAccessors {
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+	
+	private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+	
+	/**
+	 * Accessors indexed by Java field name
+	 */
+	private Map<String, FieldAccessor> accessors = new HashMap<>();
+	
+	/**
+	 * The method annotated with `@DisplayName`, if any
+	 */
+	private MethodHandle displayName;
+	
+	public EntityAccessors(Class<?> klass, List<DbField> fields) {
+		MethodHandles.Lookup lookup = MethodHandles.lookup();
+		
+		for (DbField field : fields) {
+			String capitalize = 
+				Character.toUpperCase(field.getJavaName().charAt(0)) + field.getJavaName().substring(1);
+			
+			boolean isBoolean = field.getType() instanceof BooleanFieldType;
+			Method getter = findMethod(klass, (isBoolean ? "is" : "get") + capitalize, 0);
+			if (getter == null)
+				getter = findMethod(klass, (isBoolean ? "get" : "is") + capitalize, 0);
+			
+			Method setter = findMethod(klass, "set" + capitalize, 1);
+			
+			accessors.put(field.getJavaName(), new FieldAccessor(
+				field, 
+				unreflect(lookup, getter, GETTER_TYPE), 
+				unreflect(lookup, setter, SETTER_TYPE),
+				setter == null ? null : setter.getParameterTypes()[0],
+				setter == null ? null : setter.toString()
+			));
+		}
+		
+		for (Method m : klass.getMethods()) {
+			if (m.getAnnotation(DisplayName.class) != null && m.getParameterCount() == 0) {
+				displayName = unreflect(lookup, m, GETTER_TYPE);
+				break;
+			}
+		}
+	}
+	
+	/**
+	 * Returns the accessor for the given field
+	 * @param javaName	the name of the field in the Java class
+	 * @return the accessor, null if the field is not mapped
+	 */
+	public FieldAccessor get(String javaName) {
+		return accessors.get(javaName);
+	}
+	
+	/**
+	 * Returns whether the class has a method annotated with `@DisplayName`
+	 * @return
+	 */
+	public boolean hasDisplayName() {
+		return displayName != null;
+	}
+	
+	/**
+	 * Invokes the `@DisplayName` method on the given instance
+	 * @param instance
+	 * @return
+	 */
+	public Object getDisplayName(Object instance) {
+		try {
+			return (Object)displayName.invokeExact(instance);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new SnapAdminException(e);
+		}
+	}
+	
+	/**
+	 * Finds a method by name and number of parameters in the 
+	 * given class or its superclasses
+	 */
+	private static Method findMethod(Class<?> klass, String name, int parameterCount) {
+		for (Class<?> c = klass; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Method m : c.getDeclaredMethods()) {
+				if (m.getName().equals(name) && m.getParameterCount() == parameterCount
+						&& !m.isBridge() && !Modifier.isStatic(m.getModifiers()))
+					return m;
+			}
+		}
+		return null;
+	}
+	
+	private static MethodHandle unreflect(MethodHandles.Lookup lookup, Method m, MethodType type) {
+		if (m == null) return null;
+		
+		try {
+			if (!Modifier.isPublic(m.getModifiers()) || !Modifier.isPublic(m.getDeclaringClass().getModifiers()))
+				m.setAccessible(true);
+			return lookup.unreflect(m).asType(type);
+		} catch (IllegalAccessException | RuntimeException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping;
+
+import java.lang.invoke.MethodHandle;
+
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+
+/**
+ * Getter and setter of a single field of an `@Entity` class, resolved
+ * once as method handles so that reading and writing values doesn't
+ * require looking up methods by name each time.
+ */
+public class FieldAccessor {
+	private DbField field;
+	
+	/**
+	 * The getter, adapted to the (Object)Object type. Null if the class doesn't have one.
+	 */
+	private MethodHandle getter;
+	
+	/**
+	 * The setter, adapted to the (Object,Object)void type. Null if the class doesn't have one.
+	 */
+	private MethodHandle setter;
+	
+	/**
+	 * The type of the setter parameter
+	 */
+	private Class<?> setterType;
+	
+	private String setterName;
+	
+	public FieldAccessor(DbField field, MethodHandle getter, MethodHandle setter, 
+			Class<?> setterType, String setterName) {
+		this.field = field;
+		this.getter = getter;
+		this.setter = setter;
+		this.setterType = setterType;
+		this.setterName = setterName;
+	}
+	
+	public DbField getField() {
+		return field;
+	}
+	
+	public boolean hasGetter() {
+		return getter != null;
+	}
+	
+	public boolean hasSetter() {
+		return setter != null;
+	}
+	
+	public Class<?> getSetterType() {
+		return setterType;
+	}
+	
+	/**
+	 * Reads the value of the field from the given instance
+	 * @param instance	an instance of the `@Entity` class (or of a proxy subclass)
+	 * @return the value returned by the getter
+	 */
+	public Object get(Object instance) {
+		if (getter == null)
+			throw new SnapAdminException("Unable to find getter method for field `"
+				+ field.getJavaName() + "` in class " + instance.getClass());
+		
+		try {
+			return (Object)getter.invokeExact(instance);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new SnapAdminException(e);
+		}
+	}
+	
+	/**
+	 * Sets the value of the field on the given instance
+	 * @param instance	an instance of the `@Entity` class (or of a proxy subclass)
+	 * @param value	the value to pass to the setter
+	 */
+	public void set(Object instance, Object value) {
+		if (setter == null)
+			throw new SnapAdminException("Unable to find setter method for " + field.getName() 
+				+ " in " + field.getSchema().getClassName());
+		
+		try {
+			setter.invokeExact(instance, value);
+		} catch (ClassCastException e) {
+			throw new RuntimeException("setter: " + setterName + ", passed: " 
+				+ (value == null ? null : value.getClass()), e);
+		} catch (RuntimeException | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A row loaded with a projection query, i.e. containing only some of the 
+ * fields of the `@Entity`, by Java name. Used to build lightweight 
+ * {@link DbObject}s for the list pages and exports without loading 
+ * large columns that are not shown.
+ * 
+ * Values follow the conventions of {@link CustomJpaRepository#searchRows}: foreign
+ * keys contain the linked `@Entity` instance (once resolved) and binary fields only
+ * contain `true` if a value is present, or null otherwise.
+ */
+public class ProjectedRow {
+	private Map<String, Object> values = new HashMap<>();
+	
+	public boolean contains(String javaName) {
+		return values.containsKey(javaName);
+	}
+	
+	public Object get(String javaName) {
+		return values.get(javaName);
+	}
+	
+	public void put(String javaName, Object value) {
+		values.put(javaName, value);
+	}
+
+	@Override
+	public String toString() {
+		return "ProjectedRow [values=" + values + "]";
+	}
+}
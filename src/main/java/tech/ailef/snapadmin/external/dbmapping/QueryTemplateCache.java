@@ -0,0 +1,110 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * An LRU cache of HQL query templates, keyed by the shape of the query (which filters, 
+ * operators, sort and selection it uses). Templates only contain named parameters, never 
+ * values, so all the queries with the same shape share one Hibernate query plan and one
+ * SQL statement, which can be reused by the JDBC statement cache and the database.
+ */
+public class QueryTemplateCache {
+	private final int maxSize;
+	
+	private final Map<String, String> templates;
+	
+	private AtomicLong hits = new AtomicLong();
+	
+	private AtomicLong misses = new AtomicLong();
+	
+	/**
+	 * Creates a cache holding up to the given number of templates
+	 * @param maxSize	the maximum number of templates
+	 */
+	public QueryTemplateCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.templates = new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > QueryTemplateCache.this.maxSize;
+			}
+		};
+	}
+	
+	/**
+	 * Returns the template for the given shape, building it if it's not cached
+	 * @param shape	the shape of the query
+	 * @param builder	builds the template on a miss
+	 * @return
+	 */
+	public String get(String shape, Supplier<String> builder) {
+		synchronized (templates) {
+			String template = templates.get(shape);
+			if (template != null) {
+				hits.incrementAndGet();
+				return template;
+			}
+		}
+		
+		// Built outside the lock, two threads missing on the same shape
+		// build the same template
+		misses.incrementAndGet();
+		String template = builder.get();
+		synchronized (templates) {
+			templates.put(shape, template);
+		}
+		return template;
+	}
+	
+	/**
+	 * Returns the number of templates in the cache
+	 * @return
+	 */
+	public int size() {
+		synchronized (templates) {
+			return templates.size();
+		}
+	}
+	
+	public long getHits() {
+		return hits.get();
+	}
+	
+	public long getMisses() {
+		return misses.get();
+	}
+	
+	/**
+	 * Returns the fraction of lookups that found the template in the cache
+	 * @return the hit rate, between 0 and 1, or 0 if the cache was never used
+	 */
+	public double getHitRate() {
+		long h = hits.get();
+		long total = h + misses.get();
+		return total == 0 ? 0 : (double)h / total;
+	}
+}
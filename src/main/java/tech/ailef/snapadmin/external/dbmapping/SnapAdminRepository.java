@@ -20,41 +20,57 @@
 
 package tech.ailef.snapadmin.external.dbmapping;
 
-import java.sql.ResultSetMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.TransientDataAccessResourceException;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import jakarta.persistence.PersistenceException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
-import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import tech.ailef.snapadmin.external.SnapAdmin;
+import tech.ailef.snapadmin.external.SnapAdminProperties;
 import tech.ailef.snapadmin.external.annotations.ReadOnly;
+import tech.ailef.snapadmin.external.dbmapping.autocomplete.AutocompleteIndexer;
+import tech.ailef.snapadmin.external.dbmapping.blob.ThumbnailCache;
+import tech.ailef.snapadmin.external.dbmapping.count.RowCounter;
+import tech.ailef.snapadmin.external.dbmapping.facet.FacetCounter;
 import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
-import tech.ailef.snapadmin.external.dbmapping.query.DbQueryOutputField;
 import tech.ailef.snapadmin.external.dbmapping.query.DbQueryResult;
 import tech.ailef.snapadmin.external.dbmapping.query.DbQueryResultRow;
+import tech.ailef.snapadmin.external.dto.DeleteResult;
+import tech.ailef.snapadmin.external.dto.FacetResult;
 import tech.ailef.snapadmin.external.dto.FacetedSearchRequest;
+import tech.ailef.snapadmin.external.dto.KeysetCursor;
 import tech.ailef.snapadmin.external.dto.PaginatedResult;
 import tech.ailef.snapadmin.external.dto.PaginationInfo;
 import tech.ailef.snapadmin.external.dto.QueryFilter;
+import tech.ailef.snapadmin.external.dto.RowCount;
+import tech.ailef.snapadmin.external.dto.RowCountMode;
 import tech.ailef.snapadmin.external.exceptions.InvalidPageException;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
 
@@ -69,6 +85,28 @@ public class SnapAdminRepository {
 	@Autowired
 	private SnapAdmin snapAdmin;
 	
+	@Autowired
+	private SnapAdminProperties properties;
+	
+	@Autowired
+	private RowCounter rowCounter;
+	
+	@Autowired
+	private AutocompleteIndexer autocompleteIndexer;
+	
+	@Autowired
+	private FacetCounter facetCounter;
+	
+	@Autowired
+	private ThumbnailCache thumbnails;
+	
+	@Autowired
+	private Validator validator;
+	
+	@Autowired
+	@Qualifier("transactionManager")
+	private PlatformTransactionManager transactionManager;
+	
 	public SnapAdminRepository() {
 	}
 
@@ -95,6 +133,38 @@ public class SnapAdminRepository {
 		return schema.getJpaRepository().count();
 	}
 	
+	/**
+	 * Returns the number of rows in the schema, computed according to
+	 * the configured {@link RowCountMode}, so it might be an estimate
+	 * @param schema
+	 * @return
+	 */
+	public RowCount countRows(DbObjectSchema schema) {
+		return rowCounter.count(schema);
+	}
+	
+	/**
+	 * Returns the number of rows for each of the given schemas, computed
+	 * concurrently. Counts that take too long are mapped to null.
+	 * @param schemas
+	 * @return a map from class name to row count
+	 */
+	public Map<String, RowCount> countRows(List<DbObjectSchema> schemas) {
+		return rowCounter.countAll(schemas);
+	}
+	
+	/**
+	 * Returns the values of the categorical filters of the schema, with the 
+	 * number of rows matching the search query and the other filters
+	 * @param schema
+	 * @param query
+	 * @param queryFilters
+	 * @return a map from the Java name of each categorical field to its values
+	 */
+	public Map<String, FacetResult> facets(DbObjectSchema schema, String query, Set<QueryFilter> queryFilters) {
+		return facetCounter.facets(schema, query, queryFilters);
+	}
+	
 	/**
 	 * Counts the elements that match the fuzzy search
 	 * @param schema
@@ -113,6 +183,66 @@ public class SnapAdminRepository {
 			.toList();
 	}
 	
+	/**
+	 * Iterates over all the objects matching the search, without loading them
+	 * all in memory at once. Rows are read through a database cursor and the
+	 * persistence context is cleared every {@code snapadmin.exportFetchSize} rows,
+	 * so memory usage stays constant regardless of the size of the table.
+	 * 
+	 * If the names of the fields that will be read are given, only those columns
+	 * are selected, and foreign keys are resolved with one query per field every
+	 * {@code snapadmin.exportFetchSize} rows.
+	 * 
+	 * @param schema	the schema to search
+	 * @param query	the fuzzy search query
+	 * @param queryFilters	the filters to apply
+	 * @param fields	the names of the fields read from each object, null if all of them may be read
+	 * @param consumer	the callback invoked on each object, in order
+	 * @return	the number of objects processed
+	 */
+	@Transactional(value = "transactionManager", readOnly = true)
+	public long forEach(DbObjectSchema schema, String query, Set<QueryFilter> queryFilters, List<String> fields,
+			Consumer<DbObject> consumer) {
+		CustomJpaRepository jpaRepository = schema.getJpaRepository();
+		int fetchSize = properties.getExportFetchSize();
+		
+		List<DbField> projection = exportProjection(schema, fields);
+		if (projection != null) {
+			long processed = 0;
+			try (Stream<ProjectedRow> stream = jpaRepository.streamRows(projection, query, queryFilters, fetchSize)) {
+				Iterator<ProjectedRow> iterator = stream.iterator();
+				List<ProjectedRow> chunk = new ArrayList<>();
+				while (iterator.hasNext()) {
+					chunk.add(iterator.next());
+					
+					if (chunk.size() == fetchSize || !iterator.hasNext()) {
+						jpaRepository.resolveForeignKeys(chunk, projection);
+						for (ProjectedRow row : chunk)
+							consumer.accept(new DbObject(row, schema));
+						
+						processed += chunk.size();
+						chunk.clear();
+						jpaRepository.clear();
+					}
+				}
+			}
+			return processed;
+		}
+		
+		long processed = 0;
+		try (Stream<Object> stream = jpaRepository.stream(query, queryFilters, fetchSize)) {
+			Iterator<Object> iterator = stream.iterator();
+			while (iterator.hasNext()) {
+				consumer.accept(new DbObject(iterator.next(), schema));
+				
+				if (++processed % fetchSize == 0)
+					jpaRepository.clear();
+			}
+		}
+		
+		return processed;
+	}
+	
 	
 	/**
 	 * Find all the objects in the schema. Only returns a single page of
@@ -126,39 +256,23 @@ public class SnapAdminRepository {
 	 */
 	@SuppressWarnings("rawtypes")
 	public PaginatedResult<DbObject> findAll(DbObjectSchema schema, int page, int pageSize, String sortKey, String sortOrder) {
-		SimpleJpaRepository repository = schema.getJpaRepository();
-		
-		long maxElement = count(schema);
+		RowCount rowCount = countRows(schema);
+		long maxElement = rowCount.getValue();
 		int maxPage = (int)(Math.ceil ((double)maxElement / pageSize));
 		
 		if (page <= 0) page = 1;
-		if (page > maxPage && maxPage != 0) {
+		if (page > maxPage && maxPage != 0 && !rowCount.isEstimated()) {
 			throw new InvalidPageException();
 		}
 		
-		Sort sort = null;
-		if (sortKey != null) {
-			sort = Sort.by(sortKey);
-		}
-		if (Objects.equals(sortOrder, "ASC")) {
-			sort = sort.ascending();
-		} else if (Objects.equals(sortOrder, "DESC")) {
-			sort = sort.descending();
-		}
-		PageRequest pageRequestion = null;
-		
-		if (sort != null) {
-			pageRequestion = PageRequest.of(page - 1, pageSize, sort);
-		} else {
-			pageRequestion = PageRequest.of(page - 1, pageSize);
-		}
-		
+		// Goes through the search query, with no query and no filters, so
+		// that foreign keys are fetched together with the rows
+		List<DbObject> results = searchObjects(schema, null, page, pageSize, sortKey, sortOrder, null);
 		
-		Page findAll = repository.findAll(pageRequestion);
-		List<DbObject> results = new ArrayList<>();
-		for (Object o : findAll) {
-			results.add(new DbObject(o, schema));
-		}
+		// Estimates can be lower than the actual count, so we
+		// allow to move past the estimated last page if it's full
+		if (rowCount.isEstimated() && page >= maxPage && results.size() == pageSize)
+			maxPage = page + 1;
 		
 		
 		return new PaginatedResult<DbObject>(
@@ -180,7 +294,6 @@ public class SnapAdminRepository {
 	@Transactional("transactionManager")
 	public void update(DbObjectSchema schema, Map<String, String> params, Map<String, MultipartFile> files) {
 		DbObject obj = schema.buildObject(params, files);
-		Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 		Set<ConstraintViolation<Object>> violations = validator.validate(obj.getUnderlyingInstance());
 		
 		if (violations.size() > 0) {
@@ -188,6 +301,16 @@ public class SnapAdminRepository {
 		}
 		
 		schema.getJpaRepository().update(schema, params, files);
+		facetCounter.invalidate(schema);
+		thumbnails.forget(schema.getClassName(), obj.getPrimaryKeyValue());
+		
+		// The object built from the form lacks the fields that have been kept or are
+		// read-only, so the item is read again to index the values actually stored.
+		// The update is a bulk statement, which doesn't change the loaded entities.
+		if (autocompleteIndexer.isIndexed(schema)) {
+			schema.getJpaRepository().clear();
+			findById(schema, obj.getPrimaryKeyValue()).ifPresent(autocompleteIndexer::update);
+		}
 	}
 	
 	@SuppressWarnings("unchecked")
@@ -246,7 +369,12 @@ public class SnapAdminRepository {
 	public Object create(DbObjectSchema schema, Map<String, String> values, Map<String, MultipartFile> files, String primaryKey) {
 		DbObject obj = schema.buildObject(values, files);
 		Object save = save(schema, obj);
-		return new DbObject(save, schema).getPrimaryKeyValue();
+		rowCounter.invalidate(schema);
+		facetCounter.invalidate(schema);
+		
+		DbObject saved = new DbObject(save, schema);
+		autocompleteIndexer.update(saved);
+		return saved.getPrimaryKeyValue();
 	}
 	
 	/**
@@ -257,8 +385,6 @@ public class SnapAdminRepository {
 	 */
 	public PaginatedResult<DbObject> search(DbObjectSchema schema, String query, int page, int pageSize, String sortKey, 
 			String sortOrder, Set<QueryFilter> queryFilters) {
-		CustomJpaRepository jpaRepository = schema.getJpaRepository();
-        
 		long maxElement = count(schema, query, queryFilters);
 		int maxPage = (int)(Math.ceil ((double)maxElement / pageSize));
 		
@@ -269,12 +395,171 @@ public class SnapAdminRepository {
 		
 		return new PaginatedResult<DbObject>(
 			new PaginationInfo(page, maxPage, pageSize, maxElement, query, new FacetedSearchRequest(queryFilters)), 
-			jpaRepository.search(query, page, pageSize, sortKey, sortOrder, queryFilters).stream()
+			searchObjects(schema, query, page, pageSize, sortKey, sortOrder, queryFilters)
+		);
+	}
+	
+	/**
+	 * Loads a page of objects for the list page, with a projection query if possible
+	 */
+	private List<DbObject> searchObjects(DbObjectSchema schema, String query, int page, int pageSize, String sortKey, 
+			String sortOrder, Set<QueryFilter> queryFilters) {
+		CustomJpaRepository jpaRepository = schema.getJpaRepository();
+		
+		List<DbField> projection = listProjection(schema, sortKey == null ? null : schema.getFieldByJavaName(sortKey));
+		if (projection != null) {
+			return jpaRepository.searchRows(projection, query, page, pageSize, sortKey, sortOrder, queryFilters).stream()
+				.map(r -> new DbObject(r, schema))
+				.toList();
+		}
+		
+		return jpaRepository.search(query, page, pageSize, sortKey, sortOrder, queryFilters).stream()
+			.map(o  -> new DbObject(o, schema))
+			.toList();
+	}
+	
+	/**
+	 * Returns the fields to select to render the rows of the list page, or null if
+	 * whole entities must be loaded, i.e. if projection queries are disabled or the
+	 * list shows computed columns, which are computed on the `@Entity` instance.
+	 * @param schema	the schema
+	 * @param sortField	the field used for sorting, can be null
+	 * @return
+	 */
+	private List<DbField> listProjection(DbObjectSchema schema, DbField sortField) {
+		if (!properties.isProjectionQueries() || !schema.getComputedColumnNames().isEmpty())
+			return null;
+		
+		List<DbField> fields = new ArrayList<>(schema.getSortedFields());
+		if (sortField != null)
+			fields.add(sortField);
+		return schema.getProjection(fields);
+	}
+	
+	/**
+	 * Returns the fields to select to export the given fields, or null if 
+	 * whole entities must be loaded (e.g. to export computed columns)
+	 * @param schema	the schema
+	 * @param fieldNames	the names of the exported fields, can be null
+	 * @return
+	 */
+	private List<DbField> exportProjection(DbObjectSchema schema, List<String> fieldNames) {
+		if (!properties.isProjectionQueries() || fieldNames == null)
+			return null;
+		
+		List<DbField> fields = new ArrayList<>();
+		for (String name : fieldNames) {
+			DbField field = schema.getFieldByName(name);
+			if (field == null) return null;
+			fields.add(field);
+		}
+		return schema.getProjection(fields);
+	}
+	
+	/**
+	 * Returns whether the list of objects in the schema can be paginated with
+	 * a keyset, when sorting on the given field. This requires the sort field to
+	 * be non-nullable, because NULLs can't be compared with the cursor value,
+	 * and not to be a relationship or binary field.
+	 * @param schema	the schema
+	 * @param sortKey	the Java name of the sort field, can be null
+	 * @return
+	 */
+	public boolean supportsKeyset(DbObjectSchema schema, String sortKey) {
+		if (sortKey == null) return true;
+		
+		DbField sortField = schema.getFieldByJavaName(sortKey);
+		if (sortField == null) return false;
+		if (sortField.isPrimaryKey()) return true;
+		
+		boolean nonNull = !sortField.isNullable() || sortField.getPrimitiveField().getType().isPrimitive();
+		return nonNull && sortField.isSettable() && !sortField.isBinary();
+	}
+	
+	/**
+	 * Keyset version of {@link #search(DbObjectSchema, String, int, int, String, String, Set)}.
+	 * It returns the page after (or before) the given cursor, without counting the
+	 * total number of results and without skipping the rows of the previous pages.
+	 * Use {@link #supportsKeyset(DbObjectSchema, String)} to check if it can be used.
+	 * 
+	 * @param schema	the schema to search
+	 * @param query	the fuzzy search query
+	 * @param page	the current page number, only used for display
+	 * @param pageSize	the number of results per page
+	 * @param sortKey	the Java name of the sort field, can be null
+	 * @param sortOrder	the sort order, ASC or DESC
+	 * @param queryFilters	the filters to apply
+	 * @param cursor	the opaque cursor of the current position, null for the first page
+	 * @param previous	whether to return the page before the cursor
+	 * @return
+	 */
+	public PaginatedResult<DbObject> seek(DbObjectSchema schema, String query, int page, int pageSize, String sortKey, 
+			String sortOrder, Set<QueryFilter> queryFilters, String cursor, boolean previous) {
+		CustomJpaRepository jpaRepository = schema.getJpaRepository();
+		
+		DbField primaryKey = schema.getPrimaryKey();
+		DbField sortField = sortKey == null ? null : schema.getFieldByJavaName(sortKey);
+		if (sortField != null && sortField.isPrimaryKey())
+			sortField = null;
+		
+		boolean descending = Objects.equals(sortOrder, "DESC");
+		
+		KeysetCursor position = null;
+		if (cursor != null && !cursor.isBlank()) {
+			position = KeysetCursor.decode(cursor, primaryKey, sortField);
+		} else {
+			page = 1;
+			previous = false;
+		}
+		
+		// We fetch one more row to know if there's another page in the same direction
+		List<DbObject> results;
+		List<DbField> projection = listProjection(schema, sortField);
+		if (projection != null) {
+			results = jpaRepository.seekRows(projection, query, queryFilters, sortField, descending, position, previous, pageSize + 1)
+				.stream()
+				.map(r -> new DbObject(r, schema))
+				.collect(Collectors.toList());
+		} else {
+			results = jpaRepository.seek(query, queryFilters, sortField, descending, position, previous, pageSize + 1)
+				.stream()
 				.map(o  -> new DbObject(o, schema))
-				.toList()
+				.collect(Collectors.toList());
+		}
+		
+		boolean hasMore = results.size() > pageSize;
+		if (hasMore) {
+			if (previous) results.remove(0);
+			else results.remove(results.size() - 1);
+		}
+		
+		boolean hasPrevious = previous ? hasMore : position != null;
+		boolean hasNext = previous ? true : hasMore;
+		
+		if (results.isEmpty()) {
+			hasPrevious = false;
+			hasNext = false;
+		}
+		
+		String previousCursor = hasPrevious ? toCursor(results.get(0), sortField).encode() : null;
+		String nextCursor = hasNext ? toCursor(results.get(results.size() - 1), sortField).encode() : null;
+		
+		return new PaginatedResult<DbObject>(
+			new PaginationInfo(Math.max(page, 1), pageSize, query, new FacetedSearchRequest(queryFilters), 
+				sortKey, sortOrder, previousCursor, nextCursor), 
+			results
 		);
 	}
 	
+	private KeysetCursor toCursor(DbObject object, DbField sortField) {
+		Object sortValue = null;
+		if (sortField != null) {
+			sortValue = object.get(sortField).getRawValue();
+		}
+		
+		return new KeysetCursor(sortValue, object.getPrimaryKeyValue());
+	}
+	
 	/**
 	 * Fuzzy search on primary key value and display name
 	 * @param schema
@@ -290,40 +575,110 @@ public class SnapAdminRepository {
 	}
 	
 	/**
-	 * Execute custom SQL query using jdbcTemplate
+	 * Executes a custom SQL query from the SQL console and returns a single page of results.
+	 * Rows are read with a forward-only cursor, {@code snapadmin.consoleFetchSize} at a time,
+	 * and only the rows in the requested page are kept in memory: the ones before it are
+	 * skipped. Reading stops at the first row after the page, so the total number of rows
+	 * is not known and the result only tells whether there are more. At most 
+	 * {@code snapadmin.consoleMaxRows} rows are read, in which case the result is marked 
+	 * as truncated.
+	 * @param sql	the SQL query
+	 * @param page	the page to return, starting from 1
+	 * @param pageSize	the number of rows in a page
+	 * @return the rows in the requested page
 	 */
-	public DbQueryResult executeQuery(String sql) {
-		List<DbQueryResultRow> results = new ArrayList<>();
-		if (sql != null && !sql.isBlank()) {
-			try {
-				results = jdbcTemplate.query(sql, (rs, rowNum) -> {
-					Map<DbQueryOutputField, Object> result = new HashMap<>();
-					
-					ResultSetMetaData metaData = rs.getMetaData();
-					int cols = metaData.getColumnCount();
-					
-					for (int i = 0; i < cols; i++) {
-						Object o = rs.getObject(i + 1);
-						String columnName = metaData.getColumnName(i + 1);
-						String tableName = metaData.getTableName(i + 1);
-						DbQueryOutputField field = new DbQueryOutputField(columnName, tableName, snapAdmin);
-						
-						result.put(field, o);
-					}
-					
-					DbQueryResultRow row = new DbQueryResultRow(result, sql);
-					
-					result.keySet().forEach(f -> {
-						f.setResult(row);
-					});
-					
-					return row;
-				});
-			} catch (TransientDataAccessResourceException e) {
-				// If there's an exception we leave the results as empty
-			}
+	@Transactional(value = "transactionManager", readOnly = true)
+	public DbQueryResult executeQuery(String sql, int page, int pageSize) {
+		if (sql == null || sql.isBlank())
+			return new DbQueryResult(sql);
+		
+		long startOffset = (long)(page - 1) * pageSize;
+		long endOffset = startOffset + pageSize;
+		
+		try {
+			return queryConsole(sql, properties.getConsoleMaxRows(), (result, rs, row) -> {
+				if (row >= endOffset)
+					return false;
+				if (row >= startOffset)
+					result.addRow(rs);
+				return true;
+			});
+		} catch (TransientDataAccessResourceException e) {
+			// If there's an exception we leave the results as empty
+			return new DbQueryResult(sql);
 		}
-		return new DbQueryResult(results);
+	}
+	
+	/**
+	 * Executes a custom SQL query from the SQL console and passes each row to the 
+	 * consumer as it is read, without holding the result set in memory. 
+	 * Used for exports, so all the rows are read: the {@code snapadmin.consoleMaxRows}
+	 * limit of the console page doesn't apply.
+	 * 
+	 * The row passed to the consumer is only valid until the consumer returns, 
+	 * since the same buffer is reused for the next row.
+	 * @param sql	the SQL query
+	 * @param consumer	the function called on each row
+	 * @return the number of rows read
+	 */
+	@Transactional(value = "transactionManager", readOnly = true)
+	public long forEachRow(String sql, Consumer<DbQueryResultRow> consumer) {
+		if (sql == null || sql.isBlank()) return 0;
+		
+		DbQueryResult result = queryConsole(sql, 0, (buffer, rs, row) -> {
+			buffer.clearRows();
+			buffer.addRow(rs);
+			consumer.accept(buffer.getRow(0));
+			return true;
+		});
+		return result.getTotalRows();
+	}
+	
+	/**
+	 * Runs a console query with the configured fetch size and timeout
+	 * @param sql	the SQL query
+	 * @param maxRows	the maximum number of rows to read, after which the result
+	 * 	is marked as truncated; 0 for no limit
+	 * @param handler	called for each row, with its index, up to the row limit
+	 * 	or until it returns false
+	 * @return the result built from the query metadata, with the rows
+	 * 	added by the handler, if any
+	 */
+	private DbQueryResult queryConsole(String sql, int maxRows, ConsoleRowHandler handler) {
+		return jdbcTemplate.query(con -> {
+			PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			ps.setFetchSize(properties.getConsoleFetchSize());
+			// One more than the limit, to know if the results have been truncated
+			if (maxRows > 0 && maxRows < Integer.MAX_VALUE)
+				ps.setMaxRows(maxRows + 1);
+			if (properties.getConsoleQueryTimeout() > 0)
+				ps.setQueryTimeout(properties.getConsoleQueryTimeout());
+			return ps;
+		}, (ResultSetExtractor<DbQueryResult>) rs -> {
+			// Column metadata is resolved once for the whole result set
+			DbQueryResult result = new DbQueryResult(rs.getMetaData(), sql, snapAdmin);
+			
+			long row = 0;
+			while (rs.next()) {
+				if (maxRows > 0 && row >= maxRows) {
+					result.setTruncated(true);
+					break;
+				}
+				if (!handler.handle(result, rs, row)) {
+					result.setHasMore(true);
+					break;
+				}
+				row++;
+			}
+			
+			result.setTotalRows(row);
+			return result;
+		});
+	}
+	
+	@FunctionalInterface
+	private interface ConsoleRowHandler {
+		boolean handle(DbQueryResult result, ResultSet rs, long row) throws SQLException;
 	}
 	
 	/**
@@ -335,6 +690,67 @@ public class SnapAdminRepository {
 	@Transactional("transactionManager")
 	public void delete(DbObjectSchema schema, String id) {
 		schema.getJpaRepository().deleteById(id);
+		rowCounter.invalidate(schema);
+		facetCounter.invalidate(schema);
+		thumbnails.forget(schema.getClassName(), id);
+		autocompleteIndexer.remove(schema, id);
+	}
+	
+	/**
+	 * Deletes multiple objects, in chunks of {@code snapadmin.deleteChunkSize} items
+	 * deleted with a single statement, each chunk in its own transaction. If a chunk
+	 * fails (e.g. because some items are still referenced by other tables), its items
+	 * are deleted one by one, so that only the ones that fail are reported.
+	 * @param schema
+	 * @param ids	the primary keys of the objects to delete
+	 * @return the ids that have been deleted and the errors for the ones that failed
+	 */
+	@SuppressWarnings("unchecked")
+	public DeleteResult deleteAll(DbObjectSchema schema, String[] ids) {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		CustomJpaRepository jpaRepository = schema.getJpaRepository();
+		DeleteResult result = new DeleteResult();
+		
+		Map<String, Object> primaryKeys = new LinkedHashMap<>();
+		for (String id : ids) {
+			try {
+				primaryKeys.put(id, schema.getPrimaryKey().getType().parseValue(id));
+			} catch (Exception e) {
+				result.addError(id, "Invalid primary key value `" + id + "`");
+			}
+		}
+		
+		List<String> keys = new ArrayList<>(primaryKeys.keySet());
+		int chunkSize = Math.max(1, properties.getDeleteChunkSize());
+		for (int i = 0; i < keys.size(); i += chunkSize) {
+			List<String> chunk = keys.subList(i, Math.min(i + chunkSize, keys.size()));
+			List<Object> values = chunk.stream().map(primaryKeys::get).toList();
+			
+			try {
+				int deleted = template.execute(status -> jpaRepository.deleteAllByIds(values));
+				result.addDeleted(chunk, deleted);
+			} catch (DataAccessException | PersistenceException e) {
+				for (String id : chunk) {
+					try {
+						template.executeWithoutResult(status -> jpaRepository.deleteById(primaryKeys.get(id)));
+						result.addDeleted(List.of(id), 1);
+					} catch (DataAccessException | PersistenceException rowException) {
+						result.addError(id, rowException.getMessage());
+					}
+				}
+			}
+		}
+		
+		if (!result.getDeletedIds().isEmpty()) {
+			rowCounter.invalidate(schema);
+			facetCounter.invalidate(schema);
+			for (String id : result.getDeletedIds()) {
+				thumbnails.forget(schema.getClassName(), id);
+				autocompleteIndexer.remove(schema, id);
+			}
+		}
+		
+		return result;
 	}
 	
 }
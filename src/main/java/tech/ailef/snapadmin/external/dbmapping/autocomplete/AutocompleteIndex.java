@@ -0,0 +1,190 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import tech.ailef.snapadmin.external.dto.AutocompleteSearchResult;
+
+/**
+ * An immutable in-memory index over the primary key and display name of all
+ * the items of an `@Entity` class. Display names are matched by substring: 
+ * queries of at least three characters are answered by intersecting the lists 
+ * of items containing each trigram of the query, while shorter queries scan
+ * the display names directly.
+ */
+public class AutocompleteIndex {
+	private Object[] ids;
+	
+	/**
+	 * The primary keys converted to string, to match exact ID queries
+	 */
+	private String[] idStrings;
+	
+	/**
+	 * Item positions by primary key, converted to string
+	 */
+	private Map<String, Integer> positions;
+	
+	private String[] values;
+	
+	/**
+	 * The lowercase display names, which queries are matched against
+	 */
+	private String[] keys;
+	
+	/**
+	 * For each trigram, the sorted positions of the items that contain it
+	 */
+	private Map<Long, int[]> trigrams;
+	
+	/**
+	 * Builds the index from the given items
+	 * @param items	the items, as ID and display name pairs
+	 */
+	public AutocompleteIndex(List<AutocompleteSearchResult> items) {
+		int size = items.size();
+		this.ids = new Object[size];
+		this.idStrings = new String[size];
+		this.values = new String[size];
+		this.keys = new String[size];
+		this.positions = new HashMap<>(size * 4 / 3 + 1);
+		
+		Map<Long, IntList> postings = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			AutocompleteSearchResult item = items.get(i);
+			ids[i] = item.getId();
+			idStrings[i] = String.valueOf(item.getId());
+			positions.put(idStrings[i], i);
+			values[i] = item.getValue();
+			keys[i] = item.getValue() == null ? "" : item.getValue().toLowerCase(Locale.ROOT);
+			
+			String key = keys[i];
+			for (int j = 0; j + 3 <= key.length(); j++) {
+				IntList list = postings.computeIfAbsent(trigram(key, j), k -> new IntList());
+				// Avoid duplicates when the same trigram appears more than once
+				if (list.size == 0 || list.values[list.size - 1] != i)
+					list.add(i);
+			}
+		}
+		
+		this.trigrams = new HashMap<>(postings.size() * 4 / 3 + 1);
+		for (Entry<Long, IntList> e : postings.entrySet()) {
+			trigrams.put(e.getKey(), e.getValue().toArray());
+		}
+	}
+	
+	/**
+	 * Returns the items whose display name contains the query, or whose primary
+	 * key is equal to the query, with the latter first
+	 * @param query	the query
+	 * @param limit	the maximum number of results
+	 * @param exclude	IDs, as strings, to leave out of the results
+	 * @return
+	 */
+	public List<AutocompleteSearchResult> search(String query, int limit, Set<String> exclude) {
+		List<AutocompleteSearchResult> results = new ArrayList<>();
+		if (query == null) return results;
+		
+		String q = query.toLowerCase(Locale.ROOT);
+		
+		int exactId = positions.getOrDefault(query, -1);
+		if (exactId >= 0 && !exclude.contains(query))
+			results.add(new AutocompleteSearchResult(ids[exactId], values[exactId]));
+		
+		if (q.length() < 3) {
+			for (int i = 0; i < keys.length && results.size() < limit; i++) {
+				if (i != exactId && keys[i].contains(q) && !exclude.contains(idStrings[i]))
+					results.add(new AutocompleteSearchResult(ids[i], values[i]));
+			}
+			return results;
+		}
+		
+		// Start from the shortest posting list, then check the candidates
+		int[] candidates = null;
+		for (int j = 0; j + 3 <= q.length(); j++) {
+			int[] list = trigrams.get(trigram(q, j));
+			if (list == null) return results;
+			if (candidates == null || list.length < candidates.length)
+				candidates = list;
+		}
+		
+		for (int i : candidates) {
+			if (results.size() >= limit) break;
+			if (i != exactId && keys[i].contains(q) && !exclude.contains(idStrings[i]))
+				results.add(new AutocompleteSearchResult(ids[i], values[i]));
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Estimates the heap used by an item in the index: its primary key (as object
+	 * and string), its display name (as is and lowercase), the table and map entries
+	 * pointing to them and a posting for each of its trigrams. Strings are counted
+	 * at two bytes per character, so the estimate errs on the high side.
+	 * @param item	the item
+	 * @return	the estimated size in bytes
+	 */
+	public static long estimateSize(AutocompleteSearchResult item) {
+		int idLength = String.valueOf(item.getId()).length();
+		int valueLength = item.getValue() == null ? 0 : item.getValue().length();
+		
+		return 200 + 2L * idLength + 4L * valueLength + 4L * Math.max(0, valueLength - 2);
+	}
+	
+	/**
+	 * Returns the number of items in the index
+	 * @return
+	 */
+	public int size() {
+		return ids.length;
+	}
+	
+	private static long trigram(String s, int offset) {
+		return ((long)s.charAt(offset) << 32) | ((long)s.charAt(offset + 1) << 16) | s.charAt(offset + 2);
+	}
+	
+	/**
+	 * A growable list of ints, to avoid boxing while building the index
+	 */
+	private static class IntList {
+		private int[] values = new int[4];
+		
+		private int size = 0;
+		
+		public void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+		
+		public int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
@@ -0,0 +1,315 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.autocomplete;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import tech.ailef.snapadmin.external.SnapAdminProperties;
+import tech.ailef.snapadmin.external.dbmapping.CustomJpaRepository;
+import tech.ailef.snapadmin.external.dbmapping.DbObject;
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dto.AutocompleteSearchResult;
+
+/**
+ * Keeps an {@link AutocompleteIndex} for each `@Entity` class used in autocomplete
+ * requests, if enabled with {@code snapadmin.autocompleteIndex}. Indexes are built
+ * in background the first time they are needed, and rebuilt periodically to pick up
+ * changes made outside SnapAdmin. Changes made through SnapAdmin are applied
+ * on top of the current index as soon as they are committed.
+ * 
+ * The changes are scanned on every search, so once they are more than
+ * {@link #MAX_CHANGES} the index is rebuilt without waiting for the next refresh.
+ * 
+ * Until an index is ready, or if the table has more items than
+ * {@code snapadmin.autocompleteIndexMaxEntries} or its index is estimated 
+ * to take more than {@code snapadmin.autocompleteIndexMaxMemory} megabytes,
+ * searches return null and the caller should fall back to the database.
+ */
+@Component
+public class AutocompleteIndexer {
+	private static final Logger logger = LoggerFactory.getLogger(AutocompleteIndexer.class);
+	
+	/**
+	 * The number of changes kept on top of an index before it's rebuilt
+	 */
+	static final int MAX_CHANGES = 1000;
+	
+	@Autowired
+	private SnapAdminProperties properties;
+	
+	@Autowired
+	@Qualifier("transactionManager")
+	private PlatformTransactionManager transactionManager;
+	
+	private Map<String, SchemaIndex> indexes = new ConcurrentHashMap<>();
+	
+	/**
+	 * Incremented on each change, to know which changes
+	 * are already included in a rebuilt index
+	 */
+	private AtomicLong sequence = new AtomicLong();
+	
+	private ScheduledExecutorService executor;
+	
+	/**
+	 * Searches the index of the given schema
+	 * @param schema	the schema
+	 * @param query	the query
+	 * @param limit	the maximum number of results
+	 * @return the matching items, or null if the index is not available
+	 */
+	public List<AutocompleteSearchResult> search(DbObjectSchema schema, String query, int limit) {
+		if (!properties.isAutocompleteIndex()) return null;
+		
+		SchemaIndex index = indexes.computeIfAbsent(schema.getClassName(), k -> {
+			SchemaIndex i = new SchemaIndex();
+			scheduleBuild(schema, i);
+			return i;
+		});
+		
+		AutocompleteIndex base = index.base;
+		if (base == null) return null;
+		
+		List<AutocompleteSearchResult> results = base.search(query, limit, index.changes.keySet());
+		
+		String q = query.toLowerCase(Locale.ROOT);
+		for (Change change : index.changes.values()) {
+			if (results.size() >= limit) break;
+			if (change.item == null) continue;
+			
+			String value = change.item.getValue();
+			if (String.valueOf(change.item.getId()).equals(query)
+					|| (value != null && value.toLowerCase(Locale.ROOT).contains(q)))
+				results.add(change.item);
+		}
+		
+		return results;
+	}
+	
+	/**
+	 * Returns whether there's an index for the schema, i.e. whether
+	 * changes to its items need to be applied
+	 * @param schema	the schema
+	 * @return
+	 */
+	public boolean isIndexed(DbObjectSchema schema) {
+		return indexes.containsKey(schema.getClassName());
+	}
+	
+	/**
+	 * Updates the index after an item has been created or edited. If called
+	 * within a transaction, the change is applied after it commits.
+	 * @param object	the item
+	 */
+	public void update(DbObject object) {
+		SchemaIndex index = indexes.get(object.getSchema().getClassName());
+		if (index == null) return;
+		
+		try {
+			AutocompleteSearchResult item = new AutocompleteSearchResult(object);
+			afterCommit(() -> addChange(object.getSchema(), index, String.valueOf(item.getId()), item));
+		} catch (RuntimeException e) {
+			// The change will be picked up by the next rebuild
+			logger.debug("Unable to update autocomplete index for " + object.getSchema().getClassName() + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Updates the index after an item has been deleted. If called
+	 * within a transaction, the change is applied after it commits.
+	 * @param schema	the schema of the item
+	 * @param id	the primary key of the item
+	 */
+	public void remove(DbObjectSchema schema, Object id) {
+		SchemaIndex index = indexes.get(schema.getClassName());
+		if (index == null) return;
+		
+		afterCommit(() -> addChange(schema, index, String.valueOf(id), null));
+	}
+	
+	/**
+	 * Records a change to the index, and starts rebuilding it if there are too many
+	 * @param item	the new item, null if deleted
+	 */
+	private void addChange(DbObjectSchema schema, SchemaIndex index, String id, AutocompleteSearchResult item) {
+		index.changes.put(id, new Change(item, sequence.incrementAndGet()));
+		
+		if (index.changes.size() > MAX_CHANGES && index.rebuildPending.compareAndSet(false, true))
+			executor.execute(() -> build(schema, index));
+	}
+	
+	/**
+	 * Runs the action after the current transaction commits, or immediately if there's 
+	 * no transaction. Changes get their sequence number only once committed: a rebuild 
+	 * that started earlier can't see them, so it must not discard them, and one that 
+	 * starts later reads them from the database.
+	 */
+	private void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+	
+	/**
+	 * Rebuilds the index of the schema, if it exists, after
+	 * too many changes to track them one by one (e.g. an import)
+	 * @param schema	the schema
+	 */
+	public void rebuild(DbObjectSchema schema) {
+		SchemaIndex index = indexes.get(schema.getClassName());
+		if (index == null) return;
+		
+		executor.execute(() -> build(schema, index));
+	}
+	
+	private synchronized void scheduleBuild(DbObjectSchema schema, SchemaIndex index) {
+		if (executor == null) {
+			executor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread t = new Thread(r, "snapadmin-autocomplete-index");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		
+		executor.execute(() -> build(schema, index));
+		
+		int refresh = properties.getAutocompleteIndexRefreshInterval();
+		if (refresh > 0)
+			executor.scheduleWithFixedDelay(() -> build(schema, index), refresh, refresh, TimeUnit.SECONDS);
+	}
+	
+	/**
+	 * Reads all the items of the schema and replaces the current index.
+	 * Changes made during the build are kept on top of the new index.
+	 */
+	private void build(DbObjectSchema schema, SchemaIndex index) {
+		int maxEntries = properties.getAutocompleteIndexMaxEntries();
+		long maxBytes = properties.getAutocompleteIndexMaxMemory() * 1024L * 1024L;
+		long startSequence = sequence.get();
+		index.rebuildPending.set(false);
+		
+		try {
+			TransactionTemplate template = new TransactionTemplate(transactionManager);
+			template.setReadOnly(true);
+			
+			List<AutocompleteSearchResult> items = template.execute(status -> {
+				CustomJpaRepository repository = schema.getJpaRepository();
+				if (repository.count() > maxEntries)
+					return null;
+				
+				List<AutocompleteSearchResult> result = new ArrayList<>();
+				long bytes = 0;
+				int fetchSize = properties.getExportFetchSize();
+				try (Stream<Object> stream = repository.stream(null, null, fetchSize)) {
+					Iterator<Object> iterator = stream.iterator();
+					while (iterator.hasNext()) {
+						if (result.size() >= maxEntries) return null;
+						
+						AutocompleteSearchResult item = new AutocompleteSearchResult(new DbObject(iterator.next(), schema));
+						bytes += AutocompleteIndex.estimateSize(item);
+						if (bytes > maxBytes) return null;
+						
+						result.add(item);
+						if (result.size() % fetchSize == 0)
+							repository.clear();
+					}
+				}
+				return result;
+			});
+			
+			if (items == null) {
+				logger.info("Autocomplete index for " + schema.getClassName() + " not built: more than " 
+					+ maxEntries + " items or " + properties.getAutocompleteIndexMaxMemory() + " MB");
+				index.base = null;
+				// Searches go to the database, which already has these changes
+				index.changes.values().removeIf(c -> c.sequence <= startSequence);
+				return;
+			}
+			
+			index.base = new AutocompleteIndex(items);
+			index.changes.values().removeIf(c -> c.sequence <= startSequence);
+			logger.debug("Built autocomplete index for " + schema.getClassName() + " with " + items.size() + " items");
+		} catch (RuntimeException e) {
+			logger.warn("Unable to build autocomplete index for " + schema.getClassName() + ": " + e.getMessage());
+		}
+	}
+	
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (executor != null)
+			executor.shutdownNow();
+	}
+	
+	private static class SchemaIndex {
+		private volatile AutocompleteIndex base;
+		
+		/**
+		 * Items created, edited or deleted (with a null item)
+		 * after the base index was built, by primary key
+		 */
+		private Map<String, Change> changes = new ConcurrentHashMap<>();
+		
+		/**
+		 * Whether a rebuild, started because of too many changes, hasn't begun yet
+		 */
+		private AtomicBoolean rebuildPending = new AtomicBoolean();
+	}
+	
+	private static class Change {
+		private AutocompleteSearchResult item;
+		
+		private long sequence;
+		
+		public Change(AutocompleteSearchResult item, long sequence) {
+			this.item = item;
+			this.sequence = sequence;
+		}
+	}
+}
@@ -0,0 +1,169 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.blob;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+
+/**
+ * The content of a binary field, read from the database without loading
+ * the rest of the row. If the JDBC driver returns the column as a {@link Blob}
+ * the content is read lazily, otherwise (e.g. `bytea` on PostgreSQL) it has 
+ * already been fetched by the driver and it is served from memory.
+ * 
+ * Instances are only valid within the callback that receives them, since 
+ * they are backed by an open connection.
+ */
+public class BinaryContent {
+	private static final int DIGEST_BUFFER_SIZE = 65536;
+	
+	private Blob blob;
+	
+	private byte[] bytes;
+	
+	private long length;
+	
+	/**
+	 * The value of the `@Version` field of the item, if it has one
+	 */
+	private Object version;
+	
+	private String fingerprint;
+	
+	BinaryContent(Blob blob, Object version) throws SQLException {
+		this.blob = blob;
+		this.length = blob.length();
+		this.version = version;
+	}
+	
+	BinaryContent(byte[] bytes, Object version) {
+		this.bytes = bytes;
+		this.length = bytes.length;
+		this.version = version;
+	}
+	
+	/**
+	 * Returns the size of the content in bytes
+	 * @return
+	 */
+	public long getLength() {
+		return length;
+	}
+	
+	/**
+	 * Returns whether the item has a `@Version` field, in which case 
+	 * the fingerprint is available without reading the content
+	 * @return
+	 */
+	public boolean isVersioned() {
+		return version != null;
+	}
+	
+	/**
+	 * Returns a fingerprint of the content, which changes whenever the content
+	 * changes, meant for strong ETags and cache keys. If the item has a `@Version`
+	 * field the fingerprint is derived from its value, without reading the content,
+	 * otherwise it's a SHA-256 digest of the whole content, which is read unless
+	 * it has already been digested while copying it (see {@link #digested(MessageDigest)}).
+	 * @return
+	 */
+	public String getFingerprint() throws IOException {
+		if (fingerprint != null) return fingerprint;
+		
+		MessageDigest digest = newDigest();
+		if (version != null) {
+			digest.update(("version:" + version).getBytes(StandardCharsets.UTF_8));
+		} else {
+			byte[] buffer = new byte[DIGEST_BUFFER_SIZE];
+			try (InputStream in = stream(0, length)) {
+				int read;
+				while ((read = in.read(buffer)) != -1)
+					digest.update(buffer, 0, read);
+			}
+		}
+		
+		digested(digest);
+		return fingerprint;
+	}
+	
+	/**
+	 * Sets the fingerprint from a digest of the whole content, 
+	 * computed while the content was copied elsewhere
+	 * @param digest	a digest from {@link #newDigest()}, updated with all the bytes of the content
+	 */
+	void digested(MessageDigest digest) {
+		fingerprint = Long.toHexString(length) + "-" + HexFormat.of().formatHex(digest.digest());
+	}
+	
+	static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new SnapAdminException(e);
+		}
+	}
+	
+	/**
+	 * Reads a portion of the content in memory
+	 * @param offset	the (0-based) position of the first byte
+	 * @param size	the maximum number of bytes to read
+	 * @return	the bytes, possibly fewer than requested if the content is shorter
+	 */
+	public byte[] read(long offset, int size) throws IOException {
+		int count = (int)Math.max(0, Math.min(size, length - offset));
+		if (bytes != null)
+			return Arrays.copyOfRange(bytes, (int)offset, (int)offset + count);
+		
+		try {
+			return count == 0 ? new byte[0] : blob.getBytes(offset + 1, count);
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+	}
+	
+	/**
+	 * Opens a stream on a portion of the content
+	 * @param offset	the (0-based) position of the first byte
+	 * @param size	the number of bytes to stream
+	 * @return
+	 */
+	public InputStream stream(long offset, long size) throws IOException {
+		if (bytes != null)
+			return new ByteArrayInputStream(bytes, (int)offset, (int)size);
+		
+		try {
+			if (offset == 0 && size == length)
+				return blob.getBinaryStream();
+			return blob.getBinaryStream(offset + 1, size);
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+	}
+}
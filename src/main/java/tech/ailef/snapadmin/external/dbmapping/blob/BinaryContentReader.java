@@ -0,0 +1,123 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.blob;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.Types;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.Version;
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+
+/**
+ * Reads a single binary column of a single row, selecting only that column
+ * and streaming it from the database instead of loading the whole entity.
+ */
+@Component
+public class BinaryContentReader {
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	@Qualifier("transactionManager")
+	private PlatformTransactionManager transactionManager;
+	
+	/**
+	 * Callback that receives the content of the field while the
+	 * connection it is read from is still open
+	 */
+	@FunctionalInterface
+	public interface ContentHandler {
+		public void handle(BinaryContent content) throws IOException;
+	}
+	
+	/**
+	 * Reads the binary field of the item with the given primary key and passes its 
+	 * content to the handler. The whole operation runs in a read-only transaction,
+	 * which some drivers (e.g. PostgreSQL large objects) require to read blobs.
+	 * @param schema	the schema of the item
+	 * @param field	the binary field to read
+	 * @param id	the primary key of the item
+	 * @param handler	the handler for the content, not called if the field is null
+	 * @return	false if there's no item with the given primary key, true otherwise
+	 */
+	public boolean read(DbObjectSchema schema, DbField field, Object id, ContentHandler handler) {
+		DbField versionField = findVersionField(schema);
+		String sql = "SELECT " + field.getName() + (versionField == null ? "" : ", " + versionField.getName()) 
+			+ " FROM " + schema.getTableName() + " WHERE " + schema.getPrimaryKey().getName() + " = ?";
+		
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		template.setReadOnly(true);
+		
+		return template.execute(status -> {
+			return jdbcTemplate.execute(sql, (PreparedStatementCallback<Boolean>) ps -> {
+				ps.setObject(1, id);
+				try (ResultSet rs = ps.executeQuery()) {
+					if (!rs.next())
+						return false;
+					
+					Object version = versionField == null ? null : rs.getObject(2);
+					
+					BinaryContent content;
+					int columnType = rs.getMetaData().getColumnType(1);
+					if (columnType == Types.BLOB || columnType == Types.BIGINT) {
+						// BIGINT is how PostgreSQL reports `oid` (large object) columns
+						Blob blob = rs.getBlob(1);
+						content = blob == null ? null : new BinaryContent(blob, version);
+					} else {
+						byte[] bytes = rs.getBytes(1);
+						content = bytes == null ? null : new BinaryContent(bytes, version);
+					}
+					
+					if (content != null) {
+						try {
+							handler.handle(content);
+						} catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}
+					return true;
+				}
+			});
+		});
+	}
+	
+	/**
+	 * Returns the `@Version` field of the schema, if any
+	 */
+	private DbField findVersionField(DbObjectSchema schema) {
+		for (DbField field : schema.getFields()) {
+			if (field.getPrimitiveField() != null && field.getPrimitiveField().getAnnotation(Version.class) != null)
+				return field;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,479 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.blob;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import tech.ailef.snapadmin.external.SnapAdminProperties;
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+
+/**
+ * Generates thumbnails of `@DisplayImage` fields and keeps them in a directory
+ * on disk, bounded to {@code snapadmin.thumbnailCacheSize} megabytes by deleting 
+ * the least recently used ones.
+ * 
+ * Thumbnails are generated on a pool of {@code snapadmin.thumbnailThreads} threads,
+ * from a temporary copy of the original image, so that the database connection
+ * is not held while images are decoded. Concurrent requests for the same thumbnail
+ * wait for a single generation.
+ * 
+ * Thumbnails are keyed on the fingerprint of the original (see {@link BinaryContent#getFingerprint()}).
+ * For items without a `@Version` field, computing it means reading the whole original, so
+ * it's only computed while the original is copied to generate a thumbnail, and remembered
+ * for the item together with the length of the content. Later requests reuse it as long as
+ * the length is the same, without reading the content. Changes made through SnapAdmin 
+ * discard it, while changes made elsewhere that keep the same length are only picked up 
+ * once it's evicted (see {@code MAX_FINGERPRINTS}) or the application restarts.
+ */
+@Component
+public class ThumbnailCache {
+	private static final Logger logger = LoggerFactory.getLogger(ThumbnailCache.class);
+	
+	/**
+	 * The maximum number of thumbnails waiting to be generated, 
+	 * after which requests generate them on their own thread
+	 */
+	private static final int MAX_QUEUED = 100;
+	
+	private static final String TEMP_PREFIX = "tmp-";
+	
+	/**
+	 * The maximum number of originals remembered as not readable
+	 */
+	private static final int MAX_UNDECODABLE = 10000;
+	
+	/**
+	 * The maximum number of remembered fingerprints of items without a `@Version` field
+	 */
+	private static final int MAX_FINGERPRINTS = 10000;
+	
+	@Autowired
+	private SnapAdminProperties properties;
+	
+	private Path directory;
+	
+	private ThreadPoolExecutor executor;
+	
+	/**
+	 * The files in the cache with their size, in access order
+	 */
+	private Map<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+	
+	private long totalSize = 0;
+	
+	private Map<String, CompletableFuture<Path>> pending = new ConcurrentHashMap<>();
+	
+	/**
+	 * Keys of the originals that are not in a readable image format, so they
+	 * are not copied out of the database again each time they are requested
+	 */
+	private Set<String> undecodable = Collections.synchronizedSet(Collections.newSetFromMap(
+		new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+				return size() > MAX_UNDECODABLE;
+			}
+		}
+	));
+	
+	/**
+	 * The fingerprints of the originals without a `@Version` field, by item and field
+	 * (see {@link #itemKey(String, Object, String)}), in access order
+	 */
+	private Map<String, KnownFingerprint> fingerprints = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, KnownFingerprint> eldest) {
+			return size() > MAX_FINGERPRINTS;
+		}
+	};
+	
+	@PostConstruct
+	private void init() {
+		directory = Path.of(properties.getThumbnailCacheDir());
+		
+		try {
+			Files.createDirectories(directory);
+			
+			List<Path> files;
+			try (Stream<Path> stream = Files.list(directory)) {
+				files = stream.filter(Files::isRegularFile).toList();
+			}
+			
+			// Existing thumbnails are reused, oldest first so they are evicted first
+			files.stream().sorted(Comparator.comparing(this::lastModified)).forEach(file -> {
+				String name = file.getFileName().toString();
+				try {
+					if (name.startsWith(TEMP_PREFIX))
+						Files.deleteIfExists(file);
+					else
+						add(name, Files.size(file));
+				} catch (IOException e) {
+					// Skip the file, it will not be managed by the cache
+				}
+			});
+		} catch (IOException e) {
+			throw new SnapAdminException("Unable to initialize thumbnail cache in " + directory, e);
+		}
+		
+		int threads = Math.max(1, properties.getThumbnailThreads());
+		AtomicInteger counter = new AtomicInteger();
+		executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, 
+			new ArrayBlockingQueue<>(MAX_QUEUED),
+			r -> {
+				Thread t = new Thread(r, "snapadmin-thumbnails-" + counter.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}, 
+			new ThreadPoolExecutor.CallerRunsPolicy()
+		);
+	}
+	
+	/**
+	 * Returns the cached thumbnail for the given key, if present
+	 * @param key	a key identifying the original image and the thumbnail size
+	 * @return	the thumbnail file, or null if not cached
+	 */
+	public Path find(String key) {
+		String name = fileName(key);
+		synchronized (this) {
+			for (String ext : List.of(".jpg", ".png")) {
+				if (entries.get(name + ext) != null) {
+					Path file = directory.resolve(name + ext);
+					if (Files.exists(file))
+						return file;
+					remove(name + ext);
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns the key identifying a binary field of an item, which is the prefix
+	 * of the keys of its thumbnails
+	 * @param className	the class of the item
+	 * @param id	the primary key of the item
+	 * @param fieldName	the binary field
+	 * @return
+	 */
+	public static String itemKey(String className, Object id, String fieldName) {
+		return className + "/" + id + "/" + fieldName;
+	}
+	
+	/**
+	 * Returns the fingerprint of the content of the field, if it's available without
+	 * reading the content: either from the `@Version` field or remembered from the
+	 * last time a thumbnail was generated for the same item and length.
+	 * @param itemKey	the key of the field of the item, see {@link #itemKey(String, Object, String)}
+	 * @param content	the content of the field
+	 * @return	the fingerprint, or null if the content would have to be read
+	 */
+	public String findFingerprint(String itemKey, BinaryContent content) throws IOException {
+		if (content.isVersioned())
+			return content.getFingerprint();
+		
+		KnownFingerprint known;
+		synchronized (fingerprints) {
+			known = fingerprints.get(itemKey);
+		}
+		return known != null && known.length == content.getLength() ? known.fingerprint : null;
+	}
+	
+	/**
+	 * Remembers the fingerprint of a content that has been staged,
+	 * so that it's found by {@link #findFingerprint(String, BinaryContent)}
+	 * @param itemKey	the key of the field of the item
+	 * @param content	the staged content
+	 */
+	public void rememberFingerprint(String itemKey, BinaryContent content) throws IOException {
+		if (content.isVersioned()) return;
+		
+		KnownFingerprint known = new KnownFingerprint(content.getLength(), content.getFingerprint());
+		synchronized (fingerprints) {
+			fingerprints.put(itemKey, known);
+		}
+	}
+	
+	/**
+	 * Discards the remembered fingerprints of all the fields of an item,
+	 * after it has been edited or deleted
+	 * @param className	the class of the item
+	 * @param id	the primary key of the item
+	 */
+	public void forget(String className, Object id) {
+		String prefix = className + "/" + id + "/";
+		synchronized (fingerprints) {
+			fingerprints.keySet().removeIf(k -> k.startsWith(prefix));
+		}
+	}
+	
+	/**
+	 * Returns whether the original was already found to be in a format
+	 * that can't be decoded, in which case there's no thumbnail to generate
+	 * @param key	a key identifying the original image, including its fingerprint
+	 * @return
+	 */
+	public boolean isUndecodable(String key) {
+		return undecodable.contains(key);
+	}
+	
+	/**
+	 * Remembers that the original is in a format that can't be decoded
+	 * @param key	a key identifying the original image, including its fingerprint
+	 */
+	public void markUndecodable(String key) {
+		undecodable.add(key);
+	}
+	
+	/**
+	 * Copies the original image to a temporary file, from which the thumbnail can be
+	 * generated after the content is released. If the item doesn't have a `@Version` 
+	 * field, the fingerprint of the content is computed while copying it.
+	 * @param content	the original image
+	 * @return	the temporary file
+	 */
+	public Path stage(BinaryContent content) throws IOException {
+		Path file = Files.createTempFile(directory, TEMP_PREFIX, null);
+		MessageDigest digest = content.isVersioned() ? null : BinaryContent.newDigest();
+		try (InputStream in = content.stream(0, content.getLength())) {
+			Files.copy(digest == null ? in : new DigestInputStream(in, digest), file, StandardCopyOption.REPLACE_EXISTING);
+			if (digest != null)
+				content.digested(digest);
+		} catch (IOException e) {
+			Files.deleteIfExists(file);
+			throw e;
+		}
+		return file;
+	}
+	
+	/**
+	 * Deletes a staged image that is not needed to generate a thumbnail
+	 * @param staged	the staged original image
+	 */
+	public void discard(Path staged) {
+		delete(staged);
+	}
+	
+	/**
+	 * Generates the thumbnail for the given key from a staged image, which
+	 * is deleted afterwards, and adds it to the cache
+	 * @param key	a key identifying the original image and the thumbnail size
+	 * @param source	the staged original image
+	 * @param size	the maximum width and height of the thumbnail
+	 * @return	the thumbnail file, or null if the original is not in a readable image format
+	 */
+	public Path generate(String key, Path source, int size) {
+		String name = fileName(key);
+		
+		CompletableFuture<Path> created = new CompletableFuture<>();
+		CompletableFuture<Path> existing = pending.putIfAbsent(name, created);
+		if (existing != null) {
+			delete(source);
+			return join(existing);
+		}
+		
+		try {
+			executor.execute(() -> {
+				try {
+					Path thumbnail = render(name, source, size);
+					delete(source);
+					created.complete(thumbnail);
+				} catch (Throwable e) {
+					delete(source);
+					created.completeExceptionally(e);
+				}
+			});
+			return join(created);
+		} finally {
+			pending.remove(name, created);
+		}
+	}
+	
+	private Path render(String name, Path source, int size) throws IOException {
+		BufferedImage image;
+		try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+			Iterator<ImageReader> readers = in == null ? null : ImageIO.getImageReaders(in);
+			if (readers == null || !readers.hasNext())
+				return null;
+			
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(in, true, true);
+				
+				// Skip pixels while decoding large images, to avoid keeping the full size image in memory
+				int subsampling = Math.max(1, Math.max(reader.getWidth(0), reader.getHeight(0)) / (size * 2));
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				image = reader.read(0, param);
+			} finally {
+				reader.dispose();
+			}
+		}
+		
+		double scale = Math.min(1, (double)size / Math.max(image.getWidth(), image.getHeight()));
+		int width = Math.max(1, (int)Math.round(image.getWidth() * scale));
+		int height = Math.max(1, (int)Math.round(image.getHeight() * scale));
+		boolean alpha = image.getColorModel().hasAlpha();
+		
+		BufferedImage thumbnail = new BufferedImage(width, height, 
+				alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = thumbnail.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.drawImage(image, 0, 0, width, height, null);
+		} finally {
+			g.dispose();
+		}
+		
+		String format = alpha ? "png" : "jpg";
+		Path temp = Files.createTempFile(directory, TEMP_PREFIX, null);
+		try {
+			ImageIO.write(thumbnail, format, temp.toFile());
+			Path file = directory.resolve(name + "." + format);
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			synchronized (this) {
+				add(file.getFileName().toString(), Files.size(file));
+			}
+			return file;
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+	
+	/**
+	 * Adds a file to the cache, evicting the least recently used files if the maximum size is exceeded
+	 */
+	private synchronized void add(String fileName, long size) {
+		Long previous = entries.put(fileName, size);
+		totalSize += size - (previous == null ? 0 : previous);
+		
+		long maxSize = properties.getThumbnailCacheSize() * 1024L * 1024L;
+		Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+		while (totalSize > maxSize && it.hasNext()) {
+			Map.Entry<String, Long> eldest = it.next();
+			if (eldest.getKey().equals(fileName)) continue;
+			
+			totalSize -= eldest.getValue();
+			it.remove();
+			delete(directory.resolve(eldest.getKey()));
+		}
+	}
+	
+	private synchronized void remove(String fileName) {
+		Long size = entries.remove(fileName);
+		if (size != null)
+			totalSize -= size;
+	}
+	
+	private Path join(CompletableFuture<Path> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof IOException io)
+				throw new UncheckedIOException(io);
+			throw new SnapAdminException("Unable to generate thumbnail", e.getCause());
+		}
+	}
+	
+	private void delete(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException e) {
+			logger.warn("Unable to delete file " + file + ": " + e.getMessage());
+		}
+	}
+	
+	private long lastModified(Path file) {
+		try {
+			return Files.getLastModifiedTime(file).toMillis();
+		} catch (IOException e) {
+			return 0;
+		}
+	}
+	
+	/**
+	 * Returns the name of the file for a key, without extension
+	 */
+	private String fileName(String key) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(key.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			throw new SnapAdminException(e);
+		}
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+	
+	private static class KnownFingerprint {
+		private long length;
+		
+		private String fingerprint;
+		
+		public KnownFingerprint(long length, String fingerprint) {
+			this.length = length;
+			this.fingerprint = fingerprint;
+		}
+	}
+}
@@ -0,0 +1,521 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.bulk;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import tech.ailef.snapadmin.external.SnapAdminProperties;
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dbmapping.FieldAccessor;
+import tech.ailef.snapadmin.external.dbmapping.autocomplete.AutocompleteIndexer;
+import tech.ailef.snapadmin.external.dbmapping.count.RowCounter;
+import tech.ailef.snapadmin.external.dbmapping.facet.FacetCounter;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+import tech.ailef.snapadmin.external.dto.DataExportFormat;
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+import tech.ailef.snapadmin.external.exceptions.SnapAdminNotFoundException;
+
+/**
+ * Imports the rows of a CSV, JSONL or XLSX file, in the same format produced by the
+ * export, into an `@Entity` class. Imports run in background, one at a time, and
+ * their progress is tracked in an {@link ImportJob}.
+ * 
+ * The file is read as a stream and rows are inserted in chunks of 
+ * {@code snapadmin.importBatchSize}, each one in its own transaction and sent to
+ * the database as a JDBC batch, clearing the persistence context afterwards.
+ * Foreign keys are checked with one query per field and chunk, and the linked
+ * items that exist are cached for the rest of the import. If a chunk fails to
+ * insert, its rows are retried one at a time to find the ones causing the error.
+ * 
+ * In a dry run, all the checks and the inserts are performed, but
+ * the transactions are rolled back.
+ */
+@Component
+public class BulkImporter {
+	private static final Logger logger = LoggerFactory.getLogger(BulkImporter.class);
+	
+	/**
+	 * The number of finished imports kept to show their results
+	 */
+	private static final int MAX_FINISHED_JOBS = 20;
+	
+	/**
+	 * The maximum number of primary keys of linked items cached for each foreign key
+	 */
+	private static final int MAX_CACHED_IDS = 100_000;
+	
+	/**
+	 * Matches the foreign key values of non-raw exports, i.e. `id (display name)`
+	 */
+	private static final Pattern DISPLAY_VALUE = Pattern.compile("^(.+?) \\(.*\\)$", Pattern.DOTALL);
+	
+	@Autowired
+	private SnapAdminProperties properties;
+	
+	@Autowired
+	@Qualifier("transactionManager")
+	private PlatformTransactionManager transactionManager;
+	
+	@Autowired
+	private EntityManager entityManager;
+	
+	@Autowired
+	private Validator validator;
+	
+	@Autowired
+	private ObjectMapper mapper;
+	
+	@Autowired
+	private RowCounter rowCounter;
+	
+	@Autowired
+	private FacetCounter facetCounter;
+	
+	@Autowired
+	private AutocompleteIndexer autocompleteIndexer;
+	
+	private Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+	
+	private ExecutorService executor;
+	
+	/**
+	 * Starts importing the given file in background
+	 * @param schema	the schema to import the rows into
+	 * @param format	the format of the file
+	 * @param file	the uploaded file
+	 * @param dryRun	whether to roll back the changes at the end
+	 * @param onFinish	a callback invoked when the import has finished
+	 * @return the import job, to track the progress
+	 */
+	public ImportJob submit(DbObjectSchema schema, DataExportFormat format, MultipartFile file, boolean dryRun,
+			Consumer<ImportJob> onFinish) {
+		// The uploaded file is deleted at the end of the request,
+		// so we need our own copy to read it in background
+		Path path;
+		try {
+			path = Files.createTempFile("snapadmin-import-", "." + format.name().toLowerCase());
+			file.transferTo(path);
+		} catch (IOException e) {
+			throw new SnapAdminException("Unable to store the uploaded file: " + e.getMessage());
+		}
+		
+		ImportJob job = new ImportJob(schema.getClassName(), file.getOriginalFilename(), format, dryRun,
+				properties.getImportMaxErrors());
+		evictFinishedJobs();
+		jobs.put(job.getId(), job);
+		
+		getExecutor().execute(() -> {
+			try {
+				run(job, schema, path);
+			} finally {
+				try {
+					Files.deleteIfExists(path);
+				} catch (IOException e) {
+					logger.warn("Unable to delete temporary import file " + path + ": " + e.getMessage());
+				}
+				
+				job.finish();
+				onFinish.accept(job);
+			}
+		});
+		
+		return job;
+	}
+	
+	/**
+	 * Returns an import job
+	 * @param id	the id of the job
+	 * @return
+	 */
+	public ImportJob getJob(String id) {
+		ImportJob job = jobs.get(id);
+		if (job == null)
+			throw new SnapAdminNotFoundException("Import not found: " + id);
+		return job;
+	}
+	
+	private void run(ImportJob job, DbObjectSchema schema, Path file) {
+		ImportContext context = new ImportContext(schema, job);
+		List<ImportRow> chunk = new ArrayList<>();
+		int batchSize = properties.getImportBatchSize();
+		
+		try {
+			RecordReader.of(job.getFormat(), file, mapper).forEach(record -> {
+				job.addRow();
+				chunk.add(new ImportRow(job.getRows(), record));
+				
+				if (chunk.size() >= batchSize) {
+					importChunk(context, chunk);
+					chunk.clear();
+				}
+			});
+			
+			if (!chunk.isEmpty())
+				importChunk(context, chunk);
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Import into " + schema.getClassName() + " stopped at row " + job.getRows() + ": " + e.getMessage());
+			job.fail(e.getMessage());
+		}
+		
+		if (!job.isDryRun() && job.getImported() > 0) {
+			rowCounter.invalidate(schema);
+			facetCounter.invalidate(schema);
+			autocompleteIndexer.rebuild(schema);
+		}
+	}
+	
+	/**
+	 * Inserts a chunk of rows in a single transaction. If the insert fails, the 
+	 * rows are retried one at a time, so that only the failing ones are discarded.
+	 */
+	private void importChunk(ImportContext context, List<ImportRow> rows) {
+		TransactionTemplate template = new TransactionTemplate(transactionManager);
+		
+		try {
+			template.executeWithoutResult(status -> {
+				entityManager.unwrap(Session.class).setJdbcBatchSize(properties.getImportBatchSize());
+				
+				for (ImportRow row : prepare(context, rows))
+					entityManager.persist(row.instance);
+				
+				entityManager.flush();
+				entityManager.clear();
+				
+				if (context.job.isDryRun())
+					status.setRollbackOnly();
+			});
+		} catch (DataAccessException | PersistenceException | TransactionException e) {
+			if (rows.size() == 1) {
+				context.job.addError(rows.get(0).number, NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+			} else {
+				for (ImportRow row : rows)
+					importChunk(context, List.of(row));
+			}
+			return;
+		}
+		
+		long imported = 0;
+		for (ImportRow row : rows) {
+			if (row.error == null) imported++;
+			else context.job.addError(row.number, row.error);
+		}
+		context.job.addImported(imported);
+		
+		if (context.job.isDryRun())
+			context.rememberImportedKeys(rows);
+	}
+	
+	/**
+	 * Builds the `@Entity` instances for the rows, links them to the foreign
+	 * items and validates them. Rows with errors are excluded.
+	 * @return the rows ready to be inserted
+	 */
+	private List<ImportRow> prepare(ImportContext context, List<ImportRow> rows) {
+		for (ImportRow row : rows)
+			parse(context, row);
+		
+		linkForeignKeys(context, rows);
+		checkPrimaryKeys(context, rows);
+		
+		for (ImportRow row : rows) {
+			if (row.error != null) continue;
+			
+			Set<ConstraintViolation<Object>> violations = validator.validate(row.instance);
+			if (!violations.isEmpty()) {
+				row.error = violations.stream()
+					.map(v -> v.getPropertyPath() + ": " + v.getMessage())
+					.sorted()
+					.collect(Collectors.joining("; "));
+			}
+		}
+		
+		return rows.stream().filter(r -> r.error == null).toList();
+	}
+	
+	/**
+	 * Creates the instance for a row and sets the values of its columns,
+	 * except foreign keys which are collected to be checked in batch
+	 */
+	private void parse(ImportContext context, ImportRow row) {
+		DbObjectSchema schema = context.schema;
+		row.error = null;
+		row.links.clear();
+		
+		try {
+			row.instance = schema.getJavaClass().getConstructor().newInstance();
+		} catch (InstantiationException | IllegalAccessException | IllegalArgumentException | InvocationTargetException
+				| NoSuchMethodException | SecurityException e) {
+			throw new SnapAdminException(e);
+		}
+		
+		for (Entry<String, String> entry : row.values.entrySet()) {
+			DbField field = context.getField(entry.getKey());
+			String value = entry.getValue();
+			if (field == null || value == null) continue;
+			
+			try {
+				if (field.isToOne()) {
+					Matcher matcher = DISPLAY_VALUE.matcher(value);
+					if (matcher.matches())
+						value = matcher.group(1);
+					
+					Object id = field.getType().parseValue(value);
+					if (id != null)
+						row.links.put(field, id);
+				} else {
+					Object parsedValue = field.getType().parseValue(value);
+					if (parsedValue != null)
+						schema.getAccessor(field.getJavaName()).set(row.instance, parsedValue);
+				}
+			} catch (RuntimeException e) {
+				row.error = "Invalid value `" + value + "` for " + field.getName() + ": " + e.getMessage();
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Checks that the items referenced by the rows exist, with one query for
+	 * each foreign key, and sets references to them on the instances
+	 */
+	private void linkForeignKeys(ImportContext context, List<ImportRow> rows) {
+		for (DbField field : context.getForeignKeys()) {
+			boolean managed = context.schema.getSnapAdmin().isManagedClass(field.getConnectedType());
+			FieldAccessor accessor = context.schema.getAccessor(field.getJavaName());
+			Set<Object> existing = context.existingIds.computeIfAbsent(field, f -> new HashSet<>());
+			
+			Set<Object> unknown = rows.stream()
+				.filter(r -> r.error == null && r.links.containsKey(field))
+				.map(r -> r.links.get(field))
+				.filter(id -> !existing.contains(id))
+				.collect(Collectors.toSet());
+			
+			if (!unknown.isEmpty()) {
+				if (existing.size() + unknown.size() > MAX_CACHED_IDS)
+					existing.clear();
+				
+				// If the linked class is not managed by SnapAdmin,
+				// it's up to the database to check the reference
+				if (managed)
+					existing.addAll(field.getConnectedSchema().getJpaRepository().findExistingIds(unknown));
+				else
+					existing.addAll(unknown);
+			}
+			
+			for (ImportRow row : rows) {
+				Object id = row.links.get(field);
+				if (row.error != null || id == null) continue;
+				
+				if (!existing.contains(id)) {
+					row.error = "Invalid value " + id + " for " + field.getName() + ": item does not exist.";
+				} else {
+					accessor.set(row.instance, entityManager.getReference(field.getConnectedType(), id));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Checks that the primary keys of the rows are not repeated and not
+	 * already in use, unless they are generated by the database
+	 */
+	private void checkPrimaryKeys(ImportContext context, List<ImportRow> rows) {
+		DbField primaryKey = context.schema.getPrimaryKey();
+		if (primaryKey.isGeneratedValue()) return;
+		
+		FieldAccessor accessor = context.schema.getAccessor(primaryKey.getJavaName());
+		Map<Object, ImportRow> keys = new HashMap<>();
+		for (ImportRow row : rows) {
+			if (row.error != null) continue;
+			
+			Object key = accessor.get(row.instance);
+			if (key == null) {
+				row.error = "Missing value for primary key " + primaryKey.getName();
+			} else if (keys.containsKey(key)) {
+				row.error = "Duplicate primary key " + key + " (also used at row " + keys.get(key).number + ")";
+			} else if (context.importedKeys.containsKey(key)) {
+				row.error = "Duplicate primary key " + key + " (also used at row " + context.importedKeys.get(key) + ")";
+			} else {
+				keys.put(key, row);
+			}
+		}
+		
+		for (Object key : context.schema.getJpaRepository().findExistingIds(keys.keySet()))
+			keys.get(key).error = "An item with primary key " + key + " already exists";
+	}
+	
+	private void evictFinishedJobs() {
+		List<ImportJob> finished = jobs.values().stream()
+			.filter(ImportJob::isFinished)
+			.sorted(Comparator.comparing(ImportJob::getStartedAt).reversed())
+			.toList();
+		
+		for (int i = MAX_FINISHED_JOBS; i < finished.size(); i++)
+			jobs.remove(finished.get(i).getId());
+	}
+	
+	private synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newSingleThreadExecutor(r -> {
+				Thread t = new Thread(r, "snapadmin-import");
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return executor;
+	}
+	
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (executor != null)
+			executor.shutdownNow();
+	}
+	
+	/**
+	 * The state of an import shared across chunks
+	 */
+	private static class ImportContext {
+		private DbObjectSchema schema;
+		
+		private ImportJob job;
+		
+		/**
+		 * The field of each column in the file, or null for the ignored columns
+		 */
+		private Map<String, DbField> columns = new HashMap<>();
+		
+		/**
+		 * The primary keys of the linked items known to exist, for each foreign key
+		 */
+		private Map<DbField, Set<Object>> existingIds = new HashMap<>();
+		
+		/**
+		 * In a dry run, the primary keys of the rows imported by previous chunks,
+		 * with their row numbers. Their inserts are rolled back, so the database
+		 * can't report the duplicates in later chunks.
+		 */
+		private Map<Object, Long> importedKeys = new HashMap<>();
+		
+		public ImportContext(DbObjectSchema schema, ImportJob job) {
+			this.schema = schema;
+			this.job = job;
+		}
+		
+		/**
+		 * Remembers the primary keys of the rows of a chunk imported without errors
+		 */
+		public void rememberImportedKeys(List<ImportRow> rows) {
+			DbField primaryKey = schema.getPrimaryKey();
+			if (primaryKey.isGeneratedValue()) return;
+			
+			FieldAccessor accessor = schema.getAccessor(primaryKey.getJavaName());
+			for (ImportRow row : rows) {
+				if (row.error == null)
+					importedKeys.put(accessor.get(row.instance), row.number);
+			}
+		}
+		
+		/**
+		 * Returns the field for a column of the file, or null if the column is ignored
+		 * (computed columns, binary fields, generated primary keys and relationships
+		 * not owned by this entity)
+		 */
+		public DbField getField(String column) {
+			if (columns.containsKey(column))
+				return columns.get(column);
+			
+			DbField field = schema.getFieldByName(column);
+			if (field == null && !schema.getComputedColumnNames().contains(column))
+				throw new SnapAdminException("Unknown column `" + column + "` for table " + schema.getTableName());
+			
+			if (field != null && (field.isBinary() || (field.isPrimaryKey() && field.isGeneratedValue())
+					|| (!field.isSettable() && !field.isToOne())))
+				field = null;
+			
+			if (field == null)
+				job.addIgnoredColumn(column);
+			
+			columns.put(column, field);
+			return field;
+		}
+		
+		public List<DbField> getForeignKeys() {
+			return columns.values().stream().filter(f -> f != null && f.isToOne()).toList();
+		}
+	}
+	
+	/**
+	 * A row read from the file
+	 */
+	private static class ImportRow {
+		private long number;
+		
+		private Map<String, String> values;
+		
+		private Object instance;
+		
+		private Map<DbField, Object> links = new HashMap<>();
+		
+		private String error;
+		
+		public ImportRow(long number, Map<String, String> values) {
+			this.number = number;
+			this.values = values;
+		}
+	}
+}
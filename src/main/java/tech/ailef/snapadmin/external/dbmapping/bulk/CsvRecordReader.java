@@ -0,0 +1,80 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.bulk;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+/**
+ * Reads a CSV file with a header row, as produced by the export
+ */
+public class CsvRecordReader implements RecordReader {
+	private Path file;
+	
+	public CsvRecordReader(Path file) {
+		this.file = file;
+	}
+	
+	@Override
+	public void forEach(Consumer<Map<String, String>> consumer) throws IOException {
+		CSVFormat format = 
+			CSVFormat.DEFAULT.builder()
+					 .setHeader()
+					 .setSkipHeaderRecord(true)
+					 .setIgnoreEmptyLines(true)
+					 .build();
+		
+		try (CSVParser parser = new CSVParser(skipBom(Files.newBufferedReader(file, StandardCharsets.UTF_8)), format)) {
+			List<String> header = parser.getHeaderNames();
+			
+			for (CSVRecord record : parser) {
+				Map<String, String> values = new LinkedHashMap<>();
+				for (int i = 0; i < header.size(); i++) {
+					values.put(header.get(i), i < record.size() ? record.get(i) : null);
+				}
+				consumer.accept(values);
+			}
+		}
+	}
+	
+	/**
+	 * Skips the byte order mark that some spreadsheet
+	 * programs add at the start of the file
+	 */
+	private static Reader skipBom(Reader reader) throws IOException {
+		PushbackReader pushback = new PushbackReader(reader);
+		int first = pushback.read();
+		if (first != -1 && first != '\uFEFF')
+			pushback.unread(first);
+		return pushback;
+	}
+}
@@ -0,0 +1,215 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tech.ailef.snapadmin.external.dto.DataExportFormat;
+
+/**
+ * The state of an import running in background, polled by the
+ * UI to show the progress and the errors found so far
+ */
+public class ImportJob {
+	private String id = UUID.randomUUID().toString();
+	
+	private String className;
+	
+	private String fileName;
+	
+	private DataExportFormat format;
+	
+	private boolean dryRun;
+	
+	private long startedAt = System.currentTimeMillis();
+	
+	private volatile long finishedAt;
+	
+	private AtomicLong rows = new AtomicLong();
+	
+	private AtomicLong imported = new AtomicLong();
+	
+	private AtomicLong failed = new AtomicLong();
+	
+	/**
+	 * The error that stopped the import, if any
+	 */
+	private volatile String error;
+	
+	/**
+	 * The errors of single rows, up to {@code maxErrors}
+	 */
+	private List<RowError> errors = Collections.synchronizedList(new ArrayList<>());
+	
+	private int maxErrors;
+	
+	/**
+	 * The columns of the file that are not imported (e.g. computed columns)
+	 */
+	private List<String> ignoredColumns = Collections.synchronizedList(new ArrayList<>());
+	
+	public ImportJob(String className, String fileName, DataExportFormat format, boolean dryRun, int maxErrors) {
+		this.className = className;
+		this.fileName = fileName;
+		this.format = format;
+		this.dryRun = dryRun;
+		this.maxErrors = maxErrors;
+	}
+	
+	public String getId() {
+		return id;
+	}
+	
+	public String getClassName() {
+		return className;
+	}
+	
+	public String getFileName() {
+		return fileName;
+	}
+	
+	public DataExportFormat getFormat() {
+		return format;
+	}
+	
+	public boolean isDryRun() {
+		return dryRun;
+	}
+	
+	public long getStartedAt() {
+		return startedAt;
+	}
+	
+	public boolean isFinished() {
+		return finishedAt != 0;
+	}
+	
+	/**
+	 * Returns the number of rows read from the file so far
+	 * @return
+	 */
+	public long getRows() {
+		return rows.get();
+	}
+	
+	/**
+	 * Returns the number of rows inserted so far (or that
+	 * would have been inserted, in a dry run)
+	 * @return
+	 */
+	public long getImported() {
+		return imported.get();
+	}
+	
+	public long getFailed() {
+		return failed.get();
+	}
+	
+	/**
+	 * Returns the time elapsed since the start of the import, in milliseconds
+	 * @return
+	 */
+	public long getElapsed() {
+		return (isFinished() ? finishedAt : System.currentTimeMillis()) - startedAt;
+	}
+	
+	/**
+	 * Returns the number of rows processed (either imported or failed) per second
+	 * @return
+	 */
+	public long getRowsPerSecond() {
+		long elapsed = getElapsed();
+		if (elapsed == 0) return 0;
+		return (getImported() + getFailed()) * 1000 / elapsed;
+	}
+	
+	public String getError() {
+		return error;
+	}
+	
+	public List<RowError> getErrors() {
+		synchronized (errors) {
+			return new ArrayList<>(errors);
+		}
+	}
+	
+	public List<String> getIgnoredColumns() {
+		synchronized (ignoredColumns) {
+			return new ArrayList<>(ignoredColumns);
+		}
+	}
+	
+	void addRow() {
+		rows.incrementAndGet();
+	}
+	
+	void addImported(long count) {
+		imported.addAndGet(count);
+	}
+	
+	void addError(long row, String message) {
+		failed.incrementAndGet();
+		if (errors.size() < maxErrors)
+			errors.add(new RowError(row, message));
+	}
+	
+	void addIgnoredColumn(String column) {
+		ignoredColumns.add(column);
+	}
+	
+	void fail(String error) {
+		this.error = error;
+	}
+	
+	void finish() {
+		finishedAt = System.currentTimeMillis();
+	}
+	
+	/**
+	 * An error that prevented a row from being imported
+	 */
+	public static class RowError {
+		private long row;
+		
+		private String message;
+		
+		public RowError(long row, String message) {
+			this.row = row;
+			this.message = message;
+		}
+		
+		/**
+		 * Returns the number of the row in the file, starting from 1
+		 * (not counting the header)
+		 * @return
+		 */
+		public long getRow() {
+			return row;
+		}
+		
+		public String getMessage() {
+			return message;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.bulk;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+
+/**
+ * Reads a JSONL file, i.e. one JSON object per line, as produced by the export.
+ * Values are converted to their text representation, so they can be parsed
+ * like the values of the other formats.
+ */
+public class JsonlRecordReader implements RecordReader {
+	private Path file;
+	
+	private ObjectMapper mapper;
+	
+	public JsonlRecordReader(Path file, ObjectMapper mapper) {
+		this.file = file;
+		this.mapper = mapper;
+	}
+	
+	@Override
+	public void forEach(Consumer<Map<String, String>> consumer) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while ((line = reader.readLine()) != null) {
+				lineNumber++;
+				if (line.isBlank()) continue;
+				
+				JsonNode node = mapper.readTree(line);
+				if (!node.isObject())
+					throw new SnapAdminException("Line " + lineNumber + " is not a JSON object");
+				
+				Map<String, String> values = new LinkedHashMap<>();
+				Iterator<Entry<String, JsonNode>> fields = node.fields();
+				while (fields.hasNext()) {
+					Entry<String, JsonNode> field = fields.next();
+					JsonNode value = field.getValue();
+					
+					if (value.isNull()) values.put(field.getKey(), null);
+					else if (value.isValueNode()) values.put(field.getKey(), value.asText());
+					else values.put(field.getKey(), value.toString());
+				}
+				consumer.accept(values);
+			}
+		}
+	}
+}
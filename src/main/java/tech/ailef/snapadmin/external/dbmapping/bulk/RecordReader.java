@@ -0,0 +1,64 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.bulk;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tech.ailef.snapadmin.external.dto.DataExportFormat;
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+
+/**
+ * Reads the records of an imported file one at a time, without loading
+ * the whole file in memory. Each record is a map from column name to
+ * (String) value, in the same format produced by the export.
+ */
+public interface RecordReader {
+	/**
+	 * Reads all the records of the file, in order
+	 * @param consumer	the callback invoked on each record
+	 * @throws IOException
+	 */
+	public void forEach(Consumer<Map<String, String>> consumer) throws IOException;
+	
+	/**
+	 * Returns a reader for the given format
+	 * @param format	the format of the file
+	 * @param file	the file to read
+	 * @param mapper	the mapper used to parse JSON lines
+	 * @return
+	 */
+	public static RecordReader of(DataExportFormat format, Path file, ObjectMapper mapper) {
+		switch (format) {
+		case CSV:
+			return new CsvRecordReader(file);
+		case JSONL:
+			return new JsonlRecordReader(file, mapper);
+		case XLSX:
+			return new XlsxRecordReader(file);
+		default:
+			throw new SnapAdminException("Unsupported import format: " + format);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.bulk;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+
+/**
+ * Reads an XLSX workbook with POI's event API, which parses the sheets
+ * as a stream instead of building the whole workbook in memory. The first
+ * row of each sheet is the header, as produced by the export (which
+ * splits large tables across multiple sheets).
+ */
+public class XlsxRecordReader implements RecordReader {
+	private Path file;
+	
+	public XlsxRecordReader(Path file) {
+		this.file = file;
+	}
+	
+	@Override
+	public void forEach(Consumer<Map<String, String>> consumer) throws IOException {
+		try (OPCPackage pkg = OPCPackage.open(file.toFile(), PackageAccess.READ)) {
+			XSSFReader reader = new XSSFReader(pkg);
+			ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(pkg);
+			StylesTable styles = reader.getStylesTable();
+			
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+			while (sheets.hasNext()) {
+				try (InputStream sheet = sheets.next()) {
+					XMLReader parser = XMLHelper.newXMLReader();
+					parser.setContentHandler(
+						new XSSFSheetXMLHandler(styles, null, strings, new SheetHandler(consumer), new DataFormatter(), false)
+					);
+					parser.parse(new InputSource(sheet));
+				}
+			}
+		} catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+			throw new SnapAdminException("Unable to read XLSX file: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Collects the cells of each row and passes them to the consumer
+	 * as a record, using the first row of the sheet as the header
+	 */
+	private static class SheetHandler implements SheetContentsHandler {
+		private Consumer<Map<String, String>> consumer;
+		
+		private List<String> header;
+		
+		private List<String> cells = new ArrayList<>();
+		
+		public SheetHandler(Consumer<Map<String, String>> consumer) {
+			this.consumer = consumer;
+		}
+		
+		@Override
+		public void startRow(int rowNum) {
+			cells.clear();
+		}
+		
+		@Override
+		public void endRow(int rowNum) {
+			if (header == null) {
+				header = new ArrayList<>(cells);
+				return;
+			}
+			
+			if (cells.stream().allMatch(c -> c == null || c.isEmpty())) return;
+			
+			Map<String, String> values = new LinkedHashMap<>();
+			for (int i = 0; i < header.size(); i++) {
+				if (header.get(i) == null) continue;
+				values.put(header.get(i), i < cells.size() ? cells.get(i) : null);
+			}
+			consumer.accept(values);
+		}
+		
+		@Override
+		public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+			// Empty cells are not reported, so we fill the gap
+			// up to the column of the current cell
+			int column = new CellReference(cellReference).getCol();
+			while (cells.size() < column)
+				cells.add(null);
+			cells.add(formattedValue);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.count;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Reads the estimated number of rows from `information_schema.TABLES.TABLE_ROWS`,
+ * available on both MySQL and MariaDB.
+ */
+public class MySqlRowCountEstimator implements RowCountEstimator {
+	@Override
+	public boolean supports(String databaseProductName) {
+		return databaseProductName.equalsIgnoreCase("MySQL") 
+			|| databaseProductName.equalsIgnoreCase("MariaDB");
+	}
+
+	@Override
+	public Long estimate(JdbcTemplate jdbcTemplate, String tableName) {
+		List<Long> result = jdbcTemplate.queryForList(
+			"SELECT TABLE_ROWS FROM information_schema.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?", 
+			Long.class, tableName
+		);
+		
+		if (result.isEmpty()) return null;
+		return result.get(0);
+	}
+}
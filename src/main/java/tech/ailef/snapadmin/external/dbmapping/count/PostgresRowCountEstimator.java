@@ -0,0 +1,47 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.count;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Reads the estimated number of rows from `pg_class.reltuples`, which
+ * is updated by VACUUM and ANALYZE.
+ */
+public class PostgresRowCountEstimator implements RowCountEstimator {
+	@Override
+	public boolean supports(String databaseProductName) {
+		return databaseProductName.equalsIgnoreCase("PostgreSQL");
+	}
+
+	@Override
+	public Long estimate(JdbcTemplate jdbcTemplate, String tableName) {
+		List<Long> result = jdbcTemplate.queryForList(
+			"SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)", Long.class, tableName
+		);
+		
+		// reltuples is -1 if the table has never been analyzed
+		if (result.isEmpty() || result.get(0) == null || result.get(0) < 0) 
+			return null;
+		return result.get(0);
+	}
+}
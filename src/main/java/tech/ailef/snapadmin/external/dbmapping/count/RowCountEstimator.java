@@ -0,0 +1,47 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.count;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Estimates the number of rows in a table by reading the statistics 
+ * maintained by a specific database, which is much cheaper than a `COUNT(*)`
+ * on big tables. 
+ * 
+ * Register a bean implementing this interface to add support for 
+ * databases other than the built-in ones.
+ */
+public interface RowCountEstimator {
+	/**
+	 * Returns whether this estimator works on the given database
+	 * @param databaseProductName	the product name as returned by the JDBC metadata
+	 * @return
+	 */
+	public boolean supports(String databaseProductName);
+	
+	/**
+	 * Returns the estimated number of rows in the table
+	 * @param jdbcTemplate	the template to run queries with
+	 * @param tableName	the name of the table
+	 * @return the estimated number of rows, or null if not available
+	 */
+	public Long estimate(JdbcTemplate jdbcTemplate, String tableName);
+}
@@ -0,0 +1,279 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.count;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PreDestroy;
+
+import tech.ailef.snapadmin.external.SnapAdminProperties;
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dto.RowCount;
+import tech.ailef.snapadmin.external.dto.RowCountMode;
+
+/**
+ * Computes the number of rows of a table according to the {@link RowCountMode}
+ * configured for its `@Entity` class. Cached counts are kept for
+ * {@code snapadmin.rowCountCacheTtl} seconds, or until an item is created
+ * or deleted through SnapAdmin.
+ */
+@Component
+public class RowCounter {
+	private static final Logger logger = LoggerFactory.getLogger(RowCounter.class);
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	private SnapAdminProperties properties;
+	
+	@Autowired(required = false)
+	private List<RowCountEstimator> customEstimators = new ArrayList<>();
+	
+	private Map<String, CachedCount> cache = new ConcurrentHashMap<>();
+	
+	/**
+	 * The estimator for the current database, resolved on first use
+	 */
+	private volatile RowCountEstimator estimator;
+	
+	private volatile boolean estimatorResolved = false;
+	
+	private ExecutorService executor;
+	
+	/**
+	 * Bounds the number of count queries in flight, so they
+	 * don't take all the connections of the pool
+	 */
+	private Semaphore permits;
+	
+	/**
+	 * Returns the number of rows in the table of the given schema
+	 * @param schema	the schema
+	 * @return the number of rows, possibly estimated
+	 */
+	public RowCount count(DbObjectSchema schema) {
+		return count(schema, null);
+	}
+	
+	/**
+	 * Returns the number of rows for each of the given schemas, running the count
+	 * queries concurrently (at most {@code snapadmin.countConcurrency} at a time).
+	 * Waits at most {@code snapadmin.countTimeout} milliseconds: counts that
+	 * are not ready by then are cancelled and mapped to null.
+	 * @param schemas	the schemas to count
+	 * @return a map from class name to row count
+	 */
+	public Map<String, RowCount> countAll(List<DbObjectSchema> schemas) {
+		int timeout = properties.getCountTimeout();
+		ExecutorService executor = getExecutor();
+		
+		Map<String, Future<RowCount>> futures = new LinkedHashMap<>();
+		for (DbObjectSchema schema : schemas) {
+			futures.put(schema.getClassName(), executor.submit(() -> {
+				permits.acquire();
+				try {
+					return count(schema, timeout);
+				} finally {
+					permits.release();
+				}
+			}));
+		}
+		
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		Map<String, RowCount> counts = new HashMap<>();
+		for (Entry<String, Future<RowCount>> entry : futures.entrySet()) {
+			Future<RowCount> future = entry.getValue();
+			try {
+				counts.put(entry.getKey(), future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+			} catch (TimeoutException e) {
+				future.cancel(true);
+				counts.put(entry.getKey(), null);
+				logger.warn("Row count for " + entry.getKey() + " timed out after " + timeout + "ms");
+			} catch (ExecutionException e) {
+				counts.put(entry.getKey(), null);
+				logger.warn("Unable to count rows for " + entry.getKey() + ": " + e.getCause().getMessage());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				futures.values().forEach(f -> f.cancel(true));
+				break;
+			}
+		}
+		
+		return counts;
+	}
+	
+	private RowCount count(DbObjectSchema schema, Integer timeout) {
+		switch (getMode(schema)) {
+		case ESTIMATED:
+			Long estimate = estimate(schema);
+			if (estimate != null)
+				return new RowCount(estimate, true);
+			return new RowCount(exactCount(schema, timeout), false);
+		case CACHED:
+			CachedCount cached = cache.get(schema.getClassName());
+			if (cached != null && !cached.isExpired())
+				return new RowCount(cached.value, false);
+			
+			long value = exactCount(schema, timeout);
+			cache.put(schema.getClassName(), 
+				new CachedCount(value, System.currentTimeMillis() + properties.getRowCountCacheTtl() * 1000L));
+			return new RowCount(value, false);
+		default:
+			return new RowCount(exactCount(schema, timeout), false);
+		}
+	}
+	
+	private long exactCount(DbObjectSchema schema, Integer timeout) {
+		if (timeout == null)
+			return schema.getJpaRepository().count();
+		return schema.getJpaRepository().count(timeout);
+	}
+	
+	/**
+	 * Returns the executor used to run count queries, creating it on first use.
+	 * Uses virtual threads when running on Java 21+, since the tasks mostly
+	 * wait on the database, and a small pool of daemon threads otherwise.
+	 * @return
+	 */
+	private synchronized ExecutorService getExecutor() {
+		if (executor != null) return executor;
+		
+		permits = new Semaphore(Math.max(1, properties.getCountConcurrency()));
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			executor = (ExecutorService)factory.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			AtomicInteger threadCount = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(Math.max(1, properties.getCountConcurrency()), r -> {
+				Thread t = new Thread(r, "snapadmin-count-" + threadCount.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			});
+		}
+		return executor;
+	}
+	
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (executor != null)
+			executor.shutdownNow();
+	}
+	
+	/**
+	 * Removes the cached count for the given schema, if any. Called
+	 * when items are created or deleted.
+	 * @param schema	the schema
+	 */
+	public void invalidate(DbObjectSchema schema) {
+		cache.remove(schema.getClassName());
+	}
+	
+	/**
+	 * Returns the mode configured for the schema, looking up the full class name
+	 * first, then the simple class name and finally the default mode.
+	 * @param schema	the schema
+	 * @return
+	 */
+	public RowCountMode getMode(DbObjectSchema schema) {
+		Map<String, RowCountMode> modes = properties.getRowCountModes();
+		
+		RowCountMode mode = modes.get(schema.getClassName());
+		if (mode == null)
+			mode = modes.get(schema.getJavaClass().getSimpleName());
+		if (mode == null)
+			mode = properties.getRowCountMode();
+		return mode;
+	}
+	
+	private Long estimate(DbObjectSchema schema) {
+		RowCountEstimator estimator = getEstimator();
+		if (estimator == null) return null;
+		
+		try {
+			return estimator.estimate(jdbcTemplate, schema.getTableName());
+		} catch (DataAccessException e) {
+			logger.debug("Unable to estimate row count for table " + schema.getTableName() + ": " + e.getMessage());
+			return null;
+		}
+	}
+	
+	private RowCountEstimator getEstimator() {
+		if (estimatorResolved) return estimator;
+		
+		List<RowCountEstimator> estimators = new ArrayList<>(customEstimators);
+		estimators.add(new PostgresRowCountEstimator());
+		estimators.add(new MySqlRowCountEstimator());
+		estimators.add(new H2RowCountEstimator());
+		
+		try {
+			String productName = jdbcTemplate.execute(
+				(ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName()
+			);
+			
+			estimator = estimators.stream().filter(e -> e.supports(productName)).findFirst().orElse(null);
+			if (estimator == null)
+				logger.info("Row count estimates not supported on " + productName + ", using exact counts");
+		} catch (DataAccessException e) {
+			logger.warn("Unable to determine database type for row count estimates: " + e.getMessage());
+		}
+		
+		estimatorResolved = true;
+		return estimator;
+	}
+	
+	private static class CachedCount {
+		private long value;
+		
+		private long expiresAt;
+		
+		public CachedCount(long value, long expiresAt) {
+			this.value = value;
+			this.expiresAt = expiresAt;
+		}
+		
+		public boolean isExpired() {
+			return System.currentTimeMillis() > expiresAt;
+		}
+	}
+}
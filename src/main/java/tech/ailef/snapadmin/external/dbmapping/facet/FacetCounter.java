@@ -0,0 +1,234 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.facet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import tech.ailef.snapadmin.external.SnapAdminProperties;
+import tech.ailef.snapadmin.external.dbmapping.DbFieldValue;
+import tech.ailef.snapadmin.external.dbmapping.DbObject;
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+import tech.ailef.snapadmin.external.dbmapping.fields.EnumFieldType;
+import tech.ailef.snapadmin.external.dto.FacetResult;
+import tech.ailef.snapadmin.external.dto.FacetValue;
+import tech.ailef.snapadmin.external.dto.QueryFilter;
+
+/**
+ * Computes the values shown in the categorical filters of the list page, with 
+ * the number of matching rows for each one, using a `GROUP BY` query on the
+ * database. Each filter takes into account the search query and the other 
+ * active filters (but not its own, since categorical filters are mutually exclusive).
+ * 
+ * Results are cached for {@code snapadmin.facetCacheTtl} seconds, or until an
+ * item of the table is created, edited or deleted through SnapAdmin.
+ */
+@Component
+public class FacetCounter {
+	/**
+	 * The maximum number of cached results, the least recently used are evicted first
+	 */
+	private static final int MAX_CACHED_RESULTS = 1000;
+	
+	@Autowired
+	private SnapAdminProperties properties;
+	
+	private Map<CacheKey, CachedResult> cache = new LinkedHashMap<>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Entry<CacheKey, CachedResult> eldest) {
+			return size() > MAX_CACHED_RESULTS;
+		}
+	};
+	
+	/**
+	 * Returns the values of all the categorical filters of the schema
+	 * @param schema	the schema
+	 * @param query	the search query, can be null
+	 * @param filters	the active filters
+	 * @return a map from the Java name of each categorical field to its values
+	 */
+	public Map<String, FacetResult> facets(DbObjectSchema schema, String query, Set<QueryFilter> filters) {
+		Map<String, FacetResult> facets = new HashMap<>();
+		for (DbField field : schema.getFilterableFields()) {
+			if (!field.isFilterableCategorical()) continue;
+			facets.put(field.getJavaName(), facet(field, query, filters));
+		}
+		return facets;
+	}
+	
+	/**
+	 * Returns the values of a categorical filter
+	 * @param field	the categorical field
+	 * @param query	the search query, can be null
+	 * @param filters	the active filters
+	 * @return
+	 */
+	public FacetResult facet(DbField field, String query, Set<QueryFilter> filters) {
+		Set<QueryFilter> otherFilters = filters == null ? Set.of() : 
+			filters.stream().filter(f -> !f.getField().getJavaName().equals(field.getJavaName()))
+				.collect(Collectors.toSet());
+		if (query != null && query.isBlank()) query = null;
+		
+		CacheKey key = new CacheKey(field.getSchema().getClassName(), field.getJavaName(), query, otherFilters);
+		synchronized (cache) {
+			CachedResult cached = cache.get(key);
+			if (cached != null && !cached.isExpired())
+				return cached.result;
+		}
+		
+		FacetResult result = compute(field, query, otherFilters);
+		synchronized (cache) {
+			cache.put(key, new CachedResult(result, System.currentTimeMillis() + properties.getFacetCacheTtl() * 1000L));
+		}
+		return result;
+	}
+	
+	/**
+	 * Removes the cached values for the given schema. Called
+	 * when items are created, edited or deleted.
+	 * @param schema	the schema
+	 */
+	public void invalidate(DbObjectSchema schema) {
+		synchronized (cache) {
+			cache.keySet().removeIf(k -> k.className.equals(schema.getClassName()));
+		}
+	}
+	
+	private FacetResult compute(DbField field, String query, Set<QueryFilter> filters) {
+		int maxValues = Math.max(1, properties.getFacetMaxValues());
+		List<Object[]> rows = 
+			field.getSchema().getJpaRepository().countValues(field, query, filters, maxValues + 1);
+		
+		boolean truncated = rows.size() > maxValues;
+		if (truncated)
+			rows = rows.subList(0, maxValues);
+		
+		Map<Object, String> labels = field.isToOne() ? loadLinkedNames(field, rows) : Map.of();
+		
+		List<FacetValue> values = new ArrayList<>();
+		Set<Object> seen = new HashSet<>();
+		for (Object[] row : rows) {
+			Object value = row[0];
+			long count = ((Number)row[1]).longValue();
+			seen.add(value);
+			
+			if (field.isToOne()) {
+				values.add(new FacetValue(value, value == null ? null : labels.getOrDefault(value, value.toString()), count));
+			} else {
+				DbFieldValue fieldValue = new DbFieldValue(value, field);
+				values.add(new FacetValue(fieldValue.getValue(), fieldValue.getFormattedValue(), count));
+			}
+		}
+		
+		// Enum constants not present in the table are still valid filter values
+		if (field.getType() instanceof EnumFieldType && !truncated) {
+			for (Object constant : field.getType().getValues()) {
+				if (seen.contains(constant)) continue;
+				DbFieldValue fieldValue = new DbFieldValue(constant, field);
+				values.add(new FacetValue(fieldValue.getValue(), fieldValue.getFormattedValue(), 0));
+			}
+		}
+		
+		return new FacetResult(values, truncated);
+	}
+	
+	/**
+	 * Loads the display names of the linked items with a single query
+	 * @param field	the foreign key field
+	 * @param rows	the (primary key, count) pairs
+	 * @return a map from primary key to display name
+	 */
+	@SuppressWarnings("unchecked")
+	private Map<Object, String> loadLinkedNames(DbField field, List<Object[]> rows) {
+		DbObjectSchema linkedSchema = field.getConnectedSchema();
+		List<Object> ids = rows.stream().map(r -> r[0]).filter(Objects::nonNull).toList();
+		
+		Map<Object, String> labels = new HashMap<>();
+		for (Object o : linkedSchema.getJpaRepository().findAllById(ids)) {
+			DbObject linked = new DbObject(o, linkedSchema);
+			labels.put(linked.getPrimaryKeyValue(), linked.getDisplayName());
+		}
+		return labels;
+	}
+	
+	private static class CacheKey {
+		private String className;
+		
+		private String fieldName;
+		
+		private String query;
+		
+		private Set<QueryFilter> filters;
+		
+		public CacheKey(String className, String fieldName, String query, Set<QueryFilter> filters) {
+			this.className = className;
+			this.fieldName = fieldName;
+			this.query = query;
+			this.filters = filters;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(className, fieldName, query, filters);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null)
+				return false;
+			if (getClass() != obj.getClass())
+				return false;
+			CacheKey other = (CacheKey) obj;
+			return Objects.equals(className, other.className) && Objects.equals(fieldName, other.fieldName)
+					&& Objects.equals(query, other.query) && Objects.equals(filters, other.filters);
+		}
+	}
+	
+	private static class CachedResult {
+		private FacetResult result;
+		
+		private long expiresAt;
+		
+		public CachedResult(FacetResult result, long expiresAt) {
+			this.result = result;
+			this.expiresAt = expiresAt;
+		}
+		
+		public boolean isExpired() {
+			return System.currentTimeMillis() > expiresAt;
+		}
+	}
+}
@@ -20,10 +20,7 @@
 package tech.ailef.snapadmin.external.dbmapping.fields;
 
 import java.lang.reflect.Field;
-import java.util.List;
 import java.util.Objects;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
@@ -35,9 +32,8 @@ import jakarta.persistence.OneToOne;
 import tech.ailef.snapadmin.external.annotations.DisplayImage;
 import tech.ailef.snapadmin.external.annotations.Filterable;
 import tech.ailef.snapadmin.external.annotations.FilterableType;
+import tech.ailef.snapadmin.external.annotations.FullTextSearchable;
 import tech.ailef.snapadmin.external.annotations.ReadOnly;
-import tech.ailef.snapadmin.external.dbmapping.DbFieldValue;
-import tech.ailef.snapadmin.external.dbmapping.DbObject;
 import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
 
 /**
@@ -224,6 +220,10 @@ public class DbField {
 		return filterable != null && filterable.type() == FilterableType.CATEGORICAL;
 	}
 	
+	public boolean isFullTextSearchable() {
+		return getPrimitiveField().getAnnotation(FullTextSearchable.class) != null;
+	}
+	
 	public boolean isReadOnly() {
 		return getPrimitiveField().getAnnotation(ReadOnly.class) != null;
 	}
@@ -260,20 +260,6 @@ public class DbField {
 		return getPrimitiveField().getAnnotation(GeneratedValue.class) != null;
 	}
 	
-	public Set<DbFieldValue> getAllValues() {
-		if (type instanceof EnumFieldType) {
-			List<?> values = type.getValues();
-			return values.stream().map(v -> {
-				return new DbFieldValue(v, this);
-			}).collect(Collectors.toSet());
-		} else {
-			List<?> findAll = schema.getJpaRepository().findAll();
-			return findAll.stream()
-						.map(o -> new DbObject(o, schema).get(this))
-						.collect(Collectors.toSet());
-		}
-	}
-	
 	@Override
 	public String toString() {
 		return "DbField [name=" + dbName + ", javaName=" + javaName + ", type=" + type + ", field=" + field
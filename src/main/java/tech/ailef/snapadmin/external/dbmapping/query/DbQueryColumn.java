@@ -0,0 +1,171 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.query;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The values of a single column in the results of a SQL console query.
+ * Integer and floating point columns are stored in primitive arrays,
+ * with a bitmap for null values, while the rest are stored as objects.
+ * Unsigned integer columns (e.g. `INT UNSIGNED` on MySQL) are stored as
+ * objects, since their values may not fit in the signed primitive type.
+ */
+public class DbQueryColumn {
+	private enum Kind { INT, LONG, DOUBLE, OBJECT }
+	
+	private static final int INITIAL_CAPACITY = 16;
+	
+	private Kind kind;
+	
+	private int[] ints;
+	
+	private long[] longs;
+	
+	private double[] doubles;
+	
+	private Object[] objects;
+	
+	/**
+	 * Rows with a null value, only used for primitive columns
+	 */
+	private BitSet nulls = new BitSet();
+	
+	private int size = 0;
+	
+	/**
+	 * Builds an empty column for values of the given JDBC type
+	 * @param sqlType	the type from {@link java.sql.Types}
+	 * @param signed	whether the values are signed numbers
+	 */
+	public DbQueryColumn(int sqlType, boolean signed) {
+		switch (signed ? sqlType : Types.OTHER) {
+		case Types.INTEGER:
+			kind = Kind.INT;
+			ints = new int[INITIAL_CAPACITY];
+			break;
+		case Types.BIGINT:
+			kind = Kind.LONG;
+			longs = new long[INITIAL_CAPACITY];
+			break;
+		case Types.DOUBLE:
+		case Types.FLOAT:
+			kind = Kind.DOUBLE;
+			doubles = new double[INITIAL_CAPACITY];
+			break;
+		default:
+			kind = Kind.OBJECT;
+			objects = new Object[INITIAL_CAPACITY];
+		}
+	}
+	
+	/**
+	 * Reads the value of this column from the current row of the result set
+	 * @param rs	the result set
+	 * @param columnIndex	the index of this column in the result set, starting from 1
+	 * @throws SQLException
+	 */
+	public void read(ResultSet rs, int columnIndex) throws SQLException {
+		ensureCapacity(size + 1);
+		
+		switch (kind) {
+		case INT:
+			ints[size] = rs.getInt(columnIndex);
+			break;
+		case LONG:
+			longs[size] = rs.getLong(columnIndex);
+			break;
+		case DOUBLE:
+			doubles[size] = rs.getDouble(columnIndex);
+			break;
+		default:
+			objects[size] = rs.getObject(columnIndex);
+		}
+		
+		if (kind != Kind.OBJECT && rs.wasNull())
+			nulls.set(size);
+		
+		size++;
+	}
+	
+	/**
+	 * Returns the value at the given row
+	 * @param row	the index of the row
+	 * @return	the value, boxed if the column is primitive
+	 */
+	public Object get(int row) {
+		if (row < 0 || row >= size)
+			throw new IndexOutOfBoundsException(row);
+		
+		if (kind != Kind.OBJECT && nulls.get(row))
+			return null;
+		
+		switch (kind) {
+		case INT:
+			return ints[row];
+		case LONG:
+			return longs[row];
+		case DOUBLE:
+			return doubles[row];
+		default:
+			return objects[row];
+		}
+	}
+	
+	/**
+	 * Removes all the values, keeping the allocated arrays
+	 */
+	public void clear() {
+		if (objects != null)
+			Arrays.fill(objects, 0, size, null);
+		nulls.clear();
+		size = 0;
+	}
+	
+	private void ensureCapacity(int capacity) {
+		int length = switch (kind) {
+			case INT -> ints.length;
+			case LONG -> longs.length;
+			case DOUBLE -> doubles.length;
+			default -> objects.length;
+		};
+		
+		if (capacity <= length) return;
+		
+		int newLength = Math.max(capacity, length * 2);
+		switch (kind) {
+		case INT:
+			ints = Arrays.copyOf(ints, newLength);
+			break;
+		case LONG:
+			longs = Arrays.copyOf(longs, newLength);
+			break;
+		case DOUBLE:
+			doubles = Arrays.copyOf(doubles, newLength);
+			break;
+		default:
+			objects = Arrays.copyOf(objects, newLength);
+		}
+	}
+}
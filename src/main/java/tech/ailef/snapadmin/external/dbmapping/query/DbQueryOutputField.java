@@ -21,13 +21,13 @@
 package tech.ailef.snapadmin.external.dbmapping.query;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.Locale;
 import java.util.Objects;
 
 import tech.ailef.snapadmin.external.SnapAdmin;
 import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
 import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
 import tech.ailef.snapadmin.external.dbmapping.fields.DbFieldType;
-import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
 import tech.ailef.snapadmin.external.exceptions.UnsupportedFieldTypeException;
 
 /*
@@ -40,22 +40,28 @@ public class DbQueryOutputField {
 	
 	private String table;
 
+	/**
+	 * The position of this field in the query columns, starting from 0
+	 */
+	private int index;
+
 	private DbField dbField;
 	
-	private DbQueryResultRow result;
+	private DbQueryResult result;
 	
-	public DbQueryOutputField(String name, String table, SnapAdmin snapAdmin) {
+	public DbQueryOutputField(String name, String table, int index, SnapAdmin snapAdmin) {
 		this.name = name;
 		this.table = table;
+		this.index = index;
 		
-		try {
-			DbObjectSchema schema = snapAdmin.findSchemaByTableName(table);
-			DbField dbField = schema.getFieldByName(name);
-			this.dbField = dbField;
-		} catch (SnapAdminException e) {
-			// We were unable to map this result column to a table, this happens
-			// for example with COUNT(*) results and similar. We ignore this
-			// as the dbField will be null and handled as such in the rest of the code
+		// If we are unable to map this result column to a table, e.g. with
+		// COUNT(*) results and similar, the dbField will be null and 
+		// handled as such in the rest of the code
+		DbObjectSchema schema = snapAdmin.getSchemaByTableName(table);
+		if (schema != null) {
+			this.dbField = schema.getFieldByName(name);
+			if (dbField == null && name != null)
+				this.dbField = schema.getFieldByName(name.toLowerCase(Locale.ROOT));
 		}
 	}
 
@@ -67,6 +73,14 @@ public class DbQueryOutputField {
 		return name;
 	}
 	
+	/**
+	 * Returns the position of this field in the query columns
+	 * @return
+	 */
+	public int getIndex() {
+		return index;
+	}
+	
 	/**
 	 * Returns the table name of the field
 	 * @return
@@ -130,10 +144,11 @@ public class DbQueryOutputField {
 		if (dbField != null)
 			return dbField.getType().toString();
 		
-		// If the row this fields belongs to is defined
-		if (result != null) {
+		// If the result this fields belongs to is defined
+		Object value = result == null ? null : result.getFirstValue(this);
+		if (value != null) {
 			try {
-				DbFieldType type = DbFieldType.fromClass(result.get(this).getClass()).getConstructor().newInstance();
+				DbFieldType type = DbFieldType.fromClass(value.getClass()).getConstructor().newInstance();
 				return type.toString();
 			} catch (UnsupportedFieldTypeException | InstantiationException | IllegalAccessException | 
 					IllegalArgumentException | InvocationTargetException | NoSuchMethodException | SecurityException e) {
@@ -163,10 +178,10 @@ public class DbQueryOutputField {
 	}
 
 	/**
-	 * Sets the row object this field belongs to 
+	 * Sets the result this field belongs to 
 	 * @param result
 	 */
-	public void setResult(DbQueryResultRow result) {
+	public void setResult(DbQueryResult result) {
 		this.result = result;
 	}
 	
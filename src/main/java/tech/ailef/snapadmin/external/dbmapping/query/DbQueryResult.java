@@ -20,41 +20,225 @@
 
 package tech.ailef.snapadmin.external.dbmapping.query;
 
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+
+import tech.ailef.snapadmin.external.SnapAdmin;
 
 /**
  * A wrapper for results returned by user-provided SQL queries run via
- * the SQL console.
+ * the SQL console. Results are stored by column: the metadata of each column
+ * is resolved once per query and the values are kept in a {@link DbQueryColumn}.
  */
 public class DbQueryResult {
-	private List<DbQueryResultRow> rows;
+	private String query;
+	
+	/**
+	 * The output fields, in the same order as the columns of the query
+	 */
+	private List<DbQueryOutputField> fields;
+	
+	private List<DbQueryOutputField> sortedFields;
+	
+	private Map<String, DbQueryOutputField> fieldsByName = new HashMap<>();
+	
+	private DbQueryColumn[] columns;
+	
+	/**
+	 * The number of rows stored
+	 */
+	private int size = 0;
+	
+	/**
+	 * The number of rows read from the query, up to the row limit
+	 */
+	private long totalRows;
+	
+	/**
+	 * Whether the query has more rows after the ones that have been read
+	 */
+	private boolean hasMore;
+	
+	/**
+	 * Whether the query returned more rows than the limit
+	 */
+	private boolean truncated;
+	
+	/**
+	 * Builds an empty result with no columns
+	 * @param query	the SQL query
+	 */
+	public DbQueryResult(String query) {
+		this.query = query;
+		this.fields = new ArrayList<>();
+		this.sortedFields = new ArrayList<>();
+		this.columns = new DbQueryColumn[0];
+	}
 
-	public DbQueryResult(List<DbQueryResultRow> rows) {
-		this.rows = rows;
+	/**
+	 * Builds an empty result with the columns described by the metadata,
+	 * mapping each of them to the corresponding `@Entity` field if possible
+	 * @param metaData	the metadata of the result set
+	 * @param query	the SQL query
+	 * @param snapAdmin	the SnapAdmin instance, to look up the mapped fields
+	 * @throws SQLException
+	 */
+	public DbQueryResult(ResultSetMetaData metaData, String query, SnapAdmin snapAdmin) throws SQLException {
+		this.query = query;
+		
+		int cols = metaData.getColumnCount();
+		this.fields = new ArrayList<>(cols);
+		this.columns = new DbQueryColumn[cols];
+		
+		for (int i = 0; i < cols; i++) {
+			DbQueryOutputField field = 
+				new DbQueryOutputField(metaData.getColumnName(i + 1), metaData.getTableName(i + 1), i, snapAdmin);
+			field.setResult(this);
+			
+			fields.add(field);
+			fieldsByName.putIfAbsent(field.getName(), field);
+			columns[i] = new DbQueryColumn(metaData.getColumnType(i + 1), metaData.isSigned(i + 1));
+		}
+		
+		this.sortedFields = fields.stream().sorted((f1, f2) -> {
+			if (f1.isPrimaryKey() && !f2.isPrimaryKey()) {
+				return -1;
+			} else if (!f1.isPrimaryKey() && f2.isPrimaryKey()) {
+				return 1;
+			} else {
+				return f1.getName().compareTo(f2.getName());
+			}
+		}).toList();
+	}
+	
+	/**
+	 * Reads the current row of the result set and appends it to this result
+	 * @param rs	the result set, positioned on the row to read
+	 * @throws SQLException
+	 */
+	public void addRow(ResultSet rs) throws SQLException {
+		for (int i = 0; i < columns.length; i++) {
+			columns[i].read(rs, i + 1);
+		}
+		size++;
+	}
+	
+	/**
+	 * Removes all the rows from this result, keeping the columns
+	 */
+	public void clearRows() {
+		for (DbQueryColumn column : columns) {
+			column.clear();
+		}
+		size = 0;
+	}
+	
+	public String getQuery() {
+		return query;
+	}
+	
+	public DbQueryResultRow getRow(int index) {
+		return new DbQueryResultRow(this, index);
 	}
 	
 	public List<DbQueryResultRow> getRows() {
+		List<DbQueryResultRow> rows = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			rows.add(new DbQueryResultRow(this, i));
+		}
 		return rows;
 	}
 	
+	/**
+	 * Returns the value of a field at the given row
+	 * @param row	the index of the row
+	 * @param field	the field
+	 * @return
+	 */
+	public Object get(int row, DbQueryOutputField field) {
+		return columns[field.getIndex()].get(row);
+	}
+	
+	/**
+	 * Returns the first non-null value of a field, if any
+	 * @param field	the field
+	 * @return
+	 */
+	public Object getFirstValue(DbQueryOutputField field) {
+		for (int i = 0; i < size; i++) {
+			Object value = get(i, field);
+			if (value != null) return value;
+		}
+		return null;
+	}
+	
+	/**
+	 * Returns a field by its column name
+	 * @param name	the column name
+	 * @return the field if found, null otherwise
+	 */
+	public DbQueryOutputField getFieldByName(String name) {
+		return fieldsByName.get(name);
+	}
+	
 	public boolean isEmpty() {
-		return rows.isEmpty();
+		return size == 0;
 	}
 	
 	public List<DbQueryOutputField> getSortedFields() {
 		if (isEmpty()) {
 			return new ArrayList<>();
 		} else {
-			return rows.get(0).getSortedFields();
+			return sortedFields;
 		}
 	}
 	
 	public int size() {
-		return rows.size();
+		return size;
+	}
+	
+	/**
+	 * Returns the number of rows read from the query, which can be more 
+	 * than the rows in the current page. This is the total number of rows
+	 * returned by the query unless {@link #hasMore()} is true.
+	 * @return
+	 */
+	public long getTotalRows() {
+		return totalRows;
+	}
+	
+	public void setTotalRows(long totalRows) {
+		this.totalRows = totalRows;
+	}
+	
+	/**
+	 * Returns whether the query has more rows than the ones read, 
+	 * i.e. there are more pages after the current one
+	 * @return
+	 */
+	public boolean hasMore() {
+		return hasMore;
+	}
+	
+	public void setHasMore(boolean hasMore) {
+		this.hasMore = hasMore;
+	}
+	
+	/**
+	 * Returns whether the query returned more rows than the 
+	 * configured limit, which have not been read
+	 * @return
+	 */
+	public boolean isTruncated() {
+		return truncated;
 	}
 	
-	public void crop(int startOffset, int endOffset) {
-		rows = rows.subList(startOffset, endOffset);
+	public void setTruncated(boolean truncated) {
+		this.truncated = truncated;
 	}
 }
@@ -28,41 +28,32 @@ import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
 
 /**
  * A single row of results coming from a user-provided SQL query
- * run via the SQL console.
+ * run via the SQL console. This is a view on a row of a {@link DbQueryResult}.
  */
 public class DbQueryResultRow {
-	private Map<DbQueryOutputField, Object> values;
+	private DbQueryResult result;
 	
-	private String query;
+	private int index;
 
-	public DbQueryResultRow(Map<DbQueryOutputField, Object> values, String query) {
-		this.values = values;
-		this.query = query;
+	public DbQueryResultRow(DbQueryResult result, int index) {
+		this.result = result;
+		this.index = index;
 	}
 	
 	public List<DbQueryOutputField> getSortedFields() {
-		return values.keySet().stream().sorted((f1, f2) -> {
-			if (f1.isPrimaryKey() && !f2.isPrimaryKey()) {
-				return -1;
-			} else if (!f1.isPrimaryKey() && f2.isPrimaryKey()) {
-				return 1;
-			} else {
-				return f1.getName().compareTo(f2.getName());
-			}
-		}).toList();
+		return result.getSortedFields();
 	}
 	
 	public String getQuery() {
-		return query;
+		return result.getQuery();
 	}
 	
 	public Object get(DbQueryOutputField field) {
-		return values.get(field);
+		return result.get(index, field);
 	}
 
 	public Object getFieldByName(String field) {
-		DbQueryOutputField key = 
-			values.keySet().stream().filter(f -> f.getName().equals(field)).findFirst().orElse(null);
+		DbQueryOutputField key = result.getFieldByName(field);
 		if (key == null) {
 			throw new SnapAdminException("Field " + field + " not found");
 		}
@@ -0,0 +1,126 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+
+/**
+ * Builds the full-text search predicate for the list page search bar, using the
+ * {@link SearchDialect} of the current database. Whether the indexes exist is checked
+ * once per table; if they don't, or the database is not supported, no predicate is 
+ * returned and the caller falls back to `LIKE` predicates.
+ */
+@Component
+public class FullTextSearchTranslator {
+	private static final Logger logger = LoggerFactory.getLogger(FullTextSearchTranslator.class);
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	@Autowired(required = false)
+	private List<SearchDialect> customDialects = new ArrayList<>();
+	
+	/**
+	 * Whether each table (by class name) has the indexes needed for full-text search
+	 */
+	private Map<String, Boolean> indexed = new ConcurrentHashMap<>();
+	
+	/**
+	 * The dialect for the current database, resolved on first use
+	 */
+	private volatile SearchDialect dialect;
+	
+	private volatile boolean dialectResolved = false;
+	
+	/**
+	 * Returns whether the search on the given schema is translated to
+	 * a full-text search predicate
+	 * @param schema	the schema
+	 * @return
+	 */
+	public boolean isEnabled(DbObjectSchema schema) {
+		List<DbField> fields = schema.getFullTextSearchableFields();
+		if (fields.isEmpty()) return false;
+		
+		SearchDialect dialect = getDialect();
+		if (dialect == null) return false;
+		
+		return indexed.computeIfAbsent(schema.getClassName(), k -> {
+			try {
+				boolean hasIndex = dialect.hasIndex(jdbcTemplate, schema, fields);
+				if (!hasIndex)
+					logger.warn("Full-text index not found for table " + schema.getTableName() + ", search will use LIKE");
+				return hasIndex;
+			} catch (DataAccessException e) {
+				logger.warn("Unable to check full-text indexes on table " + schema.getTableName() + ": " + e.getMessage());
+				return false;
+			}
+		});
+	}
+	
+	/**
+	 * Builds the HQL full-text search predicate for the given query parameter
+	 * @param schema	the schema
+	 * @param alias	the alias of the entity in the query
+	 * @param parameter	the named parameter holding the search query
+	 * @return the predicate, or null if full-text search is not available on the schema
+	 */
+	public String buildPredicate(DbObjectSchema schema, String alias, String parameter) {
+		if (!isEnabled(schema)) return null;
+		return dialect.buildPredicate(alias, schema.getFullTextSearchableFields(), parameter);
+	}
+	
+	private SearchDialect getDialect() {
+		if (dialectResolved) return dialect;
+		
+		List<SearchDialect> dialects = new ArrayList<>(customDialects);
+		dialects.add(new PostgresSearchDialect());
+		dialects.add(new MySqlSearchDialect());
+		
+		try {
+			String productName = jdbcTemplate.execute(
+				(ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName()
+			);
+			
+			dialect = dialects.stream().filter(d -> d.supports(productName)).findFirst().orElse(null);
+			if (dialect == null)
+				logger.info("Full-text search not supported on " + productName + ", search will use LIKE");
+		} catch (DataAccessException e) {
+			logger.warn("Unable to determine database type for full-text search: " + e.getMessage());
+		}
+		
+		dialectResolved = true;
+		return dialect;
+	}
+}
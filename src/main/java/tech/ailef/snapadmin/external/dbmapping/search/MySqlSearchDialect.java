@@ -0,0 +1,73 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.search;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+
+/**
+ * Searches with `MATCH(columns) AGAINST (query IN NATURAL LANGUAGE MODE)`,
+ * which requires a `FULLTEXT` index on exactly the annotated columns. Works
+ * on both MySQL and MariaDB.
+ */
+public class MySqlSearchDialect implements SearchDialect {
+	@Override
+	public boolean supports(String databaseProductName) {
+		return databaseProductName.equalsIgnoreCase("MySQL") 
+			|| databaseProductName.equalsIgnoreCase("MariaDB");
+	}
+
+	@Override
+	public boolean hasIndex(JdbcTemplate jdbcTemplate, DbObjectSchema schema, List<DbField> fields) {
+		if (fields.size() > SnapAdminFunctionContributor.MYSQL_MAX_COLUMNS)
+			return false;
+		
+		Map<String, Set<String>> indexes = new HashMap<>();
+		jdbcTemplate.query(
+			"SELECT INDEX_NAME, COLUMN_NAME FROM information_schema.STATISTICS "
+			+ "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_TYPE = 'FULLTEXT'", 
+			rs -> {
+				indexes.computeIfAbsent(rs.getString(1), k -> new HashSet<>())
+					.add(rs.getString(2).toLowerCase(Locale.ROOT));
+			}, 
+			schema.getTableName()
+		);
+		
+		Set<String> columns = 
+			fields.stream().map(f -> f.getName().toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+		return indexes.containsValue(columns);
+	}
+
+	@Override
+	public String buildPredicate(String alias, List<DbField> fields, String parameter) {
+		String columns = fields.stream().map(f -> alias + "." + f.getJavaName()).collect(Collectors.joining(", "));
+		return SnapAdminFunctionContributor.MYSQL_MATCH_PREFIX + fields.size() + "(" + columns + ", " + parameter + ") > 0";
+	}
+}
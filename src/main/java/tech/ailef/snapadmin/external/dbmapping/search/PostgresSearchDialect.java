@@ -0,0 +1,79 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.search;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import tech.ailef.snapadmin.external.annotations.FullTextSearchable;
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+
+/**
+ * Searches with `to_tsvector(config, column) @@ plainto_tsquery(config, query)`
+ * on each field, which can use a GIN index on the same `to_tsvector` expression.
+ * The configuration must be one of the built-in ones (see 
+ * {@link SnapAdminFunctionContributor#POSTGRES_CONFIGS}).
+ */
+public class PostgresSearchDialect implements SearchDialect {
+	@Override
+	public boolean supports(String databaseProductName) {
+		return databaseProductName.equalsIgnoreCase("PostgreSQL");
+	}
+
+	@Override
+	public boolean hasIndex(JdbcTemplate jdbcTemplate, DbObjectSchema schema, List<DbField> fields) {
+		List<String> indexes = jdbcTemplate.queryForList(
+			"SELECT lower(indexdef) FROM pg_indexes WHERE tablename = ? AND schemaname = ANY(current_schemas(false))", 
+			String.class, schema.getTableName().toLowerCase(Locale.ROOT)
+		);
+		
+		for (DbField field : fields) {
+			String config = getConfig(field);
+			if (!SnapAdminFunctionContributor.POSTGRES_CONFIGS.contains(config))
+				return false;
+			
+			String column = field.getName().toLowerCase(Locale.ROOT);
+			// varchar columns are rendered with an explicit cast to text
+			boolean indexed = indexes.stream().anyMatch(def -> 
+				def.contains("to_tsvector('" + config + "'::regconfig, " + column + ")")
+				|| def.contains("to_tsvector('" + config + "'::regconfig, (" + column + ")::text)")
+			);
+			if (!indexed) return false;
+		}
+		
+		return true;
+	}
+
+	@Override
+	public String buildPredicate(String alias, List<DbField> fields, String parameter) {
+		return fields.stream().map(f -> 
+			SnapAdminFunctionContributor.POSTGRES_FTS_PREFIX + getConfig(f) 
+				+ "(" + alias + "." + f.getJavaName() + ", " + parameter + ") = true"
+		).collect(Collectors.joining(" or "));
+	}
+	
+	private String getConfig(DbField field) {
+		return field.getPrimitiveField().getAnnotation(FullTextSearchable.class).config().toLowerCase(Locale.ROOT);
+	}
+}
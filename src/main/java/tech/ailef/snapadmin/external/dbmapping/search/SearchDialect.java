@@ -0,0 +1,65 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.search;
+
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+
+/**
+ * Translates the query typed in the search bar of the list page into the
+ * native full-text search predicate of a specific database, so it can
+ * be answered with an index instead of a full table scan.
+ * 
+ * Register a bean implementing this interface to add support for 
+ * databases other than the built-in ones.
+ */
+public interface SearchDialect {
+	/**
+	 * Returns whether this dialect works on the given database
+	 * @param databaseProductName	the product name as returned by the JDBC metadata
+	 * @return
+	 */
+	public boolean supports(String databaseProductName);
+	
+	/**
+	 * Returns whether the indexes needed to search the given fields exist.
+	 * If this returns false, the search falls back to `LIKE` predicates.
+	 * @param jdbcTemplate	the template to run queries with
+	 * @param schema	the schema of the table
+	 * @param fields	the fields annotated with `@FullTextSearchable`
+	 * @return
+	 */
+	public boolean hasIndex(JdbcTemplate jdbcTemplate, DbObjectSchema schema, List<DbField> fields);
+	
+	/**
+	 * Builds the HQL predicate matching the rows where any of 
+	 * the given fields contains the query
+	 * @param alias	the alias of the entity in the query
+	 * @param fields	the fields annotated with `@FullTextSearchable`
+	 * @param parameter	the named parameter holding the search query (e.g. `:q`), 
+	 * 	so the generated statement is the same for every query
+	 * @return
+	 */
+	public String buildPredicate(String alias, List<DbField> fields, String parameter);
+}
@@ -0,0 +1,180 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.search;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The predicates chosen by the {@link SearchPlanner} for a search query and a
+ * set of filters. The HQL predicate only contains named parameters, so it also
+ * identifies the shape of the query: two plans with the same predicate only
+ * differ in the values of the parameters.
+ */
+public class SearchPlan {
+	/**
+	 * Whether there is a search query
+	 */
+	private boolean query;
+	
+	/**
+	 * The conditions for the search query, one for each field, combined with `or`
+	 */
+	private List<Condition> searchConditions = new ArrayList<>();
+	
+	/**
+	 * The conditions for the filters, combined with `and` with the search query
+	 */
+	private List<Condition> filterConditions = new ArrayList<>();
+	
+	/**
+	 * The match of the search query on the primary key, combined with `or` 
+	 * with all the other conditions. Null if the query is not a valid primary key.
+	 */
+	private Condition primaryKeyCondition;
+	
+	private Map<String, Object> parameters = new HashMap<>();
+	
+	void setQuery(boolean query) {
+		this.query = query;
+	}
+	
+	void addSearchCondition(Condition condition) {
+		searchConditions.add(condition);
+	}
+	
+	void addFilterCondition(Condition condition) {
+		filterConditions.add(condition);
+	}
+	
+	void setPrimaryKeyCondition(Condition primaryKeyCondition) {
+		this.primaryKeyCondition = primaryKeyCondition;
+	}
+	
+	void setParameter(String name, Object value) {
+		parameters.put(name, value);
+	}
+	
+	public List<Condition> getSearchConditions() {
+		return searchConditions;
+	}
+	
+	public List<Condition> getFilterConditions() {
+		return filterConditions;
+	}
+	
+	public Condition getPrimaryKeyCondition() {
+		return primaryKeyCondition;
+	}
+	
+	/**
+	 * Returns the values of the named parameters used in the predicate
+	 * @return
+	 */
+	public Map<String, Object> getParameters() {
+		return parameters;
+	}
+	
+	/**
+	 * Returns the HQL predicate, with the entity aliased as {@link SearchPlanner#ALIAS}
+	 * @return the predicate, or an empty string if there are no conditions
+	 */
+	public String getPredicate() {
+		List<String> predicates = new ArrayList<>();
+		if (query) {
+			String search = searchConditions.stream().filter(c -> c.getPredicate() != null)
+				.map(Condition::getPredicate).collect(Collectors.joining(" or "));
+			// An empty `or` is false, as in the criteria API
+			predicates.add(search.isEmpty() ? "1 = 0" : search);
+		}
+		
+		filterConditions.stream().filter(c -> c.getPredicate() != null)
+			.forEach(c -> predicates.add(c.getPredicate()));
+		
+		String predicate = predicates.stream().map(p -> "(" + p + ")").collect(Collectors.joining(" and "));
+		if (primaryKeyCondition == null)
+			return predicate;
+		
+		return "(" + predicate + ") or " + primaryKeyCondition.getPredicate();
+	}
+	
+	/**
+	 * Returns whether all the predicates can be answered with an index
+	 * @return
+	 */
+	public boolean isSargable() {
+		return Stream.concat(searchConditions.stream(), filterConditions.stream())
+				.filter(c -> c.getPredicate() != null).allMatch(Condition::isSargable)
+			&& (primaryKeyCondition == null || primaryKeyCondition.isSargable());
+	}
+	
+	/**
+	 * A condition on a field, or a skipped field if the predicate is null 
+	 */
+	public static class Condition {
+		private String field;
+		
+		private String predicate;
+		
+		private boolean sargable;
+		
+		private String note;
+		
+		public Condition(String field, String predicate, boolean sargable, String note) {
+			this.field = field;
+			this.predicate = predicate;
+			this.sargable = sargable;
+			this.note = note;
+		}
+		
+		/**
+		 * Returns the Java name of the field
+		 * @return
+		 */
+		public String getField() {
+			return field;
+		}
+		
+		public String getPredicate() {
+			return predicate;
+		}
+		
+		/**
+		 * Returns whether the predicate can use an index on the column, 
+		 * i.e. it doesn't apply functions to the column or start with a wildcard
+		 * @return
+		 */
+		public boolean isSargable() {
+			return sargable;
+		}
+		
+		/**
+		 * Returns why the predicate was chosen, or the field was skipped
+		 * @return
+		 */
+		public String getNote() {
+			return note;
+		}
+	}
+}
@@ -0,0 +1,344 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.search;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.temporal.Temporal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import tech.ailef.snapadmin.external.SnapAdminProperties;
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+import tech.ailef.snapadmin.external.dbmapping.fields.StringFieldType;
+import tech.ailef.snapadmin.external.dbmapping.fields.TextFieldType;
+import tech.ailef.snapadmin.external.dbmapping.search.SearchPlan.Condition;
+import tech.ailef.snapadmin.external.dto.CompareOperator;
+import tech.ailef.snapadmin.external.dto.QueryFilter;
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+
+/**
+ * Chooses the predicates for the search query and the filters of the list page,
+ * preferring the ones that can use an index:
+ * <ul>
+ * <li>the search query is compared with the primary key with a value of its own
+ * type, and only if it can be parsed as one</li>
+ * <li>string fields shorter than the search query are skipped</li>
+ * <li>`LOWER()` is not applied to columns with a case-insensitive collation</li>
+ * <li>string fields are matched by prefix if {@code snapadmin.prefixSearch} is enabled</li>
+ * <li>filters on other types compare the typed value</li>
+ * </ul>
+ * The size and collation of the columns are read from the database once per table.
+ */
+@Component
+public class SearchPlanner {
+	private static final Logger logger = LoggerFactory.getLogger(SearchPlanner.class);
+	
+	/**
+	 * The alias of the entity in the predicates
+	 */
+	public static final String ALIAS = "e";
+	
+	/**
+	 * The types reported by the JDBC metadata for case-insensitive text columns
+	 */
+	private static final Set<String> CASE_INSENSITIVE_TYPES = Set.of("citext", "varchar_ignorecase");
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	private FullTextSearchTranslator fullTextSearch;
+	
+	@Autowired
+	private SnapAdminProperties properties;
+	
+	/**
+	 * The columns of each table (by class name), by lowercase column name
+	 */
+	private Map<String, Map<String, ColumnInfo>> columns = new ConcurrentHashMap<>();
+	
+	/**
+	 * Plans the predicates for a search
+	 * @param schema	the schema to search
+	 * @param q	the search query, can be null
+	 * @param queryFilters	the filters, can be null
+	 * @return
+	 */
+	public SearchPlan plan(DbObjectSchema schema, String q, Set<QueryFilter> queryFilters) {
+		SearchPlan plan = new SearchPlan();
+		
+		if (q != null && !q.isBlank()) {
+			plan.setQuery(true);
+			planQuery(plan, schema, q);
+		}
+		
+		// Sorted, so the parameters have the same name in every query with the same filters
+		List<QueryFilter> filters = queryFilters == null ? new ArrayList<>() : new ArrayList<>(queryFilters);
+		filters.sort(
+			Comparator.comparing((QueryFilter f) -> f.getField().getJavaName())
+				.thenComparing(f -> f.getOp())
+				.thenComparing(f -> f.getValue())
+		);
+		
+		for (int i = 0; i < filters.size(); i++)
+			planFilter(plan, schema, filters.get(i), "p" + i);
+		
+		return plan;
+	}
+	
+	private void planQuery(SearchPlan plan, DbObjectSchema schema, String q) {
+		String term = q.trim();
+		
+		List<DbField> likeFields = schema.getStringFields();
+		if (fullTextSearch.isEnabled(schema)) {
+			plan.setParameter("q", term);
+			String fields = String.join(",", 
+				schema.getFullTextSearchableFields().stream().map(DbField::getJavaName).toList());
+			plan.addSearchCondition(
+				new Condition(fields, fullTextSearch.buildPredicate(schema, ALIAS, ":q"), true, "full-text index")
+			);
+			
+			// The other string fields are still matched with LIKE, in OR with the full-text predicate
+			likeFields = likeFields.stream().filter(f -> !f.isFullTextSearchable()).toList();
+		}
+		
+		if (!likeFields.isEmpty()) {
+			String pattern = term.toLowerCase(Locale.ROOT);
+			boolean prefix = properties.isPrefixSearch();
+			plan.setParameter("pattern", prefix ? pattern + "%" : "%" + pattern + "%");
+			
+			Map<String, ColumnInfo> tableColumns = getColumns(schema);
+			for (DbField field : likeFields) {
+				ColumnInfo column = tableColumns.get(field.getName().toLowerCase(Locale.ROOT));
+				
+				if (column != null && column.size > 0 && pattern.length() > column.size) {
+					plan.addSearchCondition(
+						new Condition(field.getJavaName(), null, true, "skipped, the query is longer than the column")
+					);
+					continue;
+				}
+				
+				boolean caseInsensitive = column != null && column.caseInsensitive;
+				String predicate = (caseInsensitive ? path(field) : lower(field)) + " like :pattern";
+				boolean sargable = prefix && caseInsensitive && field.getType() instanceof StringFieldType;
+				
+				plan.addSearchCondition(
+					new Condition(field.getJavaName(), predicate, sargable, 
+						(prefix ? "prefix" : "substring") + " match" 
+						+ (caseInsensitive ? ", case-insensitive collation" : ", lowercased column"))
+				);
+			}
+		}
+		
+		// Compare the primary key with a value of its own type, instead of
+		// casting the column to a string, so the primary key index can be used
+		DbField primaryKey = schema.getPrimaryKey();
+		try {
+			plan.setParameter("pk", primaryKey.getType().parseValue(term));
+			plan.setPrimaryKeyCondition(
+				new Condition(primaryKey.getJavaName(), path(primaryKey) + " = :pk", true, "typed equality")
+			);
+		} catch (Exception e) {
+			// Not a valid primary key, only the search fields are matched
+		}
+	}
+	
+	private void planFilter(SearchPlan plan, DbObjectSchema schema, QueryFilter filter, String name) {
+		DbField field = filter.getField();
+		CompareOperator op = filter.getOp();
+		String v = filter.getValue();
+		
+		Object value = null;
+		if (!v.isBlank()) {
+        	try {
+        		value = field.getType().parseValue(v);
+        	} catch (Exception e) {
+        		throw new SnapAdminException("Invalid value `" + v + "` specified for field `" + field.getName() + "`");
+        	}
+		}
+		
+		String path = path(field);
+		String parameter = ":" + name;
+		String javaName = field.getJavaName();
+		
+		boolean isString = field.getType() instanceof StringFieldType || field.getType() instanceof TextFieldType;
+		ColumnInfo column = isString ? getColumns(schema).get(field.getName().toLowerCase(Locale.ROOT)) : null;
+		boolean caseInsensitive = column != null && column.caseInsensitive;
+		
+		if (value == null) {
+			if (op == CompareOperator.STRING_EQ || op == CompareOperator.EQ)
+				plan.addFilterCondition(new Condition(javaName, path + " is null", true, "null check"));
+			return;
+		}
+		
+		if (op == CompareOperator.STRING_EQ) {
+			if (!isString) {
+				plan.setParameter(name, value);
+				plan.addFilterCondition(new Condition(javaName, path + " = " + parameter, true, "typed equality"));
+			} else if (caseInsensitive) {
+				plan.setParameter(name, value.toString().toLowerCase(Locale.ROOT));
+				plan.addFilterCondition(
+					new Condition(javaName, path + " = " + parameter, true, "case-insensitive collation")
+				);
+			} else {
+				plan.setParameter(name, value.toString().toLowerCase(Locale.ROOT));
+				plan.addFilterCondition(new Condition(javaName, lower(field) + " = " + parameter, false, "lowercased column"));
+			}
+		} else if (op == CompareOperator.CONTAINS) {
+			plan.setParameter(name, "%" + value.toString().toLowerCase(Locale.ROOT) + "%");
+			plan.addFilterCondition(
+				new Condition(javaName, (caseInsensitive ? path : lower(field)) + " like " + parameter, false, "substring match")
+			);
+		} else if (op == CompareOperator.EQ) {
+			plan.setParameter(name, value);
+			plan.addFilterCondition(new Condition(javaName, path + " = " + parameter, true, "typed equality"));
+		} else if (op == CompareOperator.GT || op == CompareOperator.LT) {
+			plan.setParameter(name, value);
+			plan.addFilterCondition(
+				new Condition(javaName, path + (op == CompareOperator.GT ? " > " : " < ") + parameter, true, "typed range")
+			);
+		} else if (op == CompareOperator.AFTER || op == CompareOperator.BEFORE) {
+			// Parsed by the field type, so the value has the type of the column (e.g. Date, Instant, OffsetDateTime)
+			if (!(value instanceof Temporal) && !(value instanceof Date))
+				throw new SnapAdminException("Operator " + op.getDisplayName() + " is not supported for field `" + field.getName() + "`");
+			
+			plan.setParameter(name, value);
+			plan.addFilterCondition(
+				new Condition(javaName, path + (op == CompareOperator.AFTER ? " > " : " < ") + parameter, true, "typed range")
+			);
+		}
+	}
+	
+	/**
+	 * Returns the path of a field in the predicates. Foreign keys are compared
+	 * by the primary key of the linked item, which is read from the foreign key
+	 * column without joining its table.
+	 * @param field	the field
+	 * @return
+	 */
+	public static String path(DbField field) {
+		String path = ALIAS + "." + field.getJavaName();
+		if (field.isForeignKey() && field.getSchema().getSnapAdmin().isManagedClass(field.getConnectedType()))
+			path += "." + field.getConnectedSchema().getPrimaryKey().getJavaName();
+		return path;
+	}
+	
+	/**
+	 * Returns the lowercase value of a field, cast to a string if it's not a string
+	 * column. Large text columns are cast as well, since not all databases support 
+	 * functions on them.
+	 */
+	private String lower(DbField field) {
+		if (field.getType() instanceof StringFieldType)
+			return "lower(" + path(field) + ")";
+		return "lower(cast(" + path(field) + " as String))";
+	}
+	
+	/**
+	 * Returns the size and collation of the columns of the table, read from the database
+	 * on first use. If they can't be read, the map is empty and no field is skipped.
+	 */
+	private Map<String, ColumnInfo> getColumns(DbObjectSchema schema) {
+		return columns.computeIfAbsent(schema.getClassName(), k -> {
+			try {
+				return jdbcTemplate.execute((ConnectionCallback<Map<String, ColumnInfo>>) c -> readColumns(c, schema.getTableName()));
+			} catch (DataAccessException e) {
+				logger.warn("Unable to read the columns of table " + schema.getTableName() + ": " + e.getMessage());
+				return Map.of();
+			}
+		});
+	}
+	
+	private Map<String, ColumnInfo> readColumns(Connection connection, String tableName) throws SQLException {
+		Map<String, ColumnInfo> result = new HashMap<>();
+		DatabaseMetaData metaData = connection.getMetaData();
+		
+		// Unquoted identifiers are stored in upper or lower case, depending on the database
+		for (String name : List.of(tableName, tableName.toUpperCase(Locale.ROOT), tableName.toLowerCase(Locale.ROOT))) {
+			try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null, name, null)) {
+				while (rs.next()) {
+					ColumnInfo column = new ColumnInfo();
+					column.size = rs.getInt("COLUMN_SIZE");
+					column.caseInsensitive = 
+						CASE_INSENSITIVE_TYPES.contains(rs.getString("TYPE_NAME").toLowerCase(Locale.ROOT));
+					result.put(rs.getString("COLUMN_NAME").toLowerCase(Locale.ROOT), column);
+				}
+			}
+			if (!result.isEmpty()) break;
+		}
+		
+		// The JDBC metadata doesn't include the collation
+		String productName = metaData.getDatabaseProductName();
+		if (productName.equalsIgnoreCase("MySQL") || productName.equalsIgnoreCase("MariaDB")) {
+			jdbcTemplate.query(
+				"SELECT COLUMN_NAME, COLLATION_NAME FROM information_schema.COLUMNS "
+				+ "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?",
+				rs -> {
+					setCaseInsensitive(result, rs.getString(1), rs.getString(2) != null && rs.getString(2).endsWith("_ci"));
+				},
+				tableName
+			);
+		} else if (productName.equalsIgnoreCase("Microsoft SQL Server")) {
+			jdbcTemplate.query(
+				"SELECT name, collation_name FROM sys.columns WHERE object_id = OBJECT_ID(?)",
+				rs -> {
+					setCaseInsensitive(result, rs.getString(1), rs.getString(2) != null && rs.getString(2).contains("_CI"));
+				},
+				tableName
+			);
+		}
+		
+		return result;
+	}
+	
+	private void setCaseInsensitive(Map<String, ColumnInfo> columns, String columnName, boolean caseInsensitive) {
+		ColumnInfo column = columns.get(columnName.toLowerCase(Locale.ROOT));
+		if (column != null)
+			column.caseInsensitive = caseInsensitive;
+	}
+	
+	/**
+	 * The size and collation of a column
+	 */
+	private static class ColumnInfo {
+		private int size;
+		
+		private boolean caseInsensitive;
+	}
+}
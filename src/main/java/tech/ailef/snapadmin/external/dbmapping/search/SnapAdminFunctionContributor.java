@@ -0,0 +1,113 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.search;
+
+import java.util.Set;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.query.sqm.function.SqmFunctionRegistry;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the Hibernate functions used by the built-in {@link SearchDialect}s,
+ * since the full-text search syntax can't be expressed with the standard
+ * JPA criteria functions. 
+ * 
+ * This is loaded by Hibernate through `META-INF/services`, so it runs for every
+ * persistence unit of the application, including the ones SnapAdmin doesn't use.
+ * To keep out of their way, the functions are all prefixed with `snapadmin_`,
+ * only the ones for the dialect of the persistence unit (PostgreSQL or MySQL) are 
+ * registered, and they can be disabled for a persistence unit by setting the
+ * Hibernate property {@value #ENABLED_SETTING} to false (e.g. with 
+ * `spring.jpa.properties.snapadmin.hibernate_functions=false`), in which case
+ * SnapAdmin can't use full-text search on its entities.
+ */
+public class SnapAdminFunctionContributor implements FunctionContributor {
+	/**
+	 * The Hibernate property to disable the functions in a persistence unit
+	 */
+	public static final String ENABLED_SETTING = "snapadmin.hibernate_functions";
+	
+	public static final String POSTGRES_FTS_PREFIX = "snapadmin_pg_fts_";
+	
+	public static final String MYSQL_MATCH_PREFIX = "snapadmin_mysql_match_";
+	
+	/**
+	 * The maximum number of columns in a MySQL `MATCH` expression
+	 */
+	public static final int MYSQL_MAX_COLUMNS = 16;
+	
+	/**
+	 * The text search configurations shipped with PostgreSQL. The configuration
+	 * is part of the function pattern because it must be a constant for the
+	 * query to match the expression of the index.
+	 */
+	public static final Set<String> POSTGRES_CONFIGS = Set.of(
+		"simple", "arabic", "armenian", "basque", "catalan", "danish", "dutch", "english", 
+		"finnish", "french", "german", "greek", "hindi", "hungarian", "indonesian", "irish", 
+		"italian", "lithuanian", "nepali", "norwegian", "portuguese", "romanian", "russian", 
+		"serbian", "spanish", "swedish", "tamil", "turkish", "yiddish"
+	);
+	
+	@Override
+	public void contributeFunctions(FunctionContributions functionContributions) {
+		ConfigurationService configuration = functionContributions.getServiceRegistry().getService(ConfigurationService.class);
+		if (configuration != null && !configuration.getSetting(ENABLED_SETTING, StandardConverters.BOOLEAN, true))
+			return;
+		
+		Dialect dialect = functionContributions.getDialect();
+		boolean postgres = dialect instanceof PostgreSQLDialect;
+		boolean mysql = dialect instanceof MySQLDialect;
+		if (!postgres && !mysql)
+			return;
+		
+		SqmFunctionRegistry registry = functionContributions.getFunctionRegistry();
+		BasicType<Boolean> booleanType = 
+			functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.BOOLEAN);
+		BasicType<Double> doubleType = 
+			functionContributions.getTypeConfiguration().getBasicTypeRegistry().resolve(StandardBasicTypes.DOUBLE);
+		
+		if (postgres) {
+			for (String config : POSTGRES_CONFIGS) {
+				registry.registerPattern(POSTGRES_FTS_PREFIX + config, 
+					"(to_tsvector('" + config + "', ?1) @@ plainto_tsquery('" + config + "', ?2))", booleanType);
+			}
+			return;
+		}
+		
+		for (int i = 1; i <= MYSQL_MAX_COLUMNS; i++) {
+			StringBuilder columns = new StringBuilder();
+			for (int j = 1; j <= i; j++) {
+				if (j > 1) columns.append(", ");
+				columns.append("?").append(j);
+			}
+			
+			registry.registerPattern(MYSQL_MATCH_PREFIX + i, 
+				"match(" + columns + ") against (?" + (i + 1) + " in natural language mode)", doubleType);
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dto;
+
+import tech.ailef.snapadmin.internal.service.UserActionWriter;
+
+/**
+ * A snapshot of the metrics of the audit log writer
+ */
+public class AuditLogWriterStats {
+	private int queueDepth;
+	
+	private long writtenCount;
+	
+	private long droppedCount;
+	
+	private long failedCount;
+	
+	private long flushCount;
+	
+	private double lastFlushMillis;
+	
+	private double averageFlushMillis;
+	
+	private double maxFlushMillis;
+	
+	public AuditLogWriterStats(UserActionWriter writer) {
+		this.queueDepth = writer.getQueueDepth();
+		this.writtenCount = writer.getWrittenCount();
+		this.droppedCount = writer.getDroppedCount();
+		this.failedCount = writer.getFailedCount();
+		this.flushCount = writer.getFlushCount();
+		this.lastFlushMillis = writer.getLastFlushMillis();
+		this.averageFlushMillis = writer.getAverageFlushMillis();
+		this.maxFlushMillis = writer.getMaxFlushMillis();
+	}
+	
+	/**
+	 * Returns the number of actions waiting to be written
+	 * @return
+	 */
+	public int getQueueDepth() {
+		return queueDepth;
+	}
+	
+	/**
+	 * Returns the number of actions written to the audit log
+	 * @return
+	 */
+	public long getWrittenCount() {
+		return writtenCount;
+	}
+	
+	/**
+	 * Returns the number of actions dropped because the queue was full
+	 * @return
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+	
+	/**
+	 * Returns the number of actions lost because their batch could not be written
+	 * @return
+	 */
+	public long getFailedCount() {
+		return failedCount;
+	}
+	
+	/**
+	 * Returns the number of batches written
+	 * @return
+	 */
+	public long getFlushCount() {
+		return flushCount;
+	}
+	
+	public double getLastFlushMillis() {
+		return lastFlushMillis;
+	}
+	
+	public double getAverageFlushMillis() {
+		return averageFlushMillis;
+	}
+	
+	public double getMaxFlushMillis() {
+		return maxFlushMillis;
+	}
+}
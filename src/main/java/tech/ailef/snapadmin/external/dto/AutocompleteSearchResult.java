@@ -40,6 +40,11 @@ public class AutocompleteSearchResult {
 		this.value = o.getDisplayName();
 	}
 	
+	public AutocompleteSearchResult(Object id, String value) {
+		this.id = id;
+		this.value = value;
+	}
+	
 	/**
 	 * Returns the primary key for the object
 	 * @return
@@ -0,0 +1,80 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of deleting multiple items at once
+ */
+public class DeleteResult {
+	private int deletedCount;
+	
+	private List<String> deletedIds = new ArrayList<>();
+	
+	private Map<String, String> errors = new LinkedHashMap<>();
+	
+	/**
+	 * Records the ids of a group of items deleted together
+	 * @param ids	the primary keys of the items
+	 * @param count	the number of rows actually deleted
+	 */
+	public void addDeleted(List<String> ids, int count) {
+		deletedIds.addAll(ids);
+		deletedCount += count;
+	}
+	
+	/**
+	 * Records an item that could not be deleted
+	 * @param id	the primary key of the item
+	 * @param message	the error message
+	 */
+	public void addError(String id, String message) {
+		errors.put(id, message);
+	}
+	
+	/**
+	 * Returns the number of rows deleted
+	 * @return
+	 */
+	public int getDeletedCount() {
+		return deletedCount;
+	}
+	
+	/**
+	 * Returns the ids of the items that have been deleted, or 
+	 * that didn't exist in the first place
+	 * @return
+	 */
+	public List<String> getDeletedIds() {
+		return deletedIds;
+	}
+	
+	/**
+	 * Returns the error message for each item that could not be deleted
+	 * @return
+	 */
+	public Map<String, String> getErrors() {
+		return errors;
+	}
+}
@@ -0,0 +1,53 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dto;
+
+import java.util.List;
+
+/**
+ * The values of a categorical filter, sorted by decreasing number of rows.
+ */
+public class FacetResult {
+	private List<FacetValue> values;
+	
+	private boolean truncated;
+	
+	public FacetResult(List<FacetValue> values, boolean truncated) {
+		this.values = values;
+		this.truncated = truncated;
+	}
+	
+	/**
+	 * Returns the values of the filter
+	 * @return
+	 */
+	public List<FacetValue> getValues() {
+		return values;
+	}
+	
+	/**
+	 * Returns whether there are more distinct values than the 
+	 * ones returned, because of {@code snapadmin.facetMaxValues}
+	 * @return
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+}
@@ -0,0 +1,78 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dto;
+
+import java.text.NumberFormat;
+
+/**
+ * A value of a categorical filter, with the number of 
+ * rows that have it.
+ */
+public class FacetValue {
+	private Object value;
+	
+	private String label;
+	
+	private long count;
+	
+	public FacetValue(Object value, String label, long count) {
+		this.value = value;
+		this.label = label;
+		this.count = count;
+	}
+	
+	/**
+	 * Returns the value, as used in the filter. For foreign keys
+	 * this is the primary key of the linked item.
+	 * @return
+	 */
+	public Object getValue() {
+		return value;
+	}
+	
+	/**
+	 * Returns the value formatted for display
+	 * @return
+	 */
+	public String getLabel() {
+		return label;
+	}
+	
+	/**
+	 * Returns the number of rows with this value
+	 * @return
+	 */
+	public long getCount() {
+		return count;
+	}
+	
+	/**
+	 * Returns the number of rows, formatted for display
+	 * @return
+	 */
+	public String getFormattedCount() {
+		return NumberFormat.getIntegerInstance().format(count);
+	}
+
+	@Override
+	public String toString() {
+		return "FacetValue [value=" + value + ", label=" + label + ", count=" + count + "]";
+	}
+}
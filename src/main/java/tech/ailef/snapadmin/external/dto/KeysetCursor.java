@@ -0,0 +1,145 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dto;
+
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.function.Function;
+
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+
+/**
+ * The position of a row in a keyset-paginated listing, i.e. the value of the
+ * sort column (if any) and of the primary key. It is passed around in links
+ * as an opaque, URL-safe string.
+ */
+public class KeysetCursor {
+	/**
+	 * The value of the sort column, null if sorting on the primary key
+	 */
+	private Object sortValue;
+	
+	/**
+	 * The value of the primary key
+	 */
+	private Object primaryKeyValue;
+	
+	public KeysetCursor(Object sortValue, Object primaryKeyValue) {
+		this.sortValue = sortValue;
+		this.primaryKeyValue = primaryKeyValue;
+	}
+	
+	public Object getSortValue() {
+		return sortValue;
+	}
+	
+	public Object getPrimaryKeyValue() {
+		return primaryKeyValue;
+	}
+	
+	/**
+	 * Encodes this cursor into an opaque string
+	 * @return
+	 */
+	public String encode() {
+		String value = URLEncoder.encode(primaryKeyValue.toString(), StandardCharsets.UTF_8);
+		if (sortValue != null)
+			value += "," + URLEncoder.encode(format(sortValue), StandardCharsets.UTF_8);
+		
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+	
+	/**
+	 * Decodes a cursor previously produced by {@link #encode()}, parsing the
+	 * values according to the types of the fields
+	 * @param cursor	the encoded cursor
+	 * @param primaryKey	the primary key field
+	 * @param sortField	the sort field, null if sorting on the primary key
+	 * @return the decoded cursor
+	 * @throws SnapAdminException if the cursor is not valid
+	 */
+	public static KeysetCursor decode(String cursor, DbField primaryKey, DbField sortField) {
+		return decode(cursor, v -> parse(v, primaryKey), sortField == null ? null : v -> parse(v, sortField));
+	}
+	
+	/**
+	 * Decodes a cursor previously produced by {@link #encode()}, parsing the
+	 * values with the given functions
+	 * @param cursor	the encoded cursor
+	 * @param primaryKeyParser	parses the primary key value
+	 * @param sortParser	parses the sort value, null if sorting on the primary key
+	 * @return the decoded cursor
+	 * @throws SnapAdminException if the cursor is not valid
+	 */
+	public static KeysetCursor decode(String cursor, Function<String, Object> primaryKeyParser, 
+			Function<String, Object> sortParser) {
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			String[] parts = value.split(",", -1);
+			
+			if (parts.length != (sortParser == null ? 1 : 2))
+				throw new SnapAdminException("Invalid pagination cursor");
+			
+			Object pk = primaryKeyParser.apply(URLDecoder.decode(parts[0], StandardCharsets.UTF_8));
+			Object sort = sortParser == null ? null : sortParser.apply(URLDecoder.decode(parts[1], StandardCharsets.UTF_8));
+			
+			return new KeysetCursor(sort, pk);
+		} catch (IllegalArgumentException | DateTimeParseException e) {
+			throw new SnapAdminException("Invalid pagination cursor", e);
+		}
+	}
+	
+	/**
+	 * Formats a value for the cursor. Dates are written in ISO format, since the
+	 * toString() of the `java.sql` types depends on the time zone and is not
+	 * accepted by the parsers (e.g. `2023-05-01 10:00:00.0` for a Timestamp).
+	 */
+	private static String format(Object value) {
+		if (value instanceof Timestamp timestamp)
+			return timestamp.toLocalDateTime().toString();
+		if (value instanceof java.sql.Date date)
+			return date.toLocalDate().toString();
+		if (value instanceof java.util.Date date)
+			return date.toInstant().toString();
+		return value.toString();
+	}
+	
+	private static Object parse(String value, DbField field) {
+		Class<?> type = field.getType().getJavaClass();
+		
+		// Instant fields are parsed from the HTML input format, which
+		// differs from the ISO format produced by Instant.toString()
+		if (type == Instant.class)
+			return Instant.parse(value);
+		
+		// Date fields can be read as a Timestamp if the column has a time part
+		if (type == java.sql.Date.class && value.contains("T"))
+			return Timestamp.valueOf(LocalDateTime.parse(value));
+		
+		return field.getType().parseValue(value);
+	}
+}
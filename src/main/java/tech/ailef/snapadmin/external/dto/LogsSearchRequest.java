@@ -69,6 +69,16 @@ public class LogsSearchRequest implements FilterRequest {
 	 * The requested username filter
 	 */
 	private String username;
+	
+	/**
+	 * The position to start from, when browsing by time with keyset pagination
+	 */
+	private String cursor;
+	
+	/**
+	 * Whether to go to the next or previous page ("prev") from the cursor
+	 */
+	private String direction;
 
 	/**
 	 * Returns the table specified in this search request. If the value is blank or 'Any',
@@ -180,7 +190,32 @@ public class LogsSearchRequest implements FilterRequest {
 	}
 	
 	public String getUsername() {
-		return username;
+		return username == null || username.isBlank() ? null : username;
+	}
+	
+	public String getCursor() {
+		return cursor == null || cursor.isBlank() ? null : cursor;
+	}
+	
+	public void setCursor(String cursor) {
+		this.cursor = cursor;
+	}
+	
+	public String getDirection() {
+		return direction;
+	}
+	
+	public void setDirection(String direction) {
+		this.direction = direction;
+	}
+	
+	/**
+	 * Returns whether the actions are sorted by time, in which case they 
+	 * are browsed with keyset pagination on `(createdAt, id)`
+	 * @return
+	 */
+	public boolean isSortedByTime() {
+		return sortKey == null || sortKey.equals("createdAt");
 	}
 	
 	/**
@@ -211,6 +246,8 @@ public class LogsSearchRequest implements FilterRequest {
 			params.add("itemId", itemId);
 		if (actionType != null)
 			params.add("actionType", actionType);
+		if (username != null)
+			params.add("username", username);
 		
 		return params;
 	}
@@ -59,6 +59,26 @@ public class PaginationInfo {
 	
 	private String query;
 	
+	/**
+	 * Whether this is a keyset pagination, i.e. pages are reached by
+	 * following cursors instead of page numbers
+	 */
+	private boolean keyset;
+	
+	private String sortKey;
+	
+	private String sortOrder;
+	
+	/**
+	 * The cursor to the previous page, if keyset pagination is used
+	 */
+	private String previousCursor;
+	
+	/**
+	 * The cursor to the next page, if keyset pagination is used
+	 */
+	private String nextCursor;
+	
 	public PaginationInfo(int currentPage, int maxPage, int pageSize, long maxElement, String query, FilterRequest request) {
 		this.currentPage = currentPage;
 		this.maxPage = maxPage;
@@ -67,6 +87,20 @@ public class PaginationInfo {
 		this.maxElement = maxElement;
 		this.filterRequest = request;
 	}
+	
+	/**
+	 * Builds the pagination info for a keyset pagination. In this mode, the total
+	 * number of elements and pages is not known.
+	 */
+	public PaginationInfo(int currentPage, int pageSize, String query, FilterRequest request, 
+			String sortKey, String sortOrder, String previousCursor, String nextCursor) {
+		this(currentPage, -1, pageSize, -1, query, request);
+		this.keyset = true;
+		this.sortKey = sortKey;
+		this.sortOrder = sortOrder;
+		this.previousCursor = previousCursor;
+		this.nextCursor = nextCursor;
+	}
 
 	/**
 	 * Returns the current requested page
@@ -162,6 +196,60 @@ public class PaginationInfo {
 		return Utils.getQueryString(params);
 	}
 
+	/**
+	 * Returns a link to the previous or next page when using keyset pagination,
+	 * preserving all the other filtering and sorting parameters
+	 * 
+	 * @param previous whether to link the previous page or the next one
+	 * @return
+	 */
+	public String getCursorLink(boolean previous) {
+		MultiValueMap<String, String> params = FilterRequest.empty();
+		
+		if (filterRequest != null)
+			params = filterRequest.computeParams();
+		
+		if (query != null) {
+			params.put("query", new ArrayList<>());
+			params.get("query").add(query);
+		}
+		
+		params.add("pageSize", "" + pageSize);
+		params.add("page", "" + (previous ? currentPage - 1 : currentPage + 1));
+		if (sortKey != null) {
+			params.add("sortKey", sortKey);
+			params.add("sortOrder", sortOrder);
+		}
+		params.add("cursor", previous ? previousCursor : nextCursor);
+		params.add("direction", previous ? "prev" : "next");
+		
+		return Utils.getQueryString(params);
+	}
+	
+	/**
+	 * Returns whether this is a keyset pagination
+	 * @return
+	 */
+	public boolean isKeyset() {
+		return keyset;
+	}
+	
+	/**
+	 * Returns whether there's a previous page, when using keyset pagination
+	 * @return
+	 */
+	public boolean hasPrevious() {
+		return previousCursor != null;
+	}
+	
+	/**
+	 * Returns whether there's a next page, when using keyset pagination
+	 * @return
+	 */
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+	
 	/**
 	 * Returns the pages before the current one
 	 * @return
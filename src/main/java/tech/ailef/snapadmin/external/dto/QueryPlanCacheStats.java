@@ -0,0 +1,68 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dto;
+
+import org.hibernate.stat.Statistics;
+
+/**
+ * The usage of the Hibernate query plan cache, which holds the interpretation 
+ * of HQL strings and is shared by all the entities. Hibernate only counts
+ * hits and misses if {@code hibernate.generate_statistics} is enabled.
+ */
+public class QueryPlanCacheStats {
+	private boolean statisticsEnabled;
+	
+	private long hits;
+	
+	private long misses;
+	
+	private double hitRate;
+	
+	public QueryPlanCacheStats(Statistics statistics) {
+		this.statisticsEnabled = statistics.isStatisticsEnabled();
+		this.hits = statistics.getQueryPlanCacheHitCount();
+		this.misses = statistics.getQueryPlanCacheMissCount();
+		this.hitRate = hits + misses == 0 ? 0 : (double)hits / (hits + misses);
+	}
+	
+	/**
+	 * Returns whether Hibernate collects statistics. If not, the counts are always 0.
+	 * @return
+	 */
+	public boolean isStatisticsEnabled() {
+		return statisticsEnabled;
+	}
+	
+	public long getHits() {
+		return hits;
+	}
+	
+	public long getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * Returns the fraction of HQL queries whose plan was found in the cache
+	 * @return the hit rate, between 0 and 1
+	 */
+	public double getHitRate() {
+		return hitRate;
+	}
+}
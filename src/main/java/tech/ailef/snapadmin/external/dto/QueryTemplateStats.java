@@ -0,0 +1,73 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dto;
+
+import tech.ailef.snapadmin.external.dbmapping.QueryTemplateCache;
+
+/**
+ * The usage of the query template cache of an entity
+ */
+public class QueryTemplateStats {
+	private String className;
+	
+	private int size;
+	
+	private long hits;
+	
+	private long misses;
+	
+	private double hitRate;
+	
+	public QueryTemplateStats(String className, QueryTemplateCache cache) {
+		this.className = className;
+		this.size = cache.size();
+		this.hits = cache.getHits();
+		this.misses = cache.getMisses();
+		this.hitRate = cache.getHitRate();
+	}
+	
+	public String getClassName() {
+		return className;
+	}
+	
+	/**
+	 * Returns the number of templates in the cache
+	 * @return
+	 */
+	public int getSize() {
+		return size;
+	}
+	
+	public long getHits() {
+		return hits;
+	}
+	
+	public long getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * Returns the fraction of lookups that found the template in the cache
+	 * @return the hit rate, between 0 and 1
+	 */
+	public double getHitRate() {
+		return hitRate;
+	}
+}
@@ -0,0 +1,58 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dto;
+
+import java.text.NumberFormat;
+
+/**
+ * The number of rows in a table, which can either be exact or an estimate
+ * coming from the database statistics.
+ */
+public class RowCount {
+	private long value;
+	
+	private boolean estimated;
+	
+	public RowCount(long value, boolean estimated) {
+		this.value = value;
+		this.estimated = estimated;
+	}
+	
+	/**
+	 * Returns the number of rows
+	 * @return
+	 */
+	public long getValue() {
+		return value;
+	}
+	
+	/**
+	 * Returns whether the number of rows is an estimate
+	 * @return
+	 */
+	public boolean isEstimated() {
+		return estimated;
+	}
+	
+	@Override
+	public String toString() {
+		return (estimated ? "~" : "") + NumberFormat.getIntegerInstance().format(value);
+	}
+}
@@ -0,0 +1,39 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dto;
+
+/**
+ * How the number of rows of a table is computed when listing entities
+ */
+public enum RowCountMode {
+	/**
+	 * Run a `COUNT(*)` query every time
+	 */
+	EXACT,
+	/**
+	 * Read the estimated number of rows from the database statistics, 
+	 * falling back to EXACT if the database is not supported
+	 */
+	ESTIMATED,
+	/**
+	 * Run a `COUNT(*)` query and keep the result in cache for some time
+	 */
+	CACHED;
+}
@@ -0,0 +1,153 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.misc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+/**
+ * Writes an XLSX workbook row by row using POI's streaming {@link SXSSFWorkbook}.
+ * Only the last {@code rowAccessWindow} rows are kept in memory, while the others
+ * are flushed to temporary files, so memory usage doesn't depend on the number of rows.
+ * 
+ * When a sheet reaches the maximum number of rows supported by Excel, a new
+ * sheet (with the same header) is automatically created.
+ */
+public class XlsxStreamWriter implements AutoCloseable {
+	/**
+	 * The maximum number of rows in an Excel sheet (including the header row)
+	 */
+	static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+	
+	private SXSSFWorkbook workbook;
+	
+	private CellStyle headerStyle;
+	
+	private String sheetName;
+	
+	private List<String> header;
+	
+	private Sheet sheet;
+	
+	private int rowIndex;
+	
+	private int sheetCount;
+	
+	/**
+	 * The maximum number of rows in a sheet, including the header row
+	 */
+	private int maxRows;
+	
+	/**
+	 * Creates a new writer
+	 * @param sheetName	the name of the sheet; additional sheets get a numeric suffix
+	 * @param header	the values for the header row
+	 * @param rowAccessWindow	the number of rows kept in memory
+	 * @param compressTempFiles	whether to compress the temporary files
+	 */
+	public XlsxStreamWriter(String sheetName, List<String> header, int rowAccessWindow, boolean compressTempFiles) {
+		this(sheetName, header, rowAccessWindow, compressTempFiles, MAX_ROWS);
+	}
+	
+	/**
+	 * Creates a new writer with a custom number of rows per sheet, 
+	 * to test the creation of additional sheets
+	 */
+	XlsxStreamWriter(String sheetName, List<String> header, int rowAccessWindow, boolean compressTempFiles, int maxRows) {
+		this.workbook = new SXSSFWorkbook(null, rowAccessWindow, compressTempFiles);
+		this.sheetName = sheetName;
+		this.header = header;
+		this.maxRows = maxRows;
+		
+		this.headerStyle = workbook.createCellStyle();
+		Font headerFont = workbook.createFont();
+		headerFont.setBold(true);
+		headerStyle.setFont(headerFont);
+	}
+	
+	/**
+	 * Appends a row to the current sheet, creating a new sheet first if
+	 * the current one is full
+	 * @param values	the values of the row
+	 */
+	public void writeRow(List<String> values) {
+		if (sheet == null || rowIndex >= maxRows)
+			newSheet();
+		
+		Row row = sheet.createRow(rowIndex++);
+		int cellIndex = 0;
+		for (String value : values) {
+			Cell cell = row.createCell(cellIndex++);
+			cell.setCellValue(value);
+		}
+	}
+	
+	/**
+	 * Writes the workbook to the given stream. The stream is not closed.
+	 * @param out	the stream to write to
+	 * @throws IOException
+	 */
+	public void write(OutputStream out) throws IOException {
+		if (sheet == null)
+			newSheet();
+		
+		workbook.write(out);
+	}
+	
+	/**
+	 * Closes the workbook and deletes the temporary files
+	 */
+	@Override
+	public void close() throws IOException {
+		workbook.dispose();
+		workbook.close();
+	}
+	
+	private void newSheet() {
+		sheetCount++;
+		
+		// Sheet names are limited to 31 characters, so we truncate the base
+		// name in order to keep the suffix of additional sheets
+		String suffix = sheetCount == 1 ? "" : " (" + sheetCount + ")";
+		String name = WorkbookUtil.createSafeSheetName(sheetName);
+		if (name.length() + suffix.length() > 31)
+			name = name.substring(0, 31 - suffix.length());
+		
+		sheet = workbook.createSheet(name + suffix);
+		rowIndex = 0;
+		
+		Row headerRow = sheet.createRow(rowIndex++);
+		for (int i = 0; i < header.size(); i++) {
+			Cell headerCell = headerRow.createCell(i);
+			headerCell.setCellValue(header.get(i));
+			headerCell.setCellStyle(headerStyle);
+		}
+	}
+}
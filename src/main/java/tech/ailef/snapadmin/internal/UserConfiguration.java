@@ -19,13 +19,18 @@
 
 package tech.ailef.snapadmin.internal;
 
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import jakarta.annotation.PostConstruct;
+import tech.ailef.snapadmin.external.SnapAdminProperties;
 import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
 import tech.ailef.snapadmin.internal.model.UserSetting;
 import tech.ailef.snapadmin.internal.repository.UserSettingsRepository;
@@ -33,37 +38,157 @@ import tech.ailef.snapadmin.internal.repository.UserSettingsRepository;
 /**
  * Wrapper class for the UserSettingsRepository that provides a better
  * way of handling user settings. 
+ * 
+ * Settings are kept in memory and read from the database only when their
+ * version, stored as a setting itself and increased on every save, changes.
+ * The version is checked at most once every {@code snapadmin.settingsRefreshInterval}
+ * seconds, so changes saved by other instances sharing the internal database are
+ * picked up with a single lookup.
  */
 @Component
 public class UserConfiguration {
+	/**
+	 * The id of the setting holding the current version of the settings
+	 */
+	public static final String VERSION_KEY = "snapadmin.settingsVersion";
+	
+	/**
+	 * The default values of the settings
+	 */
+	private static final Map<String, String> DEFAULT_VALUES = Map.of(
+		"brandName", "SnapAdmin",
+		"additionalCss", ""
+	);
+	
 	@Autowired
 	private UserSettingsRepository repo;
 	
+	@Autowired
+	private SnapAdminProperties properties;
+	
+	@Autowired
+	private TransactionTemplate internalTransactionTemplate;
+	
+	/**
+	 * The cached settings, replaced as a whole when reloaded
+	 */
+	private volatile Map<String, String> values = Map.of();
+	
+	private volatile long version = -1;
+	
+	private volatile long lastCheck;
+	
+	@PostConstruct
+	private void init() {
+		createVersionSetting();
+		reload();
+	}
+	
+	/**
+	 * Creates the version setting if it doesn't exist, so that saves can always
+	 * lock its row. If another instance sharing the internal database creates it 
+	 * at the same time, its row is kept. The version starts from the current time
+	 * rather than zero, so that if the row is recreated after being deleted, its 
+	 * versions don't match those already cached by other instances.
+	 */
+	public void createVersionSetting() {
+		if (repo.existsById(VERSION_KEY))
+			return;
+		
+		try {
+			internalTransactionTemplate.executeWithoutResult((status) -> {
+				repo.save(new UserSetting(VERSION_KEY, String.valueOf(System.currentTimeMillis())));
+			});
+		} catch (DataIntegrityViolationException e) {
+			// Created by another instance in the meantime
+		}
+	}
+	
 	/**
 	 * Returns the value of the specific setting
 	 * @param settingName	the name of the setting
 	 * @return	the value, if found, otherwise the default value if present, otherwise an empty string
 	 */
 	public String get(String settingName) {
-		Optional<UserSetting> setting = repo.findById(settingName);
-		if (setting.isPresent())
-			return setting.get().getSettingValue();
-		String settingDefaultValue = defaultValues().get(settingName);
+		refreshIfChanged();
+		
+		String value = values.get(settingName);
+		if (value != null)
+			return value;
+		String settingDefaultValue = DEFAULT_VALUES.get(settingName);
 		
 		if (settingDefaultValue == null)
 			throw new SnapAdminException("Trying to access setting `" + settingName + "` but it has no default value");
 		
 		return settingDefaultValue;
 	}
-
+	
+	/**
+	 * Updates the cached values with settings that have just been saved
+	 * @param settings	the saved settings
+	 * @param newVersion	the version of the settings after the save
+	 */
+	public synchronized void update(Collection<UserSetting> settings, long newVersion) {
+		if (newVersion != version + 1) {
+			// Another instance saved in the meantime, so the cache is missing its changes
+			reload();
+			return;
+		}
+		
+		Map<String, String> updated = new HashMap<>(values);
+		for (UserSetting setting : settings) {
+			if (setting.getSettingValue() == null)
+				updated.remove(setting.getId());
+			else
+				updated.put(setting.getId(), setting.getSettingValue());
+		}
+		values = updated;
+		version = newVersion;
+	}
+	
+	/**
+	 * Reloads the settings if their version on the database is different
+	 * from the cached one. Runs at most once per refresh interval.
+	 */
+	private void refreshIfChanged() {
+		long now = System.currentTimeMillis();
+		if (now - lastCheck < properties.getSettingsRefreshInterval() * 1000L)
+			return;
+		lastCheck = now;
+		
+		Optional<UserSetting> versionSetting = repo.findById(VERSION_KEY);
+		long currentVersion = versionSetting.map(s -> parseVersion(s.getSettingValue())).orElse(0L);
+		if (currentVersion != version)
+			reload();
+	}
+	
+	/**
+	 * Loads all the settings from the database
+	 */
+	private synchronized void reload() {
+		Map<String, String> loaded = new HashMap<>();
+		long loadedVersion = 0;
+		for (UserSetting setting : repo.findAll()) {
+			if (setting.getId().equals(VERSION_KEY))
+				loadedVersion = parseVersion(setting.getSettingValue());
+			else if (setting.getSettingValue() != null)
+				loaded.put(setting.getId(), setting.getSettingValue());
+		}
+		values = loaded;
+		version = loadedVersion;
+		lastCheck = System.currentTimeMillis();
+	}
+	
 	/**
-	 * Returns a map filled with the default values of the settings.
-	 * @return
+	 * Parses the value of the version setting
+	 * @param value	the value of the version setting
+	 * @return	the version, 0 if not valid
 	 */
-	private Map<String, String> defaultValues() {
-		Map<String, String> values = new HashMap<>();
-		values.put("brandName", "SnapAdmin");
-		values.put("additionalCss", "");
-		return values;
+	public static long parseVersion(String value) {
+		try {
+			return value == null ? 0 : Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
 	}
 }
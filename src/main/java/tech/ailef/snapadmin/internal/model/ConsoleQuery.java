@@ -26,9 +26,18 @@ import org.hibernate.annotations.UuidGenerator;
 
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
 
+/**
+ * A query saved in a tab of the SQL console. The index matches
+ * the order in which the tabs are shown.
+ */
 @Entity
+@Table(indexes = {
+	@Index(name = "idx_console_query_created_at", columnList = "createdAt, id")
+})
 public class ConsoleQuery {
 	@Id
 	@UuidGenerator
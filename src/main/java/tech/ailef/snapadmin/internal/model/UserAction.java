@@ -28,14 +28,26 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
 
 /**
  * An write operation executed by a user from the web UI. This class
  * only holds metadata about the operation and not anything
  * concrete yet (e.g. a diff or SQL query) about what change was performed. 
+ * 
+ * The indexes match the filters of the logs page, each followed by
+ * `(createdAt, id)` which is the order actions are browsed in.
  */
 @Entity
+@Table(indexes = {
+	@Index(name = "idx_user_action_created_at", columnList = "createdAt, id"),
+	@Index(name = "idx_user_action_table", columnList = "onTable, createdAt, id"),
+	@Index(name = "idx_user_action_item", columnList = "onTable, primaryKey, createdAt, id"),
+	@Index(name = "idx_user_action_type", columnList = "actionType, createdAt, id"),
+	@Index(name = "idx_user_action_username", columnList = "username, createdAt, id")
+})
 public class UserAction {
 	@Id
 	@GeneratedValue(strategy = GenerationType.IDENTITY)
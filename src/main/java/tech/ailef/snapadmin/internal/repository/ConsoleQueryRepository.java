@@ -19,6 +19,8 @@
 
 package tech.ailef.snapadmin.internal.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -26,5 +28,10 @@ import tech.ailef.snapadmin.internal.model.ConsoleQuery;
 
 @Repository
 public interface ConsoleQueryRepository extends JpaRepository<ConsoleQuery, String>, CustomActionRepository {
-	
+	/**
+	 * Returns all the queries in the order they were created, so that 
+	 * the console tabs are shown in the same order by all the instances
+	 * @return
+	 */
+	public List<ConsoleQuery> findAllByOrderByCreatedAtAscIdAsc();
 }
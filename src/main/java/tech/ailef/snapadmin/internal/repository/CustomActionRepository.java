@@ -21,6 +21,7 @@ package tech.ailef.snapadmin.internal.repository;
 
 import java.util.List;
 
+import tech.ailef.snapadmin.external.dto.KeysetCursor;
 import tech.ailef.snapadmin.external.dto.LogsSearchRequest;
 import tech.ailef.snapadmin.internal.model.UserAction;
 
@@ -28,5 +29,7 @@ public interface CustomActionRepository {
 	public List<UserAction> findActions(LogsSearchRequest r);
 	
 	public long countActions(LogsSearchRequest request);
+	
+	public List<UserAction> seekActions(LogsSearchRequest request, KeysetCursor cursor, boolean previous, int limit);
 
 }
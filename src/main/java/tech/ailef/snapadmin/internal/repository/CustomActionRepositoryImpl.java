@@ -19,7 +19,9 @@
 
 package tech.ailef.snapadmin.internal.repository;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.data.domain.PageRequest;
@@ -29,8 +31,10 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import tech.ailef.snapadmin.external.dto.KeysetCursor;
 import tech.ailef.snapadmin.external.dto.LogsSearchRequest;
 import tech.ailef.snapadmin.internal.model.UserAction;
 
@@ -52,38 +56,22 @@ public class CustomActionRepositoryImpl implements CustomActionRepository {
      */
     @Override
     public List<UserAction> findActions(LogsSearchRequest request) {
-    	String table = request.getTable();
-    	String actionType = request.getActionType();
-    	String username = request.getUsername();
-    	String itemId = request.getItemId();
     	PageRequest page = request.toPageRequest();
 
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<UserAction> query = cb.createQuery(UserAction.class);
         Root<UserAction> userAction = query.from(UserAction.class);
 
-        List<Predicate> predicates = new ArrayList<Predicate>();
-        if (table != null)
-            predicates.add(cb.equal(userAction.get("onTable"), table));
-        if (actionType != null)
-            predicates.add(cb.equal(userAction.get("actionType"), actionType));
-        if (itemId != null)
-        	predicates.add(cb.equal(userAction.get("primaryKey"), itemId));
-        if (username != null)
-        	predicates.add(cb.equal(userAction.get("username"), username));
-        
-        if (!predicates.isEmpty()) {
-            query.select(userAction)
-                 .where(cb.and(
-                            predicates.toArray(new Predicate[predicates.size()])));
-        }
+        List<Predicate> predicates = buildPredicates(request, cb, userAction);
+        query.select(userAction)
+             .where(cb.and(predicates.toArray(new Predicate[predicates.size()])));
         
         if (request.getSortKey() != null) {
         	String key = request.getSortKey();
         	if (request.getSortOrder().equalsIgnoreCase("ASC")) {
-        		query.orderBy(cb.asc(userAction.get(key)));
+        		query.orderBy(cb.asc(userAction.get(key)), cb.asc(userAction.get("id")));
         	} else {
-        		query.orderBy(cb.desc(userAction.get(key)));
+        		query.orderBy(cb.desc(userAction.get(key)), cb.desc(userAction.get("id")));
         	}
         }
         
@@ -93,22 +81,81 @@ public class CustomActionRepositoryImpl implements CustomActionRepository {
         			.getResultList();
     }
     
+    /**
+     * Returns the actions matching the search request in time order (most recent first,
+     * unless sorting by `createdAt` ascending), starting after the given position.
+     * The position is compared on `(createdAt, id)`, so the query can be answered by
+     * reading the indexes from the position onwards instead of skipping an offset.
+     * @param request	the search request
+     * @param cursor	the position, with `createdAt` as sort value and `id` as primary key,
+     * 	null to start from the first page
+     * @param previous	whether to read the rows before the position instead of after
+     * @param limit	the maximum number of actions to return
+     * @return the actions, in display order
+     */
+    @Override
+    public List<UserAction> seekActions(LogsSearchRequest request, KeysetCursor cursor, boolean previous, int limit) {
+    	boolean ascending = "createdAt".equals(request.getSortKey()) && "ASC".equalsIgnoreCase(request.getSortOrder());
+    	// Reading backwards from the cursor means reversing the order
+    	boolean reverse = ascending == previous;
+    	
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserAction> query = cb.createQuery(UserAction.class);
+        Root<UserAction> userAction = query.from(UserAction.class);
+        Path<LocalDateTime> createdAt = userAction.get("createdAt");
+        Path<Integer> id = userAction.get("id");
+
+        List<Predicate> predicates = buildPredicates(request, cb, userAction);
+        if (cursor != null) {
+        	LocalDateTime time = (LocalDateTime)cursor.getSortValue();
+        	Integer actionId = (Integer)cursor.getPrimaryKeyValue();
+        	
+        	predicates.add(
+        		reverse ? 
+        			cb.or(cb.lessThan(createdAt, time), cb.and(cb.equal(createdAt, time), cb.lessThan(id, actionId)))
+        			: cb.or(cb.greaterThan(createdAt, time), cb.and(cb.equal(createdAt, time), cb.greaterThan(id, actionId)))
+        	);
+        }
+        
+        query.select(userAction)
+        	.where(cb.and(predicates.toArray(new Predicate[predicates.size()])))
+        	.orderBy(reverse ? cb.desc(createdAt) : cb.asc(createdAt), reverse ? cb.desc(id) : cb.asc(id));
+        
+        List<UserAction> results = 
+        	new ArrayList<>(entityManager.createQuery(query).setMaxResults(limit).getResultList());
+        if (previous)
+        	Collections.reverse(results);
+        
+        return results;
+    }
+    
     /**
      * Returns the count that match the filtering parameters, used for pagination.
      * @return the number of user actions matching the filtering parameters
      */
     @Override
     public long countActions(LogsSearchRequest request) {
-
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Long> query = cb.createQuery(Long.class);
         Root<UserAction> userAction = query.from(UserAction.class);
-
-        String table = request.getTable();
-        String actionType = request.getActionType();
-        String itemId = request.getItemId();
-        String username = request.getUsername();
         
+        List<Predicate> predicates = buildPredicates(request, cb, userAction);
+        query.select(cb.count(userAction))
+             .where(cb.and(predicates.toArray(new Predicate[predicates.size()])));
+        
+        return entityManager.createQuery(query).getSingleResult();
+    }
+    
+    /**
+     * Builds the predicates for the filters of the search request, ignoring
+     * the ones that are not set
+     */
+    private List<Predicate> buildPredicates(LogsSearchRequest request, CriteriaBuilder cb, Root<UserAction> userAction) {
+    	String table = request.getTable();
+    	String actionType = request.getActionType();
+    	String itemId = request.getItemId();
+    	String username = request.getUsername();
+    	
         List<Predicate> predicates = new ArrayList<>();
         if (table != null)
             predicates.add(cb.equal(userAction.get("onTable"), table));
@@ -118,16 +165,7 @@ public class CustomActionRepositoryImpl implements CustomActionRepository {
         	predicates.add(cb.equal(userAction.get("primaryKey"), itemId));
         if (username != null)
         	predicates.add(cb.equal(userAction.get("username"), username));
-        
-        if (!predicates.isEmpty()) {
-            query.select(cb.count(userAction))
-                 .where(cb.and(
-                            predicates.toArray(new Predicate[predicates.size()])));
-        } else {
-        	query.select(cb.count(userAction));
-        }
-        
-        return entityManager.createQuery(query).getSingleResult();
+        return predicates;
     }
 
 }
\ No newline at end of file
@@ -19,12 +19,26 @@
 
 package tech.ailef.snapadmin.internal.repository;
 
+import java.util.Optional;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
 import tech.ailef.snapadmin.internal.model.UserSetting;
 
 @Repository
 public interface UserSettingsRepository extends JpaRepository<UserSetting, String> {
-	
+	/**
+	 * Finds the setting with the given id and locks its row until the
+	 * end of the current transaction
+	 * @param id	the id of the setting
+	 * @return
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@Query("SELECT s FROM UserSetting s WHERE s.id = :id")
+	public Optional<UserSetting> findByIdForUpdate(@Param("id") String id);
 }
@@ -49,7 +49,7 @@ public class ConsoleQueryService {
 	}
 	
 	public List<ConsoleQuery> findAll() {
-		return repo.findAll();
+		return repo.findAllByOrderByCreatedAtAscIdAsc();
 	}
 	
 	public Optional<ConsoleQuery> findById(String id) {
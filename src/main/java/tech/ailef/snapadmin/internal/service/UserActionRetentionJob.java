@@ -0,0 +1,199 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.internal.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import tech.ailef.snapadmin.external.SnapAdminProperties;
+import tech.ailef.snapadmin.internal.model.UserSetting;
+import tech.ailef.snapadmin.internal.repository.UserSettingsRepository;
+
+/**
+ * Deletes the user actions older than {@code snapadmin.auditRetentionDays} from
+ * the audit log. Runs every hour in the background, deleting the expired actions 
+ * in small batches (found through the index on `createdAt`) so that each 
+ * transaction stays short and doesn't hold up the writes of new actions.
+ * 
+ * When several instances share the internal database, each pass is claimed 
+ * by recording its start time in a setting, whose row is locked while 
+ * checking it: an instance skips its pass if another one already started 
+ * one within the interval, so that the deletion runs on one instance at a time.
+ */
+@Service
+public class UserActionRetentionJob {
+	private static final Logger logger = LoggerFactory.getLogger(UserActionRetentionJob.class);
+	
+	/**
+	 * The maximum number of actions deleted in a single transaction
+	 */
+	private static final int BATCH_SIZE = 1000;
+	
+	/**
+	 * The minutes between two passes
+	 */
+	private static final long INTERVAL_MINUTES = 60;
+	
+	/**
+	 * The id of the setting holding the start time of the last pass
+	 */
+	public static final String LAST_RUN_KEY = "snapadmin.auditRetentionLastRun";
+	
+	@Autowired
+	private SnapAdminProperties properties;
+	
+	@Autowired
+	private UserSettingsRepository settingsRepo;
+	
+	@Autowired
+	private TransactionTemplate internalTransactionTemplate;
+	
+	@Autowired
+	@Qualifier("internalDataSource")
+	private DataSource internalDataSource;
+	
+	private ScheduledExecutorService executor;
+	
+	@PostConstruct
+	private void init() {
+		if (properties.getAuditRetentionDays() <= 0) return;
+		
+		executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "snapadmin-audit-retention");
+			t.setDaemon(true);
+			return t;
+		});
+		executor.scheduleWithFixedDelay(this::run, 1, INTERVAL_MINUTES, TimeUnit.MINUTES);
+	}
+	
+	private void run() {
+		try {
+			if (claimPass())
+				deleteExpired();
+		} catch (DataAccessException e) {
+			logger.error("Unable to claim the deletion of expired user actions: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Records the start of a pass in the internal database, unless another 
+	 * instance (or this one) started one less than an interval ago. A minute
+	 * of tolerance is left for the clocks of different instances.
+	 * @return	whether this instance should run the pass
+	 */
+	public boolean claimPass() {
+		createLastRunSetting();
+		
+		return internalTransactionTemplate.execute((status) -> {
+			UserSetting lastRun = settingsRepo.findByIdForUpdate(LAST_RUN_KEY).orElse(null);
+			if (lastRun == null) return false;
+			
+			long now = System.currentTimeMillis();
+			if (now - parseTime(lastRun.getSettingValue()) < TimeUnit.MINUTES.toMillis(INTERVAL_MINUTES - 1))
+				return false;
+			
+			lastRun.setSettingValue(String.valueOf(now));
+			settingsRepo.save(lastRun);
+			return true;
+		});
+	}
+	
+	/**
+	 * Creates the setting holding the start time of the last pass, if it doesn't
+	 * exist, ignoring the failure if another instance creates it at the same time
+	 */
+	private void createLastRunSetting() {
+		if (settingsRepo.existsById(LAST_RUN_KEY))
+			return;
+		
+		try {
+			internalTransactionTemplate.executeWithoutResult((status) -> {
+				settingsRepo.save(new UserSetting(LAST_RUN_KEY, "0"));
+			});
+		} catch (DataIntegrityViolationException e) {
+			// Created by another instance in the meantime
+		}
+	}
+	
+	private static long parseTime(String value) {
+		try {
+			return value == null ? 0 : Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return 0;
+		}
+	}
+	
+	/**
+	 * Deletes the actions older than the retention period
+	 * @return the number of deleted actions
+	 */
+	public long deleteExpired() {
+		if (properties.getAuditRetentionDays() <= 0) return 0;
+		
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(internalDataSource);
+		jdbcTemplate.setMaxRows(BATCH_SIZE);
+		
+		String table = properties.getInternalDbSchema() == null ? "UserAction" : properties.getInternalDbSchema() + ".UserAction";
+		String selectSql = "SELECT id FROM " + table + " WHERE createdAt < ? ORDER BY createdAt, id";
+		LocalDateTime threshold = LocalDateTime.now().minusDays(properties.getAuditRetentionDays());
+		
+		long total = 0;
+		try {
+			List<Integer> ids;
+			do {
+				ids = jdbcTemplate.queryForList(selectSql, Integer.class, threshold);
+				if (ids.isEmpty()) break;
+				
+				String placeholders = ids.stream().map(id -> "?").collect(Collectors.joining(", "));
+				total += jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (" + placeholders + ")", ids.toArray());
+			} while (ids.size() == BATCH_SIZE && !Thread.currentThread().isInterrupted());
+		} catch (DataAccessException e) {
+			logger.error("Unable to delete expired user actions: " + e.getMessage());
+		}
+		
+		if (total > 0)
+			logger.info("Deleted " + total + " user actions older than " + properties.getAuditRetentionDays() + " days");
+		return total;
+	}
+	
+	@PreDestroy
+	public void shutdown() {
+		if (executor != null)
+			executor.shutdown();
+	}
+}
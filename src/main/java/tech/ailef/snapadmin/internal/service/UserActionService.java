@@ -19,19 +19,20 @@
 
 package tech.ailef.snapadmin.internal.service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.support.TransactionTemplate;
 
+import tech.ailef.snapadmin.external.dto.KeysetCursor;
 import tech.ailef.snapadmin.external.dto.LogsSearchRequest;
 import tech.ailef.snapadmin.external.dto.PaginatedResult;
 import tech.ailef.snapadmin.external.dto.PaginationInfo;
 import tech.ailef.snapadmin.internal.model.UserAction;
 import tech.ailef.snapadmin.internal.repository.CustomActionRepositoryImpl;
-import tech.ailef.snapadmin.internal.repository.UserActionRepository;
 
 /**
  * Service class to retrieve user actions through the {@link CustomActionRepositoryImpl}. 
@@ -39,27 +40,38 @@ import tech.ailef.snapadmin.internal.repository.UserActionRepository;
  */
 @Service
 public class UserActionService {
-	@Autowired
-	private UserActionRepository repo;
-	
 	@Autowired
 	private CustomActionRepositoryImpl customRepo;
 	
 	@Autowired
-	private TransactionTemplate internalTransactionTemplate;
+	private UserActionWriter writer;
 	
+	/**
+	 * Queues the action to be written to the audit log by the {@link UserActionWriter}.
+	 * The action is written asynchronously, so its id is not set yet when this returns.
+	 * @param a	the action to save
+	 * @return the action
+	 */
 	public UserAction save(UserAction a) {
-		return internalTransactionTemplate.execute(status -> {
-			return repo.save(a);
-		});
+		writer.submit(a);
+		return a;
 	}
 	
 	/**
 	 * Retruns a page of results of user actions that match the given input request.
+	 * When sorting by time (the default) the pages are browsed with a cursor on
+	 * `(createdAt, id)` and the total number of results is not computed,
+	 * otherwise offset pagination is used.
 	 * @param request a request containing filtering parameters for user actions
 	 * @return a page of results matching the input request
 	 */
 	public PaginatedResult<UserAction> findActions(LogsSearchRequest request) {
+		// Make sure the actions still in the queue are included in the results
+		writer.flush();
+		
+		if (request.isSortedByTime())
+			return seekActions(request);
+		
 		PageRequest page = request.toPageRequest();
 		
 		long count = customRepo.countActions(request);
@@ -72,4 +84,46 @@ public class UserActionService {
 		);
 	}
 	
+	private PaginatedResult<UserAction> seekActions(LogsSearchRequest request) {
+		int pageSize = request.getPageSize() <= 0 ? 50 : request.getPageSize();
+		int page = Math.max(request.getPage(), 1);
+		boolean previous = "prev".equals(request.getDirection());
+		
+		KeysetCursor cursor = null;
+		if (request.getCursor() != null) {
+			cursor = KeysetCursor.decode(request.getCursor(), Integer::valueOf, LocalDateTime::parse);
+		} else {
+			page = 1;
+			previous = false;
+		}
+		
+		// We fetch one more row to know if there's another page in the same direction
+		List<UserAction> actions = new ArrayList<>(customRepo.seekActions(request, cursor, previous, pageSize + 1));
+		boolean hasMore = actions.size() > pageSize;
+		if (hasMore) {
+			if (previous) actions.remove(0);
+			else actions.remove(actions.size() - 1);
+		}
+		
+		boolean hasPrevious = previous ? hasMore : cursor != null;
+		boolean hasNext = previous ? true : hasMore;
+		if (actions.isEmpty()) {
+			hasPrevious = false;
+			hasNext = false;
+		}
+		
+		String previousCursor = hasPrevious ? toCursor(actions.get(0)) : null;
+		String nextCursor = hasNext ? toCursor(actions.get(actions.size() - 1)) : null;
+		
+		return new PaginatedResult<>(
+			new PaginationInfo(page, pageSize, null, request, request.getSortKey(), request.getSortOrder(), 
+				previousCursor, nextCursor),
+			actions
+		);
+	}
+	
+	private String toCursor(UserAction action) {
+		return new KeysetCursor(action.getCreatedAt(), action.getId()).encode();
+	}
+	
 }
@@ -0,0 +1,329 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.internal.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import tech.ailef.snapadmin.external.SnapAdminProperties;
+import tech.ailef.snapadmin.internal.model.UserAction;
+
+/**
+ * Writes user actions to the audit log in the background. Actions are put in a
+ * bounded queue and a single thread writes them with JDBC batch inserts, one
+ * transaction per batch, when {@code snapadmin.auditBatchSize} actions are 
+ * waiting or the oldest one has waited {@code snapadmin.auditFlushInterval} 
+ * milliseconds. Pending actions are written on shutdown.
+ */
+@Service
+public class UserActionWriter {
+	private static final Logger logger = LoggerFactory.getLogger(UserActionWriter.class);
+	
+	@Autowired
+	private SnapAdminProperties properties;
+	
+	@Autowired
+	@Qualifier("internalDataSource")
+	private DataSource internalDataSource;
+	
+	private JdbcTemplate jdbcTemplate;
+	
+	/**
+	 * The insert statement, with the table qualified by {@code snapadmin.internalDbSchema} if set
+	 */
+	private String insertSql;
+	
+	private TransactionTemplate transactionTemplate;
+	
+	private BlockingQueue<UserAction> queue;
+	
+	/**
+	 * The actions taken from the queue and not written yet, 
+	 * guarded by {@link #writeLock}
+	 */
+	private List<UserAction> pending = new ArrayList<>();
+	
+	private final Object writeLock = new Object();
+	
+	private Thread flusher;
+	
+	private volatile boolean running;
+	
+	private AtomicLong writtenCount = new AtomicLong();
+	
+	private AtomicLong droppedCount = new AtomicLong();
+	
+	private AtomicLong failedCount = new AtomicLong();
+	
+	private AtomicLong flushCount = new AtomicLong();
+	
+	private AtomicLong totalFlushNanos = new AtomicLong();
+	
+	private volatile long lastFlushNanos;
+	
+	private volatile long maxFlushNanos;
+	
+	@PostConstruct
+	private void init() {
+		jdbcTemplate = new JdbcTemplate(internalDataSource);
+		
+		String table = properties.getInternalDbSchema() == null ? "UserAction" : properties.getInternalDbSchema() + ".UserAction";
+		insertSql = "INSERT INTO " + table + " (createdAt, sql, javaClass, onTable, primaryKey, actionType, username) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?)";
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(internalDataSource));
+		queue = new ArrayBlockingQueue<>(Math.max(1, properties.getAuditQueueCapacity()));
+		
+		running = true;
+		flusher = new Thread(this::run, "snapadmin-audit-writer");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+	
+	/**
+	 * Adds a user action to the queue. If the queue is full, waits for space
+	 * or drops the action, according to {@code snapadmin.auditBlockWhenFull}.
+	 * @param action	the action to write
+	 */
+	public void submit(UserAction action) {
+		if (!running) {
+			write(List.of(action));
+			return;
+		}
+		
+		if (properties.isAuditBlockWhenFull()) {
+			try {
+				queue.put(action);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				write(List.of(action));
+			}
+		} else if (!queue.offer(action)) {
+			// Log the first drop and then one every thousand, to avoid flooding the logs
+			if (droppedCount.getAndIncrement() % 1000 == 0)
+				logger.warn("Audit log queue is full, dropping user actions (" + droppedCount.get() + " dropped so far)");
+		}
+	}
+	
+	/**
+	 * Writes all the pending actions on the calling thread, so they
+	 * are visible to queries that run afterwards
+	 */
+	public void flush() {
+		synchronized (writeLock) {
+			int batchSize = getBatchSize();
+			do {
+				queue.drainTo(pending, batchSize - pending.size());
+				writePending();
+			} while (!queue.isEmpty());
+		}
+	}
+	
+	/**
+	 * Returns the number of actions waiting to be written
+	 * @return
+	 */
+	public int getQueueDepth() {
+		synchronized (writeLock) {
+			return queue.size() + pending.size();
+		}
+	}
+	
+	/**
+	 * Returns the number of actions written to the audit log
+	 * @return
+	 */
+	public long getWrittenCount() {
+		return writtenCount.get();
+	}
+	
+	/**
+	 * Returns the number of actions dropped because the queue was full
+	 * @return
+	 */
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+	
+	/**
+	 * Returns the number of actions lost because their batch could not be written
+	 * @return
+	 */
+	public long getFailedCount() {
+		return failedCount.get();
+	}
+	
+	/**
+	 * Returns the number of batches written
+	 * @return
+	 */
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+	
+	/**
+	 * Returns how long, in milliseconds, it took to write the last batch
+	 * @return
+	 */
+	public double getLastFlushMillis() {
+		return lastFlushNanos / 1_000_000.0;
+	}
+	
+	/**
+	 * Returns how long, in milliseconds, it took on average to write a batch
+	 * @return
+	 */
+	public double getAverageFlushMillis() {
+		long count = flushCount.get();
+		if (count == 0) return 0;
+		return totalFlushNanos.get() / 1_000_000.0 / count;
+	}
+	
+	/**
+	 * Returns the longest time, in milliseconds, it took to write a batch
+	 * @return
+	 */
+	public double getMaxFlushMillis() {
+		return maxFlushNanos / 1_000_000.0;
+	}
+	
+	/**
+	 * Stops the background thread and writes the pending actions
+	 */
+	@PreDestroy
+	public void shutdown() {
+		running = false;
+		
+		// The thread is not interrupted since H2 closes the 
+		// database file when interrupted during a write
+		try {
+			flusher.join(Math.max(1000, properties.getAuditFlushInterval() * 2L));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		flush();
+	}
+	
+	private void run() {
+		long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, properties.getAuditFlushInterval()));
+		int batchSize = getBatchSize();
+		
+		while (running) {
+			try {
+				UserAction first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+				if (first == null) continue;
+				
+				synchronized (writeLock) {
+					pending.add(first);
+				}
+				
+				// Wait for the batch to fill up, or until the first action has waited long enough
+				long deadline = System.nanoTime() + flushIntervalNanos;
+				while (running) {
+					synchronized (writeLock) {
+						queue.drainTo(pending, batchSize - pending.size());
+						if (pending.size() >= batchSize || pending.isEmpty()) break;
+					}
+					
+					long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) break;
+					
+					UserAction next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+					if (next == null) break;
+					synchronized (writeLock) {
+						pending.add(next);
+					}
+				}
+				
+				synchronized (writeLock) {
+					writePending();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				logger.error("Unexpected error in the audit log writer", e);
+			}
+		}
+	}
+	
+	/**
+	 * Writes and clears the pending actions, must be called while holding {@link #writeLock}
+	 */
+	private void writePending() {
+		if (pending.isEmpty()) return;
+		
+		try {
+			write(pending);
+		} finally {
+			pending.clear();
+		}
+	}
+	
+	private void write(List<UserAction> batch) {
+		long start = System.nanoTime();
+		try {
+			transactionTemplate.executeWithoutResult(status -> {
+				jdbcTemplate.batchUpdate(insertSql, batch, batch.size(), (ps, action) -> {
+					ps.setObject(1, action.getCreatedAt());
+					ps.setString(2, action.getSql());
+					ps.setString(3, action.getJavaClass());
+					ps.setString(4, action.getOnTable());
+					ps.setString(5, action.getPrimaryKey());
+					ps.setString(6, action.getActionType());
+					ps.setString(7, action.getUsername());
+				});
+			});
+			writtenCount.addAndGet(batch.size());
+		} catch (DataAccessException e) {
+			failedCount.addAndGet(batch.size());
+			logger.error("Unable to write " + batch.size() + " user actions to the audit log: " + e.getMessage());
+		}
+		
+		long elapsed = System.nanoTime() - start;
+		lastFlushNanos = elapsed;
+		maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+		totalFlushNanos.addAndGet(elapsed);
+		flushCount.incrementAndGet();
+		logger.debug("Wrote " + batch.size() + " user actions to the audit log in " + (elapsed / 1_000_000) + "ms");
+	}
+	
+	private int getBatchSize() {
+		return Math.max(1, properties.getAuditBatchSize());
+	}
+}
@@ -18,10 +18,14 @@
 
 package tech.ailef.snapadmin.internal.service;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.support.TransactionTemplate;
 
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+import tech.ailef.snapadmin.internal.UserConfiguration;
 import tech.ailef.snapadmin.internal.model.UserSetting;
 import tech.ailef.snapadmin.internal.repository.UserSettingsRepository;
 
@@ -33,10 +37,54 @@ public class UserSettingsService {
 	@Autowired
 	private UserSettingsRepository repo;
 	
+	@Autowired
+	private UserConfiguration userConf;
+	
 	public UserSetting save(UserSetting q) {
+		return saveAll(List.of(q)).get(0);
+	}
+	
+	/**
+	 * Saves the given settings in a single transaction, increasing the settings
+	 * version so that other instances reload them, and updates the cached values.
+	 * The version row is locked to serialize concurrent saves: if it's missing 
+	 * (it's created at startup, but may have been deleted) it is created and 
+	 * the save is retried once.
+	 * @param settings	the settings to save
+	 * @return	the saved settings
+	 */
+	public List<UserSetting> saveAll(List<UserSetting> settings) {
+		long[] version = new long[1];
+		
+		List<UserSetting> saved = saveVersioned(settings, version);
+		if (saved == null) {
+			userConf.createVersionSetting();
+			saved = saveVersioned(settings, version);
+			if (saved == null)
+				throw new SnapAdminException("Unable to save settings: the settings version is missing");
+		}
+		
+		userConf.update(saved, version[0]);
+		return saved;
+	}
+	
+	/**
+	 * Saves the settings and increases the version, holding the lock on the version row
+	 * @param settings	the settings to save
+	 * @param version	filled with the new version
+	 * @return	the saved settings, or null if the version row doesn't exist
+	 */
+	private List<UserSetting> saveVersioned(List<UserSetting> settings, long[] version) {
 		return internalTransactionTemplate.execute((status) -> {
-			return repo.save(q);
+			UserSetting versionSetting = repo.findByIdForUpdate(UserConfiguration.VERSION_KEY).orElse(null);
+			if (versionSetting == null)
+				return null;
+			
+			version[0] = UserConfiguration.parseVersion(versionSetting.getSettingValue()) + 1;
+			versionSetting.setSettingValue(String.valueOf(version[0]));
+			repo.save(versionSetting);
+			
+			return repo.saveAll(settings);
 		});
-	
 	}
 }
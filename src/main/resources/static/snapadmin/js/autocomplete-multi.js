@@ -1,10 +1,19 @@
 /* Request to the autocomplete REST endpoit */
 async function getSuggestions(className, query) {
-	const response = await fetch(`/${baseUrl}/api/autocomplete/${className}?query=${query}`);
+	const response = await fetch(`/${baseUrl}/api/autocomplete/${className}?query=${encodeURIComponent(query)}`);
 	const suggestions = await response.json();
 	return suggestions;
 }
 
+/* Delays calls to the function until it hasn't been called for the given time */
+function debounce(fn, delay) {
+	let timer;
+	return (...args) => {
+		clearTimeout(timer);
+		timer = setTimeout(() => fn(...args), delay);
+	};
+}
+
 function hideSuggestions(inputElement) {
 	let suggestionsDiv = inputElement.parentElement.querySelector("div.suggestions");
 	suggestionsDiv.classList.remove('d-block');
@@ -61,7 +70,7 @@ document.addEventListener("DOMContentLoaded", () => {
 		input.parentElement.querySelector("div.suggestions").innerHTML = 
 			`<div class="suggestion p-2 m-0">Start typing for suggestions</div>`;
 		
-		input.addEventListener('keyup', async function(e) {
+		input.addEventListener('keyup', debounce(async function(e) {
 			let suggestions = await getSuggestions(e.target.dataset.classname, e.target.value);
 			input.parentElement.querySelector("div.suggestions").innerHTML = "";
 			
@@ -117,7 +126,7 @@ document.addEventListener("DOMContentLoaded", () => {
 					 
 				input.parentElement.querySelector("div.suggestions").appendChild(suggestionDiv);
 			}
-		});
+		}, 200));
 				
 	});
 });
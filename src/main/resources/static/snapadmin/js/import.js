@@ -0,0 +1,46 @@
+/* Polls the state of an import until it's finished */
+async function pollImport(root) {
+	const response = await fetch(`/${baseUrl}/api/import/${root.dataset.id}`);
+	const job = await response.json();
+	
+	['rows', 'imported', 'failed', 'rowsPerSecond', 'elapsed'].forEach(key => {
+		document.getElementById(`import-${key}`).innerText = job[key];
+	});
+	
+	document.getElementById('import-ignoredColumns').innerText = 
+		job.ignoredColumns.length == 0 ? '-' : job.ignoredColumns.join(', ');
+	
+	if (job.error != null) {
+		let errorDiv = document.getElementById('import-error');
+		errorDiv.innerText = job.error;
+		errorDiv.classList.remove('d-none');
+	}
+	
+	let errors = document.getElementById('import-errors');
+	errors.innerHTML = '';
+	job.errors.forEach(error => {
+		let row = document.createElement('tr');
+		let number = document.createElement('td');
+		number.innerText = error.row;
+		let message = document.createElement('td');
+		message.classList.add('font-monospace');
+		message.innerText = error.message;
+		row.appendChild(number);
+		row.appendChild(message);
+		errors.appendChild(row);
+	});
+	
+	if (job.finished) {
+		document.getElementById('import-status').innerText = 'Finished';
+	} else {
+		setTimeout(() => pollImport(root), 1000);
+	}
+}
+
+document.addEventListener("DOMContentLoaded", () => {
+	let root = document.getElementById('import-job');
+	
+	if (root == null) return;
+	
+	pollImport(root);
+});
@@ -22,7 +22,9 @@ package tech.ailef.snapadmin;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+
+@SpringBootTest(classes = SnapAdminTestApplication.class)
 class SpringBootSNapAdminApplicationTests {
 
 	@Test
@@ -0,0 +1,105 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+import tech.ailef.snapadmin.external.dbmapping.fields.IntegerFieldType;
+import tech.ailef.snapadmin.external.dbmapping.fields.LocalDateTimeFieldType;
+import tech.ailef.snapadmin.external.dbmapping.fields.LongFieldType;
+import tech.ailef.snapadmin.external.dbmapping.fields.StringFieldType;
+import tech.ailef.snapadmin.test.model.Author;
+import tech.ailef.snapadmin.test.model.Book;
+
+/**
+ * Checks the schemas built from the JPA metamodel for the test entities.
+ * Subclasses run the checks with eager and lazy field mapping.
+ */
+abstract class AbstractSchemaMappingTests {
+	@Autowired
+	protected SnapAdmin snapAdmin;
+	
+	protected void assertSchemas() {
+		List<String> classNames = snapAdmin.getSchemas().stream().map(DbObjectSchema::getClassName).toList();
+		assertEquals(List.of(Author.class.getName(), Book.class.getName()), classNames);
+		
+		assertEquals(snapAdmin.findSchemaByClass(Book.class), snapAdmin.findSchemaByTableName("book"));
+		assertEquals(snapAdmin.findSchemaByClass(Author.class), snapAdmin.findSchemaByTableName("author"));
+	}
+	
+	protected void assertBookMapping() {
+		DbObjectSchema book = snapAdmin.findSchemaByClass(Book.class);
+		
+		assertEquals("id", book.getPrimaryKey().getJavaName());
+		assertField(book, "id", "id", LongFieldType.class);
+		assertField(book, "title", "title", StringFieldType.class);
+		assertField(book, "pages", "pages", IntegerFieldType.class);
+		
+		// Inherited from the @MappedSuperclass
+		DbField createdAt = assertField(book, "createdAt", "created_at", LocalDateTimeFieldType.class);
+		assertFalse(createdAt.isNullable());
+		assertField(book, "createdBy", "created_by", StringFieldType.class);
+		
+		// The foreign key has the type of the primary key of the linked entity
+		DbField author = assertField(book, "author", "author_id", LongFieldType.class);
+		assertTrue(author.isForeignKey());
+		assertTrue(author.isToOne());
+		assertEquals(Author.class, author.getConnectedType());
+		assertEquals(snapAdmin.findSchemaByClass(Author.class), author.getConnectedSchema());
+		
+		assertEquals(8, book.getFields().size());
+		assertTrue(book.getErrors().isEmpty(), book.getErrors().toString());
+		assertNotNull(book.getAccessor("createdAt"));
+	}
+	
+	protected void assertAuthorMapping() {
+		DbObjectSchema author = snapAdmin.findSchemaByClass(Author.class);
+		
+		assertEquals("id", author.getPrimaryKey().getJavaName());
+		assertField(author, "name", "name", StringFieldType.class);
+		assertField(author, "country", "country", StringFieldType.class);
+		
+		DbField books = author.getFieldByJavaName("books");
+		assertNotNull(books);
+		assertEquals(Book.class, books.getConnectedType());
+		assertFalse(books.isToOne());
+		assertEquals(List.of(books), author.getRelationshipFields());
+		
+		assertTrue(author.getErrors().isEmpty(), author.getErrors().toString());
+	}
+	
+	private static DbField assertField(DbObjectSchema schema, String javaName, String name, Class<?> type) {
+		DbField field = schema.getFieldByJavaName(javaName);
+		assertNotNull(field, "Missing field " + javaName + " in " + schema.getClassName());
+		assertEquals(name, field.getName());
+		assertEquals(type, field.getType().getClass(), javaName);
+		assertEquals(field, schema.getFieldByName(name));
+		return field;
+	}
+}
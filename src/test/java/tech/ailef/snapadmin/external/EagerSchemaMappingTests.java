@@ -0,0 +1,44 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+
+/**
+ * Schema mapping with the default eager initialization
+ */
+@SpringBootTest(classes = SnapAdminTestApplication.class)
+class EagerSchemaMappingTests extends AbstractSchemaMappingTests {
+	@Test
+	void mapping() {
+		for (DbObjectSchema schema : snapAdmin.getSchemas())
+			assertTrue(schema.isInitialized(), schema.getClassName());
+		
+		assertSchemas();
+		assertBookMapping();
+		assertAuthorMapping();
+	}
+}
@@ -0,0 +1,55 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+import tech.ailef.snapadmin.test.model.Author;
+import tech.ailef.snapadmin.test.model.Book;
+
+/**
+ * Schema mapping with {@code snapadmin.lazySchemaInit}: fields are mapped
+ * on first access and must end up the same as with eager initialization
+ */
+@SpringBootTest(classes = SnapAdminTestApplication.class, properties = "snapadmin.lazySchemaInit=true")
+class LazySchemaMappingTests extends AbstractSchemaMappingTests {
+	@Test
+	void mapping() {
+		DbObjectSchema book = snapAdmin.findSchemaByClass(Book.class);
+		DbObjectSchema author = snapAdmin.findSchemaByClass(Author.class);
+		
+		// Registering the schemas doesn't map their fields
+		assertSchemas();
+		assertFalse(book.isInitialized());
+		assertFalse(author.isInitialized());
+		
+		assertBookMapping();
+		assertTrue(book.isInitialized());
+		
+		assertAuthorMapping();
+		assertTrue(author.isInitialized());
+	}
+}
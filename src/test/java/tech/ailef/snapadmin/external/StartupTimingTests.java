@@ -0,0 +1,135 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.metrics.StartupStep.Tag;
+
+import tech.ailef.snapadmin.external.dbmapping.DbObjectSchema;
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+
+/**
+ * Starts the application a few times with eager and lazy schema initialization
+ * and logs how long the creation of the {@link SnapAdmin} bean takes, excluding
+ * the beans it depends on (e.g. the entity manager factory)
+ */
+class StartupTimingTests {
+	private static final Logger logger = LoggerFactory.getLogger(StartupTimingTests.class);
+	
+	private static final int RUNS = 3;
+	
+	/**
+	 * Runs before the measured ones, which are otherwise skewed by class loading
+	 */
+	private static final int WARMUP_RUNS = 1;
+	
+	private static int contextCount;
+	
+	@Test
+	void eager() {
+		measure(false);
+	}
+	
+	@Test
+	void lazy() {
+		measure(true);
+	}
+	
+	private void measure(boolean lazySchemaInit) {
+		long totalSnapAdmin = 0;
+		long totalContext = 0;
+		
+		for (int i = 0; i < WARMUP_RUNS + RUNS; i++) {
+			BufferingApplicationStartup startup = new BufferingApplicationStartup(10000);
+			
+			long start = System.nanoTime();
+			try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SnapAdminTestApplication.class)
+					.web(WebApplicationType.SERVLET)
+					.applicationStartup(startup)
+					.properties(
+						"server.port=0",
+						"spring.datasource.url=jdbc:h2:mem:startup" + (++contextCount),
+						"snapadmin.lazySchemaInit=" + lazySchemaInit
+					).run()) {
+				long contextNanos = System.nanoTime() - start;
+				
+				List<DbObjectSchema> schemas = context.getBean(SnapAdmin.class).getSchemas();
+				assertEquals(2, schemas.size());
+				for (DbObjectSchema schema : schemas)
+					assertEquals(!lazySchemaInit, schema.isInitialized(), schema.getClassName());
+				
+				long snapAdminNanos = snapAdminInitNanos(startup.getBufferedTimeline().getEvents());
+				if (i >= WARMUP_RUNS) {
+					totalContext += contextNanos;
+					totalSnapAdmin += snapAdminNanos;
+				}
+			}
+		}
+		
+		logger.info("SnapAdmin startup with lazySchemaInit=" + lazySchemaInit + " (average of " + RUNS + " runs): " 
+			+ (totalSnapAdmin / RUNS / 1000) + " us for the SnapAdmin bean, " 
+			+ (totalContext / RUNS / 1000000) + " ms for the whole context");
+	}
+	
+	/**
+	 * Returns the time spent instantiating the SnapAdmin bean, without 
+	 * the time spent instantiating its dependencies
+	 */
+	private static long snapAdminInitNanos(List<TimelineEvent> events) {
+		TimelineEvent snapAdmin = events.stream()
+			.filter(e -> e.getStartupStep().getName().equals("spring.beans.instantiate"))
+			.filter(e -> "snapAdmin".equals(tag(e, "beanName")))
+			.findFirst()
+			.orElseThrow();
+		
+		long children = events.stream()
+			.filter(e -> e.getStartupStep().getParentId() != null 
+				&& e.getStartupStep().getParentId() == snapAdmin.getStartupStep().getId())
+			.map(TimelineEvent::getDuration)
+			.mapToLong(Duration::toNanos)
+			.sum();
+		
+		long nanos = snapAdmin.getDuration().toNanos() - children;
+		assertTrue(nanos > 0);
+		return nanos;
+	}
+	
+	private static String tag(TimelineEvent event, String key) {
+		return StreamSupport.stream(event.getStartupStep().getTags().spliterator(), false)
+			.filter(t -> t.getKey().equals(key))
+			.map(Tag::getValue)
+			.findFirst()
+			.orElse(null);
+	}
+}
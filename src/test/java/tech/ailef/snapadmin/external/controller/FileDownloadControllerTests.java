@@ -0,0 +1,146 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.controller;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+
+/**
+ * Checks the validators of downloads and thumbnails, for items
+ * with (Book) and without (Author) a `@Version` field
+ */
+@SpringBootTest(classes = SnapAdminTestApplication.class)
+@AutoConfigureMockMvc
+class FileDownloadControllerTests {
+	private static final String AUTHOR = "/admin/download/tech.ailef.snapadmin.test.model.Author/photo/1";
+	
+	private static final String BOOK = "/admin/download/tech.ailef.snapadmin.test.model.Book/attachment/1";
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	private MockMvc mockMvc;
+	
+	private byte[] image;
+	
+	@BeforeEach
+	void insertItems() throws Exception {
+		BufferedImage picture = new BufferedImage(600, 400, BufferedImage.TYPE_INT_RGB);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(picture, "png", out);
+		image = out.toByteArray();
+		
+		jdbcTemplate.update("INSERT INTO author (id, name, country, photo) VALUES (1, 'Author', 'IT', ?)", image);
+		jdbcTemplate.update("INSERT INTO book (id, title, pages, author_id, created_at, attachment, version) "
+			+ "VALUES (1, 'Book', 10, 1, CURRENT_TIMESTAMP, ?, 1)", image);
+	}
+	
+	@AfterEach
+	void deleteItems() {
+		jdbcTemplate.update("DELETE FROM book");
+		jdbcTemplate.update("DELETE FROM author");
+	}
+	
+	@Test
+	void versionedDownload() throws Exception {
+		MockHttpServletResponse response = mockMvc.perform(get(BOOK)).andReturn().getResponse();
+		assertEquals(200, response.getStatus());
+		assertArrayEquals(image, response.getContentAsByteArray());
+		
+		String etag = response.getHeader(HttpHeaders.ETAG);
+		assertNotNull(etag);
+		assertEquals(304, mockMvc.perform(get(BOOK).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse().getStatus());
+		
+		response = mockMvc.perform(get(BOOK).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, etag))
+			.andReturn().getResponse();
+		assertEquals(206, response.getStatus());
+		assertArrayEquals(Arrays.copyOf(image, 10), response.getContentAsByteArray());
+		
+		// A new version changes the ETag
+		jdbcTemplate.update("UPDATE book SET version = 2 WHERE id = 1");
+		assertEquals(200, mockMvc.perform(get(BOOK).header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse().getStatus());
+	}
+	
+	@Test
+	void unversionedDownload() throws Exception {
+		MockHttpServletResponse response = mockMvc.perform(get(AUTHOR)).andReturn().getResponse();
+		assertEquals(200, response.getStatus());
+		assertArrayEquals(image, response.getContentAsByteArray());
+		assertNull(response.getHeader(HttpHeaders.ETAG));
+		
+		// Plain ranges still work, conditional ones get the whole content
+		response = mockMvc.perform(get(AUTHOR).header(HttpHeaders.RANGE, "bytes=0-9")).andReturn().getResponse();
+		assertEquals(206, response.getStatus());
+		
+		response = mockMvc.perform(get(AUTHOR).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"x\""))
+			.andReturn().getResponse();
+		assertEquals(200, response.getStatus());
+		assertEquals(image.length, response.getContentAsByteArray().length);
+	}
+	
+	@Test
+	void unversionedThumbnail() throws Exception {
+		MockHttpServletResponse response = mockMvc.perform(get(AUTHOR + "/thumbnail")).andReturn().getResponse();
+		assertEquals(200, response.getStatus());
+		
+		BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(response.getContentAsByteArray()));
+		assertEquals(256, thumbnail.getWidth());
+		
+		String etag = response.getHeader(HttpHeaders.ETAG);
+		assertNotNull(etag);
+		assertEquals(304, mockMvc.perform(get(AUTHOR + "/thumbnail").header(HttpHeaders.IF_NONE_MATCH, etag))
+			.andReturn().getResponse().getStatus());
+		
+		// A different image with a different length gets a new thumbnail
+		BufferedImage picture = new BufferedImage(300, 600, BufferedImage.TYPE_INT_RGB);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(picture, "png", out);
+		jdbcTemplate.update("UPDATE author SET photo = ? WHERE id = 1", out.toByteArray());
+		
+		response = mockMvc.perform(get(AUTHOR + "/thumbnail").header(HttpHeaders.IF_NONE_MATCH, etag)).andReturn().getResponse();
+		assertEquals(200, response.getStatus());
+		thumbnail = ImageIO.read(new ByteArrayInputStream(response.getContentAsByteArray()));
+		assertEquals(256, thumbnail.getHeight());
+	}
+}
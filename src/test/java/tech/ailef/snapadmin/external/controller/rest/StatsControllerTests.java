@@ -0,0 +1,68 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.controller.rest;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+
+/**
+ * Checks that searching the same list page twice
+ * reuses the Hibernate query plan
+ */
+@SpringBootTest(classes = SnapAdminTestApplication.class)
+@AutoConfigureMockMvc
+class StatsControllerTests {
+	private static final String BOOKS = "/admin/model/tech.ailef.snapadmin.test.model.Book";
+	
+	@Autowired
+	private MockMvc mockMvc;
+	
+	@Autowired
+	private ObjectMapper mapper;
+	
+	@Test
+	void queryPlans() throws Exception {
+		JsonNode before = stats("/admin/api/stats/query-plans");
+		
+		mockMvc.perform(get(BOOKS + "?query=first")).andExpect(status().isOk());
+		mockMvc.perform(get(BOOKS + "?query=second")).andExpect(status().isOk());
+		
+		JsonNode after = stats("/admin/api/stats/query-plans");
+		assertTrue(after.get("statisticsEnabled").asBoolean());
+		assertTrue(after.get("hits").asLong() > before.get("hits").asLong(), after.toString());
+	}
+	
+	private JsonNode stats(String url) throws Exception {
+		String json = mockMvc.perform(get(url)).andReturn().getResponse().getContentAsString();
+		return mapper.readTree(json);
+	}
+}
@@ -0,0 +1,73 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import tech.ailef.snapadmin.external.dbmapping.query.DbQueryResult;
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+
+/**
+ * Checks that the row limit of the SQL console applies to the
+ * console page, but not to exports of the same query
+ */
+@SpringBootTest(classes = SnapAdminTestApplication.class, properties = "snapadmin.consoleMaxRows=5")
+class ConsoleQueryTests {
+	private static final String SQL = "SELECT x FROM SYSTEM_RANGE(1, 12)";
+	
+	@Autowired
+	private SnapAdminRepository repository;
+	
+	@Test
+	void pageIsTruncated() {
+		DbQueryResult result = repository.executeQuery(SQL, 1, 50);
+		
+		assertEquals(5, result.size());
+		assertTrue(result.isTruncated());
+	}
+	
+	@Test
+	void exportIsComplete() {
+		List<String> values = new ArrayList<>();
+		long rows = repository.forEachRow(SQL, row -> values.add(String.valueOf(row.get(row.getSortedFields().get(0)))));
+		
+		assertEquals(12, rows);
+		assertEquals(12, values.size());
+		assertEquals("12", values.get(11));
+	}
+	
+	@Test
+	void pageBeforeLimit() {
+		DbQueryResult result = repository.executeQuery(SQL, 1, 3);
+		
+		assertEquals(3, result.size());
+		assertTrue(result.hasMore());
+		assertFalse(result.isTruncated());
+	}
+}
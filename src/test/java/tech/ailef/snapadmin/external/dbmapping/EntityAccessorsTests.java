@@ -0,0 +1,198 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.hibernate.proxy.HibernateProxy;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.persistence.EntityManager;
+import tech.ailef.snapadmin.external.SnapAdmin;
+import tech.ailef.snapadmin.external.dbmapping.fields.DbField;
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+import tech.ailef.snapadmin.test.model.Author;
+import tech.ailef.snapadmin.test.model.Book;
+
+/**
+ * Checks that the method handle accessors read the same values as a lookup of 
+ * the getter by name through reflection (as done before they were introduced), 
+ * and compares the time taken by the two
+ */
+@SpringBootTest(classes = SnapAdminTestApplication.class)
+class EntityAccessorsTests {
+	private static final Logger logger = LoggerFactory.getLogger(EntityAccessorsTests.class);
+	
+	private static final int ITERATIONS = 200_000;
+	
+	@Autowired
+	private SnapAdmin snapAdmin;
+	
+	@Autowired
+	private EntityManager entityManager;
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+	
+	@Test
+	void sameValuesAsReflection() throws Exception {
+		DbObjectSchema schema = snapAdmin.findSchemaByClass(Book.class);
+		Book book = buildBook();
+		
+		for (DbField field : schema.getFields()) {
+			FieldAccessor accessor = schema.getAccessor(field.getJavaName());
+			assertTrue(accessor.hasGetter(), field.getJavaName());
+			assertEquals(reflectiveGet(book, field.getJavaName()), accessor.get(book), field.getJavaName());
+		}
+		
+		// Inherited from the @MappedSuperclass
+		assertEquals(book.getCreatedAt(), schema.getAccessor("createdAt").get(book));
+		assertEquals("Dune", schema.getAccessors().getDisplayName(book));
+	}
+	
+	@Test
+	void setter() {
+		DbObjectSchema schema = snapAdmin.findSchemaByClass(Book.class);
+		Book book = new Book();
+		
+		schema.getAccessor("title").set(book, "Emma");
+		schema.getAccessor("pages").set(book, 474);
+		schema.getAccessor("createdBy").set(book, "admin");
+		
+		assertEquals("Emma", book.getTitle());
+		assertEquals(474, book.getPages());
+		assertEquals("admin", book.getCreatedBy());
+	}
+	
+	@Test
+	void proxy() {
+		jdbcTemplate.update("INSERT INTO author (id, name, country) VALUES (1000, 'Proxied Author', 'IT')");
+		try {
+			DbObjectSchema schema = snapAdmin.findSchemaByClass(Author.class);
+			
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				Author author = entityManager.getReference(Author.class, 1000L);
+				assertTrue(author instanceof HibernateProxy);
+				
+				assertEquals("Proxied Author", schema.getAccessor("name").get(author));
+				assertEquals("Proxied Author", schema.getAccessors().getDisplayName(author));
+			});
+		} finally {
+			jdbcTemplate.update("DELETE FROM author WHERE id = 1000");
+		}
+	}
+	
+	@Test
+	void timings() throws Exception {
+		DbObjectSchema schema = snapAdmin.findSchemaByClass(Book.class);
+		List<DbField> fields = schema.getFields();
+		Book book = buildBook();
+		
+		// Warm up both paths before measuring
+		readWithAccessors(schema, fields, book);
+		readWithReflection(fields, book);
+		
+		long start = System.nanoTime();
+		int accessorHash = readWithAccessors(schema, fields, book);
+		long accessorNanos = System.nanoTime() - start;
+		
+		start = System.nanoTime();
+		int reflectionHash = readWithReflection(fields, book);
+		long reflectionNanos = System.nanoTime() - start;
+		
+		assertEquals(reflectionHash, accessorHash);
+		assertFalse(fields.isEmpty());
+		
+		long reads = (long)ITERATIONS * fields.size();
+		logger.info("Read " + reads + " field values: method handles " + (accessorNanos / 1_000_000) + " ms (" 
+			+ (accessorNanos / reads) + " ns/read), reflective lookup " + (reflectionNanos / 1_000_000) 
+			+ " ms (" + (reflectionNanos / reads) + " ns/read)");
+	}
+	
+	private int readWithAccessors(DbObjectSchema schema, List<DbField> fields, Book book) {
+		int hash = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			for (DbField field : fields) {
+				Object value = schema.getAccessor(field.getJavaName()).get(book);
+				hash = 31 * hash + (value == null ? 0 : value.hashCode());
+			}
+		}
+		return hash;
+	}
+	
+	private int readWithReflection(List<DbField> fields, Book book) throws Exception {
+		int hash = 0;
+		for (int i = 0; i < ITERATIONS; i++) {
+			for (DbField field : fields) {
+				Object value = reflectiveGet(book, field.getJavaName());
+				hash = 31 * hash + (value == null ? 0 : value.hashCode());
+			}
+		}
+		return hash;
+	}
+	
+	/**
+	 * Finds the getter by name among the declared methods of the class
+	 * and its superclasses, and invokes it
+	 */
+	private static Object reflectiveGet(Object instance, String javaName) 
+			throws IllegalAccessException, InvocationTargetException {
+		String name = "get" + Character.toUpperCase(javaName.charAt(0)) + javaName.substring(1);
+		for (Class<?> c = instance.getClass(); c != Object.class; c = c.getSuperclass()) {
+			for (Method m : c.getDeclaredMethods()) {
+				if (m.getName().equals(name) && m.getParameterCount() == 0)
+					return m.invoke(instance);
+			}
+		}
+		throw new IllegalArgumentException("No getter for " + javaName);
+	}
+	
+	private static Book buildBook() {
+		Author author = new Author();
+		author.setId(1L);
+		author.setName("Frank Herbert");
+		
+		Book book = new Book();
+		book.setId(1L);
+		book.setTitle("Dune");
+		book.setPages(412);
+		book.setAuthor(author);
+		book.setCreatedAt(LocalDateTime.of(2023, 10, 1, 12, 0));
+		book.setCreatedBy("admin");
+		return book;
+	}
+}
@@ -0,0 +1,32 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+
+/**
+ * Runs the checks of {@link ListPageQueryCountTests} with projection queries
+ * disabled, when list pages load whole entities and fetch the foreign keys with a join
+ */
+@SpringBootTest(classes = SnapAdminTestApplication.class, properties = "snapadmin.projectionQueries=false")
+class EntityListPageQueryCountTests extends ListPageQueryCountTests {
+}
@@ -0,0 +1,129 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.util.stream.IntStream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import jakarta.persistence.EntityManagerFactory;
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+
+/**
+ * Checks that list pages load the items linked by foreign keys
+ * together with the page, instead of one query per item
+ */
+@SpringBootTest(classes = SnapAdminTestApplication.class)
+@AutoConfigureMockMvc
+class ListPageQueryCountTests {
+	private static final String BOOKS = "/admin/model/tech.ailef.snapadmin.test.model.Book";
+	
+	private static final String AUTHORS = "/admin/model/tech.ailef.snapadmin.test.model.Author";
+	
+	/**
+	 * The count and the page itself
+	 */
+	private static final int MAX_STATEMENTS = 3;
+	
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	
+	@Autowired
+	private MockMvc mockMvc;
+	
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+	
+	@BeforeEach
+	void insertBooks() {
+		for (int i = 1; i <= 20; i++)
+			jdbcTemplate.update("INSERT INTO author (id, name, country) VALUES (?, ?, ?)", i, "Author " + i, "IT");
+		for (int i = 1; i <= 60; i++)
+			jdbcTemplate.update("INSERT INTO book (title, pages, author_id, created_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP)", 
+				"Book " + i, i, 1 + i % 20);
+	}
+	
+	@AfterEach
+	void deleteBooks() {
+		jdbcTemplate.update("DELETE FROM book");
+		jdbcTemplate.update("DELETE FROM author");
+	}
+	
+	@Test
+	void listPage() throws Exception {
+		assertBoundedStatements(BOOKS + "?pageSize=10", 10);
+		assertBoundedStatements(BOOKS + "?pageSize=50", 20);
+	}
+	
+	@Test
+	void searchPage() throws Exception {
+		assertBoundedStatements(BOOKS + "?pageSize=50&query=Book", 20);
+	}
+	
+	@Test
+	void sortedPage() throws Exception {
+		assertBoundedStatements(BOOKS + "?pageSize=50&sortKey=title&sortOrder=DESC", 20);
+	}
+	
+	@Test
+	void authorPage() throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		
+		MvcResult result = mockMvc.perform(get(AUTHORS + "?pageSize=50")).andReturn();
+		
+		assertEquals(200, result.getResponse().getStatus());
+		assertTrue(result.getResponse().getContentAsString().contains("Author 20<"));
+		assertTrue(statistics.getPrepareStatementCount() <= MAX_STATEMENTS);
+	}
+	
+	/**
+	 * Loads the page and checks that it shows the given number of distinct 
+	 * authors with no more than {@link #MAX_STATEMENTS} statements
+	 */
+	private void assertBoundedStatements(String url, int authors) throws Exception {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+		
+		MvcResult result = mockMvc.perform(get(url)).andReturn();
+		
+		assertEquals(200, result.getResponse().getStatus());
+		String html = result.getResponse().getContentAsString();
+		long shown = IntStream.rangeClosed(1, 20).filter(i -> html.contains("Author " + i + "<")).count();
+		assertEquals(authors, shown, url);
+		
+		long statements = statistics.getPrepareStatementCount();
+		assertTrue(statements <= MAX_STATEMENTS, url + " ran " + statements + " statements");
+	}
+}
@@ -0,0 +1,58 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import tech.ailef.snapadmin.external.SnapAdmin;
+import tech.ailef.snapadmin.external.exceptions.SnapAdminException;
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+import tech.ailef.snapadmin.test.model.Book;
+
+/**
+ * Checks that objects built from a projection query only expose the projected
+ * fields, instead of loading the `@Entity` instance for the others
+ */
+@SpringBootTest(classes = SnapAdminTestApplication.class)
+class ProjectedDbObjectTests {
+	@Autowired
+	private SnapAdmin snapAdmin;
+	
+	@Test
+	void projectedFields() {
+		DbObjectSchema schema = snapAdmin.findSchemaByClass(Book.class);
+		
+		ProjectedRow row = new ProjectedRow();
+		row.put("id", 1L);
+		row.put("title", "Dune");
+		DbObject object = new DbObject(row, schema);
+		
+		assertEquals(1L, object.getPrimaryKeyValue());
+		assertEquals("Dune", object.get("title").getValue());
+		
+		assertThrows(SnapAdminException.class, () -> object.get("pages"));
+		assertThrows(SnapAdminException.class, () -> object.getUnderlyingInstance());
+	}
+}
@@ -0,0 +1,96 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.blob;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+
+/**
+ * Checks how the fingerprints of originals without a `@Version` field
+ * are remembered, so that they are not read again on each request
+ */
+@SpringBootTest(classes = SnapAdminTestApplication.class)
+class ThumbnailCacheTests {
+	private static final String CLASS_NAME = "tech.ailef.snapadmin.test.model.Author";
+	
+	@Autowired
+	private ThumbnailCache thumbnails;
+	
+	@Test
+	void fingerprintRememberedAfterStaging() throws Exception {
+		String item = ThumbnailCache.itemKey(CLASS_NAME, 1, "photo");
+		BinaryContent content = new BinaryContent(new byte[] { 1, 2, 3, 4 }, null);
+		
+		assertNull(thumbnails.findFingerprint(item, content));
+		
+		Path staged = thumbnails.stage(content);
+		try {
+			assertEquals(4, Files.size(staged));
+		} finally {
+			thumbnails.discard(staged);
+		}
+		
+		String fingerprint = content.getFingerprint();
+		assertEquals(new BinaryContent(new byte[] { 1, 2, 3, 4 }, null).getFingerprint(), fingerprint);
+		
+		thumbnails.rememberFingerprint(item, content);
+		
+		// Only the length is checked, the content is not read again
+		assertEquals(fingerprint, thumbnails.findFingerprint(item, new BinaryContent(new byte[] { 9, 9, 9, 9 }, null)));
+		assertNull(thumbnails.findFingerprint(item, new BinaryContent(new byte[] { 1, 2, 3 }, null)));
+		assertNull(thumbnails.findFingerprint(ThumbnailCache.itemKey(CLASS_NAME, 10, "photo"), content));
+	}
+	
+	@Test
+	void forgetOnChange() throws Exception {
+		String item = ThumbnailCache.itemKey(CLASS_NAME, 2, "photo");
+		String other = ThumbnailCache.itemKey(CLASS_NAME, 20, "photo");
+		BinaryContent content = new BinaryContent(new byte[] { 5, 6 }, null);
+		content.getFingerprint();
+		
+		thumbnails.rememberFingerprint(item, content);
+		thumbnails.rememberFingerprint(other, content);
+		thumbnails.forget(CLASS_NAME, 2);
+		
+		assertNull(thumbnails.findFingerprint(item, content));
+		assertEquals(content.getFingerprint(), thumbnails.findFingerprint(other, content));
+	}
+	
+	@Test
+	void versionedFingerprint() throws Exception {
+		String item = ThumbnailCache.itemKey(CLASS_NAME, 3, "photo");
+		
+		String first = thumbnails.findFingerprint(item, new BinaryContent(new byte[] { 1 }, 1L));
+		String second = thumbnails.findFingerprint(item, new BinaryContent(new byte[] { 1 }, 2L));
+		
+		assertEquals(first, thumbnails.findFingerprint(item, new BinaryContent(new byte[] { 7 }, 1L)));
+		assertNotEquals(first, second);
+	}
+}
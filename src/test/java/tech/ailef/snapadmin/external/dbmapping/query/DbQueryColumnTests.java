@@ -0,0 +1,73 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.dbmapping.query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.Types;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks how console query values are stored, in particular that unsigned
+ * integers are not squeezed into signed primitives
+ */
+class DbQueryColumnTests {
+	@Test
+	void signedColumns() throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getInt(1)).thenReturn(42, 0);
+		when(rs.getLong(2)).thenReturn(Long.MAX_VALUE);
+		when(rs.wasNull()).thenReturn(false, true, false);
+		
+		DbQueryColumn ints = new DbQueryColumn(Types.INTEGER, true);
+		ints.read(rs, 1);
+		ints.read(rs, 1);
+		DbQueryColumn longs = new DbQueryColumn(Types.BIGINT, true);
+		longs.read(rs, 2);
+		
+		assertEquals(42, ints.get(0));
+		assertNull(ints.get(1));
+		assertEquals(Long.MAX_VALUE, longs.get(0));
+	}
+	
+	@Test
+	void unsignedColumns() throws Exception {
+		// What MySQL returns for INT UNSIGNED and BIGINT UNSIGNED
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getObject(1)).thenReturn(4294967295L);
+		when(rs.getObject(2)).thenReturn(new BigInteger("18446744073709551615"));
+		when(rs.getInt(1)).thenReturn(-1);
+		when(rs.getLong(2)).thenReturn(-1L);
+		
+		DbQueryColumn ints = new DbQueryColumn(Types.INTEGER, false);
+		ints.read(rs, 1);
+		DbQueryColumn longs = new DbQueryColumn(Types.BIGINT, false);
+		longs.read(rs, 2);
+		
+		assertEquals(4294967295L, ints.get(0));
+		assertEquals(new BigInteger("18446744073709551615"), longs.get(0));
+	}
+}
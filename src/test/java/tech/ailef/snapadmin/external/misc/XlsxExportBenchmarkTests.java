@@ -0,0 +1,256 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.misc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compares the heap usage and the time taken to export a large table with
+ * {@link XlsxStreamWriter} and with an in-memory {@link XSSFWorkbook}, as 
+ * exports were written before, and checks that a table larger than a sheet
+ * continues in a second sheet with bounded memory.
+ * 
+ * Excluded from the default build, run with {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class XlsxExportBenchmarkTests {
+	private static final Logger logger = LoggerFactory.getLogger(XlsxExportBenchmarkTests.class);
+	
+	/**
+	 * Rows exported with both writers, few enough for the in-memory
+	 * workbook to fit in the default heap of the tests
+	 */
+	private static final int COMPARED_ROWS = 200_000;
+	
+	/**
+	 * Rows in the table exported only with the streaming writer, more than fit in a sheet
+	 */
+	private static final int LARGE_ROWS = XlsxStreamWriter.MAX_ROWS + 1000;
+	
+	/**
+	 * The maximum increase of the used heap while writing with the streaming writer
+	 */
+	private static final long MAX_HEAP_GROWTH = 64 * 1024 * 1024;
+	
+	@TempDir
+	private Path tempDir;
+	
+	@Test
+	void compareWithInMemoryWorkbook() throws Exception {
+		try (Connection connection = createTable(COMPARED_ROWS)) {
+			Path inMemoryFile = tempDir.resolve("in-memory.xlsx");
+			long baseline = usedHeap();
+			long start = System.nanoTime();
+			long inMemoryGrowth;
+			try (Workbook workbook = new XSSFWorkbook();
+					Statement statement = connection.createStatement();
+					ResultSet rs = statement.executeQuery("SELECT id, title FROM book ORDER BY id")) {
+				Sheet sheet = workbook.createSheet("book");
+				CellStyle headerStyle = workbook.createCellStyle();
+				Font headerFont = workbook.createFont();
+				headerFont.setBold(true);
+				headerStyle.setFont(headerFont);
+				
+				int rowIndex = 0;
+				Row header = sheet.createRow(rowIndex++);
+				for (String name : List.of("id", "title")) {
+					Cell cell = header.createCell(header.getPhysicalNumberOfCells());
+					cell.setCellValue(name);
+					cell.setCellStyle(headerStyle);
+				}
+				
+				while (rs.next()) {
+					Row row = sheet.createRow(rowIndex++);
+					row.createCell(0).setCellValue(rs.getString(1));
+					row.createCell(1).setCellValue(rs.getString(2));
+				}
+				
+				// The whole workbook is in memory at this point
+				inMemoryGrowth = usedHeap() - baseline;
+				try (OutputStream out = Files.newOutputStream(inMemoryFile)) {
+					workbook.write(out);
+				}
+			}
+			long inMemoryNanos = System.nanoTime() - start;
+			
+			Path streamingFile = tempDir.resolve("streaming.xlsx");
+			start = System.nanoTime();
+			long streamingGrowth = exportStreaming(connection, streamingFile);
+			long streamingNanos = System.nanoTime() - start;
+			
+			logger.info("Exported " + COMPARED_ROWS + " rows: in-memory workbook " + (inMemoryNanos / 1_000_000) + " ms, " 
+				+ mb(inMemoryGrowth) + " MB of heap; streaming writer " + (streamingNanos / 1_000_000) + " ms, " 
+				+ mb(streamingGrowth) + " MB of heap");
+			
+			assertEquals(List.of(COMPARED_ROWS + 1), countRows(inMemoryFile, null));
+			assertEquals(List.of(COMPARED_ROWS + 1), countRows(streamingFile, null));
+			assertTrue(streamingGrowth < MAX_HEAP_GROWTH, "Heap grew by " + streamingGrowth + " bytes");
+			assertTrue(streamingGrowth < inMemoryGrowth);
+		}
+	}
+	
+	@Test
+	void exportMoreRowsThanASheet() throws Exception {
+		Path xlsx = tempDir.resolve("large.xlsx");
+		
+		try (Connection connection = createTable(LARGE_ROWS)) {
+			long start = System.nanoTime();
+			long growth = exportStreaming(connection, xlsx);
+			long nanos = System.nanoTime() - start;
+			
+			logger.info("Exported " + LARGE_ROWS + " rows to " + mb(Files.size(xlsx)) + " MB of XLSX in " 
+				+ (nanos / 1_000_000) + " ms, " + mb(growth) + " MB of heap");
+			assertTrue(growth < MAX_HEAP_GROWTH, "Heap grew by " + growth + " bytes");
+		}
+		
+		List<String> names = new ArrayList<>();
+		List<Integer> rows = countRows(xlsx, names);
+		assertEquals(List.of("book", "book (2)"), names);
+		// Each sheet repeats the header
+		assertEquals(List.of(XlsxStreamWriter.MAX_ROWS, LARGE_ROWS - (XlsxStreamWriter.MAX_ROWS - 1) + 1), rows);
+	}
+	
+	/**
+	 * Creates a file database with a table of the given size. Queries are lazy, so that
+	 * neither the table nor the results are kept in the heap and only the writers are measured.
+	 */
+	private Connection createTable(int rows) throws SQLException {
+		String url = "jdbc:h2:file:" + tempDir.resolve("export").toAbsolutePath() + ";LAZY_QUERY_EXECUTION=TRUE";
+		Connection connection = DriverManager.getConnection(url, "sa", "");
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE book (id BIGINT PRIMARY KEY, title VARCHAR(255))");
+			statement.execute("INSERT INTO book SELECT x, CONCAT('Book ', x) FROM SYSTEM_RANGE(1, " + rows + ")");
+		}
+		return connection;
+	}
+	
+	/**
+	 * Exports the table with the streaming writer, sampling the heap while writing
+	 * @return the maximum growth of the used heap
+	 */
+	private long exportStreaming(Connection connection, Path file) throws Exception {
+		long baseline = usedHeap();
+		long maxGrowth = 0;
+		
+		try (Statement statement = connection.createStatement();
+				XlsxStreamWriter writer = new XlsxStreamWriter("book", List.of("id", "title"), 100, false);
+				OutputStream out = Files.newOutputStream(file)) {
+			statement.setFetchSize(1000);
+			
+			int count = 0;
+			try (ResultSet rs = statement.executeQuery("SELECT id, title FROM book ORDER BY id")) {
+				while (rs.next()) {
+					writer.writeRow(List.of(rs.getString(1), rs.getString(2)));
+					
+					if (++count % 100_000 == 0)
+						maxGrowth = Math.max(maxGrowth, usedHeap() - baseline);
+				}
+			}
+			
+			writer.write(out);
+			maxGrowth = Math.max(maxGrowth, usedHeap() - baseline);
+		}
+		return maxGrowth;
+	}
+	
+	/**
+	 * Counts the rows of each sheet, streaming the XML of the sheets
+	 * @param names	if not null, filled with the names of the sheets
+	 */
+	private static List<Integer> countRows(Path xlsx, List<String> names) throws Exception {
+		List<Integer> rows = new ArrayList<>();
+		try (OPCPackage pkg = OPCPackage.open(xlsx.toFile(), PackageAccess.READ)) {
+			XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator)new XSSFReader(pkg).getSheetsData();
+			while (sheets.hasNext()) {
+				try (InputStream sheet = sheets.next()) {
+					rows.add(countRows(sheet));
+					if (names != null)
+						names.add(sheets.getSheetName());
+				}
+			}
+		}
+		return rows;
+	}
+	
+	/**
+	 * Counts the row elements in the XML of a sheet
+	 */
+	private static int countRows(InputStream sheet) throws IOException {
+		byte[] pattern = "<row ".getBytes(StandardCharsets.US_ASCII);
+		byte[] buffer = new byte[64 * 1024];
+		int count = 0;
+		int matched = 0;
+		int read;
+		while ((read = sheet.read(buffer)) != -1) {
+			for (int i = 0; i < read; i++) {
+				if (buffer[i] == pattern[matched]) {
+					if (++matched == pattern.length) {
+						count++;
+						matched = 0;
+					}
+				} else {
+					matched = buffer[i] == pattern[0] ? 1 : 0;
+				}
+			}
+		}
+		return count;
+	}
+	
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	private static long mb(long bytes) {
+		return bytes / 1024 / 1024;
+	}
+}
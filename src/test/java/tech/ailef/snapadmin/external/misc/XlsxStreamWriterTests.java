@@ -0,0 +1,101 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.external.misc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the content of the workbooks written by {@link XlsxStreamWriter}.
+ * The memory usage and the behaviour with a full sheet of rows are checked 
+ * by {@link XlsxExportBenchmarkTests}.
+ */
+class XlsxStreamWriterTests {
+	@Test
+	void rowsAndHeader() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (XlsxStreamWriter writer = new XlsxStreamWriter("book", List.of("id", "title"), 10, false)) {
+			for (int i = 1; i <= 25; i++)
+				writer.writeRow(List.of(String.valueOf(i), "Book " + i));
+			writer.write(out);
+		}
+		
+		try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+			assertEquals(1, workbook.getNumberOfSheets());
+			
+			Sheet sheet = workbook.getSheet("book");
+			assertEquals(25, sheet.getLastRowNum());
+			assertEquals("title", sheet.getRow(0).getCell(1).getStringCellValue());
+			assertTrue(workbook.getFontAt(sheet.getRow(0).getCell(1).getCellStyle().getFontIndex()).getBold());
+			assertEquals("25", sheet.getRow(25).getCell(0).getStringCellValue());
+			assertEquals("Book 25", sheet.getRow(25).getCell(1).getStringCellValue());
+		}
+	}
+	
+	@Test
+	void additionalSheets() throws Exception {
+		String longName = "a_sheet_name_longer_than_31_characters";
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (XlsxStreamWriter writer = new XlsxStreamWriter(longName, List.of("id"), 10, false, 10)) {
+			for (int i = 1; i <= 25; i++)
+				writer.writeRow(List.of(String.valueOf(i)));
+			writer.write(out);
+		}
+		
+		try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+			assertEquals(3, workbook.getNumberOfSheets());
+			assertEquals(longName.substring(0, 31), workbook.getSheetName(0));
+			assertEquals(longName.substring(0, 27) + " (2)", workbook.getSheetName(1));
+			assertEquals(longName.substring(0, 27) + " (3)", workbook.getSheetName(2));
+			
+			// Each sheet has the header and at most 9 rows
+			assertEquals(9, workbook.getSheetAt(0).getLastRowNum());
+			assertEquals(9, workbook.getSheetAt(1).getLastRowNum());
+			assertEquals(7, workbook.getSheetAt(2).getLastRowNum());
+			assertEquals("id", workbook.getSheetAt(2).getRow(0).getCell(0).getStringCellValue());
+			assertEquals("10", workbook.getSheetAt(1).getRow(1).getCell(0).getStringCellValue());
+			assertEquals("25", workbook.getSheetAt(2).getRow(7).getCell(0).getStringCellValue());
+		}
+	}
+	
+	@Test
+	void emptyExport() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (XlsxStreamWriter writer = new XlsxStreamWriter("book", List.of("id", "title"), 10, false)) {
+			writer.write(out);
+		}
+		
+		try (Workbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+			assertEquals(1, workbook.getNumberOfSheets());
+			assertEquals(0, workbook.getSheet("book").getLastRowNum());
+			assertEquals("id", workbook.getSheet("book").getRow(0).getCell(0).getStringCellValue());
+		}
+	}
+}
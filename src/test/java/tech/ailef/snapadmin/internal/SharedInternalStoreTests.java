@@ -0,0 +1,184 @@
+/* 
+ * SnapAdmin - An automatically generated CRUD admin UI for Spring Boot apps
+ * Copyright (C) 2023 Ailef (http://ailef.tech)
+ * 
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package tech.ailef.snapadmin.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import tech.ailef.snapadmin.internal.model.ConsoleQuery;
+import tech.ailef.snapadmin.internal.model.UserAction;
+import tech.ailef.snapadmin.internal.model.UserSetting;
+import tech.ailef.snapadmin.internal.repository.UserActionRepository;
+import tech.ailef.snapadmin.internal.service.ConsoleQueryService;
+import tech.ailef.snapadmin.internal.service.UserActionRetentionJob;
+import tech.ailef.snapadmin.internal.service.UserActionService;
+import tech.ailef.snapadmin.internal.service.UserActionWriter;
+import tech.ailef.snapadmin.internal.service.UserSettingsService;
+import tech.ailef.snapadmin.test.SnapAdminTestApplication;
+
+/**
+ * Starts two instances of the application sharing the same internal
+ * database (an H2 server standing in for a shared database) in
+ * a dedicated schema, and checks that they see the same data
+ */
+class SharedInternalStoreTests {
+	private static final String SCHEMA = "SNAPADMIN";
+	
+	private static Server server;
+	
+	private static ConfigurableApplicationContext nodeA;
+	
+	private static ConfigurableApplicationContext nodeB;
+	
+	@BeforeAll
+	static void start() throws Exception {
+		server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+		nodeA = startNode("nodeA");
+		nodeB = startNode("nodeB");
+	}
+	
+	@AfterAll
+	static void stop() {
+		if (nodeA != null) nodeA.close();
+		if (nodeB != null) nodeB.close();
+		if (server != null) server.stop();
+	}
+	
+	private static ConfigurableApplicationContext startNode(String name) {
+		return new SpringApplicationBuilder(SnapAdminTestApplication.class)
+			.web(WebApplicationType.SERVLET)
+			.properties(
+				"server.port=0",
+				"spring.datasource.url=jdbc:h2:mem:" + name,
+				"snapadmin.testMode=false",
+				"snapadmin.settingsRefreshInterval=0",
+				"snapadmin.auditRetentionDays=30",
+				"snapadmin.internalDbUrl=jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:shared;DB_CLOSE_DELAY=-1",
+				"snapadmin.internalDbSchema=" + SCHEMA,
+				"snapadmin.internalDbPoolSize=3"
+			).run();
+	}
+	
+	@Test
+	void pool() {
+		HikariDataSource dataSource = nodeA.getBean("internalDataSource", HikariDataSource.class);
+		assertEquals(3, dataSource.getMaximumPoolSize());
+		
+		List<String> tables = internalJdbcTemplate().queryForList(
+			"SELECT table_name FROM information_schema.tables WHERE table_schema = ?", String.class, SCHEMA);
+		assertTrue(tables.contains("USERACTION"), tables.toString());
+		assertTrue(tables.contains("CONSOLEQUERY"), tables.toString());
+		assertTrue(tables.contains("USERSETTING"), tables.toString());
+	}
+	
+	@Test
+	void settings() {
+		nodeA.getBean(UserSettingsService.class).save(new UserSetting("brandName", "Shared Brand"));
+		
+		assertEquals("Shared Brand", nodeB.getBean(UserConfiguration.class).get("brandName"));
+	}
+	
+	@Test
+	void missingVersionSetting() {
+		internalJdbcTemplate().update("DELETE FROM " + SCHEMA + ".UserSetting WHERE id = ?", UserConfiguration.VERSION_KEY);
+		
+		nodeB.getBean(UserSettingsService.class).save(new UserSetting("additionalCss", "body {}"));
+		
+		assertEquals("body {}", nodeA.getBean(UserConfiguration.class).get("additionalCss"));
+		assertEquals(1, internalJdbcTemplate().queryForObject("SELECT COUNT(*) FROM " + SCHEMA + ".UserSetting WHERE id = ?", 
+			Integer.class, UserConfiguration.VERSION_KEY));
+	}
+	
+	@Test
+	void consoleQueries() throws InterruptedException {
+		ConsoleQuery first = new ConsoleQuery();
+		first.setTitle("first");
+		nodeA.getBean(ConsoleQueryService.class).save(first);
+		
+		Thread.sleep(5);
+		
+		ConsoleQuery second = new ConsoleQuery();
+		second.setTitle("second");
+		nodeB.getBean(ConsoleQueryService.class).save(second);
+		
+		List<String> titlesA = nodeA.getBean(ConsoleQueryService.class).findAll().stream().map(ConsoleQuery::getTitle).toList();
+		List<String> titlesB = nodeB.getBean(ConsoleQueryService.class).findAll().stream().map(ConsoleQuery::getTitle).toList();
+		assertEquals(titlesA, titlesB);
+		assertTrue(titlesA.indexOf("first") < titlesA.indexOf("second"), titlesA.toString());
+	}
+	
+	@Test
+	void auditLog() {
+		UserActionRepository repositoryB = nodeB.getBean(UserActionRepository.class);
+		long before = repositoryB.count();
+		
+		nodeA.getBean(UserActionService.class).save(new UserAction("book", "1", "CREATE", "tech.ailef.snapadmin.test.model.Book", "admin"));
+		nodeA.getBean(UserActionWriter.class).flush();
+		
+		assertEquals(before + 1, repositoryB.count());
+	}
+	
+	@Test
+	void retention() {
+		JdbcTemplate jdbcTemplate = internalJdbcTemplate();
+		String insert = "INSERT INTO " + SCHEMA + ".UserAction (createdAt, sql, javaClass, onTable, primaryKey, actionType, username) "
+			+ "VALUES (?, '', 'Book', 'book', ?, 'EDIT', 'admin')";
+		for (int i = 0; i < 2500; i++)
+			jdbcTemplate.update(insert, LocalDateTime.now().minusDays(40), "expired-" + i);
+		jdbcTemplate.update(insert, LocalDateTime.now(), "recent");
+		
+		long deleted = nodeB.getBean(UserActionRetentionJob.class).deleteExpired();
+		
+		assertEquals(2500, deleted);
+		String count = "SELECT COUNT(*) FROM " + SCHEMA + ".UserAction WHERE primaryKey = ?";
+		assertEquals(1, jdbcTemplate.queryForObject(count, Integer.class, "recent"));
+		assertEquals(0, jdbcTemplate.queryForObject(count, Integer.class, "expired-0"));
+	}
+	
+	@Test
+	void retentionRunsOnOneNode() {
+		internalJdbcTemplate().update("DELETE FROM " + SCHEMA + ".UserSetting WHERE id = ?", UserActionRetentionJob.LAST_RUN_KEY);
+		
+		assertTrue(nodeA.getBean(UserActionRetentionJob.class).claimPass());
+		assertFalse(nodeB.getBean(UserActionRetentionJob.class).claimPass());
+		assertFalse(nodeA.getBean(UserActionRetentionJob.class).claimPass());
+	}
+	
+	private JdbcTemplate internalJdbcTemplate() {
+		return new JdbcTemplate(nodeA.getBean("internalDataSource", DataSource.class));
+	}
+}